@@ -0,0 +1,231 @@
+package com.sgtcodfish.eins;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load tests an {@link EinsServer} by connecting many automatic {@link EinsClient}s at once, each on its own thread, and reports how long the
+ * server took to answer each of their answers with the next prompt, over all of them: the mean, the median, the 90th and 99th percentiles and the
+ * worst, along with the number of prompts answered per second.
+ *
+ * Unless a host and port are given, a server is started in this process on a free port, playing without pauses (-pace 0) so that the latencies
+ * are the server's own, with -nio threads handling the sockets (0 to give every table its own blocking socket instead). To run:
+ *   gradle loadTest -PloadTestArgs="[-clients count] [-games games] [-ais count] [-nio threads] [host port]"
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class EinsLoadTest {
+	public static final int CLIENT_COUNT_DEFAULT = 200;
+	public static final int GAME_COUNT_DEFAULT = 1;
+	public static final int AI_COUNT_DEFAULT = 3;
+	public static final int IO_THREADS_DEFAULT = 2;
+	public static final long STACK_SIZE_DEFAULT = 128L * 1024L;
+	
+	protected String host;
+	protected int port;
+	protected int clientCount;
+	protected long[][] latencies; /** Each client's latencies, filled in as they finish. */
+	protected AtomicInteger failures; /** The number of clients whose connection failed. */
+	
+	/**
+	 * @param nhost The host the server is on.
+	 * @param nport The port the server is listening on.
+	 * @param nclientCount The number of clients to connect at once.
+	 * @throws IllegalArgumentException
+	 */
+	public EinsLoadTest(String nhost, int nport, int nclientCount) throws IllegalArgumentException {
+		if(nclientCount < 1) {
+			throw new IllegalArgumentException("Trying to load test with too few (" + nclientCount + ") clients!");
+		}
+		
+		host = nhost;
+		port = nport;
+		clientCount = nclientCount;
+		latencies = new long[clientCount][];
+		failures = new AtomicInteger();
+	}
+	
+	/**
+	 * Connects every client, lets them all play until the server closes their connections, and returns every latency they recorded.
+	 * @return The latencies in nanoseconds, sorted.
+	 * @throws InterruptedException
+	 */
+	public long[] run() throws InterruptedException {
+		final CountDownLatch finished = new CountDownLatch(clientCount);
+		
+		for(int i = 0; i < clientCount; i++) {
+			final int number = i;
+			
+			Thread t = new Thread(null, new Runnable() {
+				@Override
+				public void run() {
+					EinsClient client = null;
+					
+					try {
+						client = new EinsClient(host, port, null);
+						client.playAuto();
+					} catch(IOException ioe) {
+						failures.incrementAndGet();
+					} finally {
+						latencies[number] = (client != null ? client.getLatencies() : new long[0]);
+						finished.countDown();
+					}
+				}
+			}, "EinsLoadTest-client-" + (i + 1), STACK_SIZE_DEFAULT);
+			
+			t.setDaemon(true);
+			t.start();
+		}
+		
+		finished.await();
+		
+		int total = 0;
+		
+		for(long[] l : latencies) {
+			total += l.length;
+		}
+		
+		long[] all = new long[total];
+		int offset = 0;
+		
+		for(long[] l : latencies) {
+			System.arraycopy(l, 0, all, offset, l.length);
+			offset += l.length;
+		}
+		
+		Arrays.sort(all);
+		return all;
+	}
+	
+	/**
+	 * @return The number of clients whose connection failed during the last run.
+	 */
+	public int getFailures() {
+		return failures.get();
+	}
+	
+	/**
+	 * @param sorted Latencies in ascending order; not empty.
+	 * @param p The percentile, from 0 to 100.
+	 * @return The latency that p percent of them are no worse than.
+	 */
+	protected static long percentile(long[] sorted, double p) {
+		int index = (int)Math.ceil(p / 100.0d * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+	}
+	
+	protected static String millis(double nanos) {
+		return String.format("%.3fms", nanos / 1000000.0d);
+	}
+	
+	/**
+	 * Prints a summary of a run's latencies.
+	 * @param sorted The latencies in nanoseconds, in ascending order.
+	 * @param elapsedNanos How long the run took.
+	 * @param io Where the summary is printed.
+	 */
+	public static void printResults(long[] sorted, long elapsedNanos, EINSIOHandler io) {
+		io.println(sorted.length + " prompts in " + (elapsedNanos / 1000000L) + "ms (" + String.format("%.1f", sorted.length / (elapsedNanos / 1000000000.0d)) +
+				" prompts/s).");
+		
+		if(sorted.length == 0) {
+			return;
+		}
+		
+		double sum = 0.0d;
+		
+		for(long l : sorted) {
+			sum += l;
+		}
+		
+		io.println("Latency: mean " + millis(sum / sorted.length) + ", p50 " + millis(percentile(sorted, 50.0d)) + ", p90 " + millis(percentile(sorted, 90.0d)) +
+				", p99 " + millis(percentile(sorted, 99.0d)) + ", max " + millis(sorted[sorted.length - 1]) + ".");
+	}
+	
+	/**
+	 * Parses the command line arguments described in the class documentation, runs the load test and reports the results.
+	 */
+	public static void main(String[] args) {
+		ConsoleIOHandler io = new ConsoleIOHandler();
+		int clients = CLIENT_COUNT_DEFAULT;
+		int games = GAME_COUNT_DEFAULT;
+		int ais = AI_COUNT_DEFAULT;
+		int ioThreads = IO_THREADS_DEFAULT;
+		String host = null;
+		int port = 0;
+		
+		try {
+			while(args.length > 1 && args[0].startsWith("-")) {
+				if(args[0].equals("-clients")) {
+					clients = Integer.parseInt(args[1]);
+				} else if(args[0].equals("-games")) {
+					games = Integer.parseInt(args[1]);
+				} else if(args[0].equals("-ais")) {
+					ais = Integer.parseInt(args[1]);
+				} else if(args[0].equals("-nio")) {
+					ioThreads = Integer.parseInt(args[1]);
+				} else {
+					throw new IllegalArgumentException("Unknown option " + args[0]);
+				}
+				
+				String[] rest = new String[args.length - 2];
+				System.arraycopy(args, 2, rest, 0, rest.length);
+				args = rest;
+			}
+			
+			if(args.length == 2) {
+				host = args[0];
+				port = Integer.parseInt(args[1]);
+			} else if(args.length != 0) {
+				throw new IllegalArgumentException("Expected a host and a port, or neither");
+			}
+		} catch(IllegalArgumentException iae) { // includes NumberFormatException
+			io.printErrorln("Invalid arguments: " + iae.getMessage());
+			io.printErrorln("Usage: EinsLoadTest [-clients count] [-games games] [-ais count] [-nio threads] [host port]");
+			return;
+		}
+		
+		EinsServer server = null;
+		
+		try {
+			if(host == null) {
+				server = new EinsServer(0, ais, Table.AI_DIFFICULTY_DEFAULT, games, NullPacer.INSTANCE, clients, 0, ioThreads, new NullIOHandler());
+				Thread t = new Thread(server, "EinsLoadTest-server");
+				t.setDaemon(true);
+				t.start();
+				
+				host = EinsClient.HOST_DEFAULT;
+				port = server.getPort();
+				io.println("Started a server on port " + port + (ioThreads > 0 ? " with " + ioThreads + " IO threads." : " with blocking sockets."));
+			}
+			
+			io.println("Connecting " + clients + " clients to " + host + ":" + port + "...");
+			io.flush();
+			
+			EinsLoadTest test = new EinsLoadTest(host, port, clients);
+			long start = System.nanoTime();
+			long[] sorted = test.run();
+			long elapsed = System.nanoTime() - start;
+			
+			if(test.getFailures() > 0) {
+				io.println(test.getFailures() + " of the clients lost their connection.");
+			}
+			
+			printResults(sorted, elapsed, io);
+		} catch(IOException ioe) {
+			io.printErrorln("Couldn't start a server: " + ioe);
+		} catch(InterruptedException ie) {
+			io.printErrorln("Interrupted!");
+		} finally {
+			if(server != null) {
+				try {
+					server.close();
+				} catch(IOException ioe) {
+				}
+			}
+		}
+		
+		io.flush();
+	}
+}
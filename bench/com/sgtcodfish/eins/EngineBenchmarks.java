@@ -0,0 +1,359 @@
+package com.sgtcodfish.eins;
+
+import java.util.Vector;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.sgtcodfish.eins.AIPlayer.AIDifficulty;
+
+/**
+ * JMH benchmarks of the hot paths of the game engine, each measured on its own: creating and shuffling a {@link Deck}, {@link Table#isLegal(Card)},
+ * the two AI turns, {@link AIPlayer#askForColour()}, {@link ScoreList#addScores(Vector)}, a whole headless {@link Table#mainLoop(ScoreList)} and the
+ * {@link GameState} playouts that the MCTS AI's strength depends on. The ROLLOUT AI's playouts are measured for several thread counts, to show how
+ * much CPU it's worth giving the AI.
+ *
+ * Lives in its own source set (bench) in the same package as the game, so that it can call protected methods like doTurnRegular() directly,
+ * but isn't part of the game itself. To run from the project root:
+ *   gradle jmh [-PjmhArgs="JMH options and benchmark patterns"]
+ * The results are written as JSON (-rf json) to build/reports/jmh/results.json, so runs from different releases can be compared with the usual tools.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class EngineBenchmarks {
+	public static final int SEAT_COUNT_DEFAULT = 6;
+	public static final int ROLLOUT_PLAYOUTS = 1000; /** The playouts in each measured ROLLOUT search. */
+	
+	/**
+	 * Creates a table of AIs which discards all output, ready for its first turn.
+	 * @param diff The difficulty of every AI at the table.
+	 * @return A new table which has been dealt and had its first card applied.
+	 */
+	protected static Table createTable(AIDifficulty diff) {
+		Vector<CardEntity> players = new Vector<CardEntity>(SEAT_COUNT_DEFAULT);
+		
+		for(int i = 0; i < SEAT_COUNT_DEFAULT; i++) {
+			players.add(new AIPlayer("Computer " + (i+1), diff));
+		}
+		
+		Table table = new Table(new NullIOHandler(), players);
+		table.startGame();
+		return table;
+	}
+	
+	/**
+	 * A table of REGULAR AIs, dealt once per run.
+	 */
+	@State(Scope.Thread)
+	public static class TableState {
+		protected Table table;
+		
+		@Setup(Level.Trial)
+		public void setup() {
+			table = createTable(AIDifficulty.REGULAR);
+		}
+	}
+	
+	/**
+	 * A full deck, shuffled over and over.
+	 */
+	@State(Scope.Thread)
+	public static class DeckState {
+		protected Deck deck;
+		
+		@Setup(Level.Trial)
+		public void setup() {
+			deck = new Deck(createTable(AIDifficulty.REGULAR));
+		}
+	}
+	
+	/**
+	 * A table and one card of every kind to check against it.
+	 */
+	@State(Scope.Thread)
+	public static class CardsState {
+		protected Table table;
+		protected Card[] cards;
+		
+		@Setup(Level.Trial)
+		public void setup() {
+			table = createTable(AIDifficulty.REGULAR);
+			cards = new Card[CardCode.KIND_COUNT];
+			
+			for(int i = 0; i < cards.length; i++) {
+				cards[i] = CardCode.toCard(i);
+			}
+		}
+	}
+	
+	/**
+	 * A table of AIs of the same difficulty, which is replaced by a new one whenever its game ends. The new table is included in the time but
+	 * spread over the 60 or so turns of a game.
+	 */
+	@State(Scope.Thread)
+	public static abstract class TurnState {
+		protected AIDifficulty difficulty;
+		protected Table table;
+		
+		protected TurnState(AIDifficulty ndifficulty) {
+			difficulty = ndifficulty;
+		}
+		
+		@Setup(Level.Iteration)
+		public void setup() {
+			table = createTable(difficulty);
+		}
+		
+		/**
+		 * Plays the current player's turn, calling doTurnRegular() or doTurnBest() directly so the announcement and delay in doTurn() aren't measured.
+		 * @return The number of cards the player has left.
+		 */
+		public int playTurn() {
+			AIPlayer player = (AIPlayer)table.getCurrentPlayer();
+			table.lastPlayer = table.currentPlayer;
+			
+			try {
+				if(difficulty == AIDifficulty.BEST) {
+					player.doTurnBest();
+				} else {
+					player.doTurnRegular();
+				}
+			} catch(IllegalStateException ise) {
+				// every card is in someone's hand; very rare, so just start again.
+				table = createTable(difficulty);
+				return 0;
+			}
+			
+			int cards = player.countCards();
+			
+			if(cards == 0) {
+				table = createTable(difficulty);
+			}
+			
+			return cards;
+		}
+	}
+	
+	public static class RegularTurnState extends TurnState {
+		public RegularTurnState() {
+			super(AIDifficulty.REGULAR);
+		}
+	}
+	
+	public static class BestTurnState extends TurnState {
+		public BestTurnState() {
+			super(AIDifficulty.BEST);
+		}
+	}
+	
+	/**
+	 * A table of BEST AIs with freshly dealt hands.
+	 */
+	@State(Scope.Thread)
+	public static class ColourState {
+		protected CardEntity player;
+		
+		@Setup(Level.Iteration)
+		public void setup() {
+			player = createTable(AIDifficulty.BEST).getCurrentPlayer();
+		}
+	}
+	
+	/**
+	 * A table of players with dealt hands and a ScoreList to add them to; a new list is used for each iteration.
+	 */
+	@State(Scope.Thread)
+	public static class ScoreState {
+		protected Table table;
+		protected ScoreList slist;
+		
+		@Setup(Level.Trial)
+		public void setupTable() {
+			table = createTable(AIDifficulty.REGULAR);
+		}
+		
+		@Setup(Level.Iteration)
+		public void setupList() {
+			slist = new ScoreList();
+		}
+	}
+	
+	/**
+	 * The seats of the hidden game mode (1 BEST AI and 5 REGULAR AIs) and a ScoreList for their games; a new list is used for each iteration.
+	 */
+	@State(Scope.Thread)
+	public static class SeatsState {
+		protected AIDifficulty[] seats;
+		protected ScoreList slist;
+		
+		@Setup(Level.Trial)
+		public void setupSeats() {
+			seats = Simulation.getDefaultSeats();
+		}
+		
+		@Setup(Level.Iteration)
+		public void setupList() {
+			slist = new ScoreList();
+		}
+		
+		/**
+		 * @return A new table of AIs in the hidden game mode's seats, which discards all output and doesn't pause.
+		 */
+		public Table createTable() {
+			Vector<CardEntity> players = new Vector<CardEntity>(seats.length);
+			
+			for(int i = 0; i < seats.length; i++) {
+				players.add(new AIPlayer("Computer " + (i+1), seats[i]));
+			}
+			
+			return new Table(new NullIOHandler(), players);
+		}
+	}
+	
+	/**
+	 * A position from the middle of a game to play out from.
+	 */
+	@State(Scope.Thread)
+	public static class PlayoutState {
+		protected GameState root;
+		protected GameState state;
+		protected FastRandom random;
+		
+		@Setup(Level.Trial)
+		public void setup() {
+			root = new GameState(createTable(AIDifficulty.REGULAR));
+			state = new GameState(root.getPlayerCount());
+			random = new FastRandom();
+		}
+	}
+	
+	/**
+	 * A position with more than one legal move, and a ROLLOUT search with the given number of worker threads.
+	 */
+	@State(Scope.Thread)
+	public static class RolloutState {
+		@Param({"1", "2", "4"})
+		public int threads;
+		
+		protected GameState root;
+		protected RolloutSearch search;
+		
+		@Setup(Level.Trial)
+		public void setup() {
+			root = new GameState(createTable(AIDifficulty.REGULAR));
+			search = new RolloutSearch(threads, ROLLOUT_PLAYOUTS, 0L, new FastRandom());
+			
+			// a position with only one legal move isn't searched at all, so look for one worth thinking about.
+			int[] moves = new int[GameState.MAX_MOVES];
+			
+			while(root.legalMoves(moves) < 2) {
+				root = new GameState(createTable(AIDifficulty.REGULAR));
+			}
+		}
+	}
+	
+	/**
+	 * Creates a new {@link Deck} of 112 cards for a table.
+	 */
+	@Benchmark
+	public void deckCreate(TableState s, Blackhole bh) {
+		bh.consume(new Deck(s.table));
+	}
+	
+	/**
+	 * Shuffles a full {@link Deck}.
+	 */
+	@Benchmark
+	public void deckShuffle(DeckState s, Blackhole bh) {
+		s.deck.shuffle();
+		bh.consume(s.deck.getBuffer().peekDeck(0));
+	}
+	
+	/**
+	 * Checks one card against the table per operation, going through every kind of card.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(CardCode.KIND_COUNT)
+	public void isLegal(CardsState s, Blackhole bh) {
+		for(Card c : s.cards) {
+			bh.consume(s.table.isLegal(c));
+		}
+	}
+	
+	/**
+	 * Plays one REGULAR AI turn.
+	 */
+	@Benchmark
+	public void doTurnRegular(RegularTurnState s, Blackhole bh) {
+		bh.consume(s.playTurn());
+	}
+	
+	/**
+	 * Plays one BEST AI turn.
+	 */
+	@Benchmark
+	public void doTurnBest(BestTurnState s, Blackhole bh) {
+		bh.consume(s.playTurn());
+	}
+	
+	/**
+	 * Asks an AI with a freshly dealt hand to choose a colour.
+	 */
+	@Benchmark
+	public void askForColour(ColourState s, Blackhole bh) {
+		bh.consume(s.player.askForColour());
+	}
+	
+	/**
+	 * Adds the scores of a table of players to a ScoreList.
+	 */
+	@Benchmark
+	public void addScores(ScoreState s, Blackhole bh) {
+		s.slist.addScores(s.table.players);
+		bh.consume(s.slist.getDatasetCount());
+	}
+	
+	/**
+	 * Plays a whole game of the hidden game mode through {@link Table#mainLoop(ScoreList)} with no output, including dealing the table.
+	 */
+	@Benchmark
+	public void mainLoop(SeatsState s, Blackhole bh) {
+		bh.consume(s.createTable().mainLoop(s.slist));
+	}
+	
+	/**
+	 * One MCTS playout: copies a position from the middle of a game, guesses the hidden cards and plays the game out at random.
+	 */
+	@Benchmark
+	public void mctsPlayout(PlayoutState s, Blackhole bh) {
+		s.state.copyFrom(s.root);
+		s.state.determinize(s.root.getCurrentPlayer(), s.random);
+		bh.consume(s.state.playout(s.random, MCTSSearch.PLAYOUT_MOVES_MAX));
+	}
+	
+	/**
+	 * One ROLLOUT search of the position; each operation is one playout, so the score is playouts/second.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(ROLLOUT_PLAYOUTS)
+	public void rolloutPlayouts(RolloutState s, Blackhole bh) {
+		bh.consume(s.search.search(s.root));
+	}
+}
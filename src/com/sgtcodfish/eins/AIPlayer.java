@@ -1,6 +1,5 @@
 package com.sgtcodfish.eins;
 
-import java.util.Hashtable;
 import java.util.Random;
 import java.util.Vector;
 
@@ -19,6 +18,13 @@ public class AIPlayer extends CardEntity {
 	 *   > BEST will never forget to say EINS, and will always pick up on another player's failure to say it.
 	 *   > BEST will always play when possible and will always try to make the best possible move value-wise.
 	 *   
+	 * - MCTS searches for the move that wins most often, by playing out thousands of random games from the current position with {@link MCTSSearch}.
+	 *   > MCTS only uses what it could see at a real table: its own hand, the pile and how many cards everyone else has.
+	 *   > MCTS says EINS and accuses like BEST does. How long it thinks for is set with setSearchBudget.
+	 *   
+	 * - ROLLOUT tries every legal move in thousands of random playouts with {@link RolloutSearch}, spread over several threads, and makes the move that did best.
+	 *   > ROLLOUT sees the same things as MCTS and says EINS and accuses in the same way. Its threads are set with setSearchWorkers.
+	 *   
 	 * See {@link AIPlayer.askForColour()} for a description of what happens when the function is called depending on the chosen difficulty.
 	 * 
 	 * There used to be STUPID difficulty as well, but this was redundant after testing BEST.
@@ -27,14 +33,69 @@ public class AIPlayer extends CardEntity {
 	 */
 	enum AIDifficulty {
 		REGULAR,
-		BEST;
+		BEST,
+		MCTS,
+		ROLLOUT;
 	}
 	
 	protected AIDifficulty difficulty;
+	protected MoveSearch search; /** Used by MCTS and ROLLOUT difficulties; created on the first turn, when the table's random number generator is known. */
+	protected GameState searchState; /** The copy of the table that the search starts from; reused every turn. */
+	protected int searchIterations; /** The most playouts the search may run for each move, or 0 for no limit. */
+	protected long searchMillis; /** The longest the search may take for each move, or 0 for no limit. */
+	protected int searchWorkers; /** The number of threads ROLLOUT searches with. */
+	protected CardColour chosenColour; /** The colour the search chose along with the BLACK card being played, returned by the next askForColour. */
 	
 	public AIPlayer(String nname, AIDifficulty ndifficulty) {
 		super(nname);
 		difficulty = ndifficulty;
+		
+		if(difficulty == AIDifficulty.ROLLOUT) {
+			searchIterations = RolloutSearch.PLAYOUTS_DEFAULT;
+			searchMillis = RolloutSearch.TIME_MILLIS_DEFAULT;
+		} else {
+			searchIterations = MCTSSearch.ITERATIONS_DEFAULT;
+			searchMillis = MCTSSearch.TIME_MILLIS_DEFAULT;
+		}
+		
+		searchWorkers = Runtime.getRuntime().availableProcessors();
+		chosenColour = null;
+	}
+	
+	/**
+	 * Sets how long an MCTS or ROLLOUT AI thinks about each move; has no effect on other difficulties. The search stops at whichever limit it reaches first.
+	 * @param niterations The most playouts to run for each move, or 0 for no limit.
+	 * @param millis The longest to search for each move, in milliseconds, or 0 for no limit.
+	 * @throws IllegalArgumentException If there's no limit at all, or a limit is negative.
+	 */
+	public void setSearchBudget(int niterations, long millis) throws IllegalArgumentException {
+		if(niterations < 0 || millis < 0L || (niterations == 0 && millis == 0L)) {
+			throw new IllegalArgumentException("Invalid search budget of " + niterations + " iterations and " + millis + "ms!");
+		}
+		
+		searchIterations = niterations;
+		searchMillis = millis;
+		
+		if(search != null) {
+			search.setBudget(searchIterations, searchMillis);
+		}
+	}
+	
+	/**
+	 * Sets how many threads a ROLLOUT AI uses to run its playouts; has no effect on other difficulties.
+	 * @param nworkers The number of threads, at least 1. With 1, the playouts run on the game's own thread.
+	 * @throws IllegalArgumentException
+	 */
+	public void setSearchWorkers(int nworkers) throws IllegalArgumentException {
+		if(nworkers < 1) {
+			throw new IllegalArgumentException("A ROLLOUT AI needs at least 1 worker, not " + nworkers + "!");
+		}
+		
+		searchWorkers = nworkers;
+		
+		if(search instanceof RolloutSearch) {
+			((RolloutSearch)search).setWorkerCount(searchWorkers);
+		}
 	}
 	
 	/**
@@ -44,14 +105,16 @@ public class AIPlayer extends CardEntity {
 	 */
 	@Override
 	public void doTurn() throws IllegalArgumentException, IllegalStateException {
-		table.getIOHandler().print(difficulty + " AI (" + getName() + ") engaged. Calculating move");
+		if(table.getIOHandler().isOutputEnabled()) table.getIOHandler().print(difficulty + " AI (" + getName() + ") engaged. Calculating move");
 		
-		if(table.shouldSleep()) table.getIOHandler().doDelay(2100);
+		table.delay(2100);
 
 		if(difficulty == AIDifficulty.REGULAR) {
 			doTurnRegular();
 		} else if(difficulty == AIDifficulty.BEST) {
 			doTurnBest();
+		} else if(difficulty == AIDifficulty.MCTS || difficulty == AIDifficulty.ROLLOUT) {
+			doTurnSearch();
 		}
 	}
 	
@@ -64,8 +127,7 @@ public class AIPlayer extends CardEntity {
 		// makes correct EINS accusations (that is, accuses when it thinks someone has forgotten to say EINS) 90% of the time one is available.
 		// makes incorrect EINS accusations (that is, accuses of eins when it knows it is false) 1% of the time.
 		
-		Vector<Card> legal = new Vector<Card>();
-		Random random = new Random();
+		Random random = table.getRandom();
 		
 		if(random.nextFloat() < 0.01f) {
 			// 1% of the time, accuse people of forgetting to say eins regardless of whether we think they have forgotten or not.
@@ -77,20 +139,15 @@ public class AIPlayer extends CardEntity {
 			}
 		}
 		
-		for(Card c : cards) {
-			if(table.isLegal(c)) {
-				legal.add(c);
-			}
-		}
+		long legal = getLegalMask();
 		
-		if(legal.size() == 0) {
+		if(legal == 0L) {
 			// no legal cards so draw (and play then if possible)
 			table.getIOHandler().println("REGULAR AI: No legal cards found, drawing card.");
-			Card latest = table.getDeck().takeCard();
-			takeCard(latest);
+			Card latest = drawCard();
 			if(table.isLegal(latest)) {
 				// we can play our new card!
-				table.getIOHandler().println("REGULAR AI: Drawn card is legal, playing " + latest + "!");
+				if(table.getIOHandler().isOutputEnabled()) table.getIOHandler().println("REGULAR AI: Drawn card is legal, playing " + latest + "!");
 				
 				if(countCards() == 2) {
 					// we're going to have EINS again, so we need to say it 90% of the time
@@ -116,7 +173,8 @@ public class AIPlayer extends CardEntity {
 				}
 			}
 			
-			playCard(legal.elementAt(random.nextInt(legal.size())));
+			// every legal card in our hand is equally likely, so kinds we hold more of are more likely.
+			playCard(CardCode.getCard(hand.pickRandom(legal, random)));
 		}
 	}
 	
@@ -126,17 +184,18 @@ public class AIPlayer extends CardEntity {
 	 * @throws IllegalArgumentException 
 	 */
 	protected void doTurnBest() throws IllegalArgumentException, IllegalStateException {
-		for(Card c : cards) {
-			if(c.getColour() == CardColour.BLACK) {
-				// we found a black card so play it straight away and the turn is over. The colour we pick is asked of us later, by the Table class.
-				//System.out.println("BEST AI: Found black card, playing.");
-				if(countCards() == 2) {
-					sayEins();
-				}
-				
-				playCard(c);
-				return;
+		long black = hand.getMask() & CardCode.BLACK_MASK;
+		
+		if(black != 0L) {
+			// we found a black card so play it straight away and the turn is over. The colour we pick is asked of us later, by the Table class.
+			// if we have more than one, play the one we got first.
+			//System.out.println("BEST AI: Found black card, playing.");
+			if(countCards() == 2) {
+				sayEins();
 			}
+			
+			playCard(CardCode.getCard(hand.pickFirst(black)));
+			return;
 		}
 		
 		if(table.checkEins()) { // always accuse people of forgetting to say EINS if they actually did forget
@@ -144,20 +203,14 @@ public class AIPlayer extends CardEntity {
 		}
 		
 		// we don't have any black cards, so now we want to see what's legal for us to play.
-		Vector<Card> legal = new Vector<Card>();
-		for(Card c : cards) {
-			if(table.isLegal(c)) {
-				legal.add(c);
-			}
-		}
+		long legal = getLegalMask();
 		
-		if(legal.size() == 0) {
+		if(legal == 0L) {
 			// we don't have any legal moves to play, so we need to draw a card.
 			table.getIOHandler().println("BEST AI: No legal cards found, drawing card.");
-			Card latest = table.getDeck().takeCard();
-			takeCard(latest);
+			Card latest = drawCard();
 			if(table.isLegal(latest)) {
-				table.getIOHandler().println("BEST AI: Drawn card is legal, playing " + latest + "!");
+				if(table.getIOHandler().isOutputEnabled()) table.getIOHandler().println("BEST AI: Drawn card is legal, playing " + latest + "!");
 				
 				if(countCards() == 2) { // always say EINS if we need to.
 					sayEins();
@@ -171,40 +224,92 @@ public class AIPlayer extends CardEntity {
 		} else {
 			// there's at least one legal move, so we need to work out which is the best one (by value)
 			// System.out.println("BEST AI: Legal card found, playing!");
-			if(legal.size() == 1) {
-				if(countCards() == 2) { // if we only have 2 cards left, say EINS
-					sayEins();
-				}
-				
-				playCard(legal.elementAt(0));
+			if(countCards() == 2) { // if we only have 2 cards left, say EINS
+				sayEins();
+			}
+			
+			// we have our best move, so play it
+			playCard(CardCode.getCard(hand.pickHighestValue(legal)));
+		}
+	}
+	
+	/**
+	 * Execute a turn by searching for the move that does best in simulated games. See AIDifficulty for a description of what constitutes "MCTS" and "ROLLOUT" AI.
+	 * If there's nothing legal to play, a card is drawn and played if it's legal, with the search run again only to choose the colour of a BLACK card.
+	 * @throws IllegalStateException 
+	 * @throws IllegalArgumentException 
+	 */
+	protected void doTurnSearch() throws IllegalArgumentException, IllegalStateException {
+		if(table.checkEins()) { // always accuse people of forgetting to say EINS if they actually did forget
+			accuseEins();
+		}
+		
+		int move = searchMove(-1);
+		
+		if(move == GameState.MOVE_DRAW) {
+			Card latest = drawCard();
+			
+			if(!table.isLegal(latest)) {
+				playCard(null);
+				return;
+			}
+			
+			// a legal card that's been drawn has to be played, so there's only the colour left to decide.
+			move = (latest.getColour() == CardColour.BLACK ? searchMove(latest.getCode()) : latest.getCode());
+		}
+		
+		int code = GameState.getMoveCode(move);
+		
+		if(CardCode.isBlack(code)) {
+			chosenColour = CardColour.values()[GameState.getMoveColour(move)];
+		}
+		
+		if(countCards() == 2) {
+			sayEins();
+		}
+		
+		playCard(CardCode.getCard(code));
+	}
+	
+	/**
+	 * Copies the table and searches it for this player's best move.
+	 * @param drawnCard The code of a legal card this player has just drawn and must play, or -1.
+	 * @return The move found; see {@link GameState}.
+	 */
+	protected int searchMove(int drawnCard) {
+		if(search == null) {
+			if(difficulty == AIDifficulty.ROLLOUT) {
+				search = new RolloutSearch(searchWorkers, searchIterations, searchMillis, table.getRandom().split());
 			} else {
-				int highestIndex = 0;
-				int highestValue = -1;
-				
-				for(Card c : legal) {
-					if(c.getValue() > highestValue) {
-						highestValue = c.getValue();
-						highestIndex = legal.indexOf(c);
-					}
-				}
-				
-				if(countCards() == 2) { // if we only have 2 cards left, say EINS
-					sayEins();
-				}
-				
-				// we have our best move, so play it
-				playCard(legal.elementAt(highestIndex));
+				// a search uses a different number of random numbers depending on how long it has, so keep it from disturbing the table's.
+				search = new MCTSSearch(searchIterations, searchMillis, table.getRandom().split());
 			}
 		}
+		
+		if(searchState == null || searchState.getPlayerCount() != table.players.size()) {
+			searchState = table.snapshot();
+		} else {
+			searchState.copyFrom(table);
+		}
+		
+		searchState.setDrawnCard(drawnCard);
+		return search.search(searchState);
 	}
 	
 	/**
 	 * AI implementation of askForColour(). The returned value depends on the difficulty:
 	 * REGULAR works out what the most populous colour is, and if there are two or more colours with the same largest number of cards, chooses one at random.
 	 * BEST always chooses the best colour based on the cards it has; if there are two or more colours with the same largest number of cards, it chooses based on value.
+	 * MCTS and ROLLOUT return the colour their search chose along with the card, or chooses like BEST if it hasn't chosen one (e.g. for the first card of the game).
 	 */
 	@Override
 	public CardColour askForColour() {
+		if(chosenColour != null) {
+			CardColour chosen = chosenColour;
+			chosenColour = null;
+			return chosen;
+		}
+		
 		CardColour result = CardColour.BLACK; // This is a nonsense value since we are asking for a non-black colour. The AI should always change this.
 		CardColour[] colours = CardColour.getMainColoursAsArray();
 		
@@ -227,38 +332,27 @@ public class AIPlayer extends CardEntity {
 		if(biggest.size() == 1) {
 			result = biggest.firstElement();
 		} else if(difficulty == AIDifficulty.REGULAR) { // we have more than one "most common colour" so return a random one.
-			Random random = new Random();
+			Random random = table.getRandom();
 			result = biggest.elementAt(random.nextInt(biggest.size()));
-		} else if(difficulty == AIDifficulty.BEST) {
-			Hashtable<CardColour, Integer> ht = new Hashtable<CardColour, Integer>(4);
-			
-			for(CardColour bigs : biggest) { // work out what the highest value colour is, i.e. if we have 2 red stops and 2 yellow "3" numbers, we choose red.
-				int totalValue = 0; // the total value of this colours' cards.
-				
-				for(Card c : cards) { // iterate through our cards and total the values for each of our colours
-					if(c.getColour() == bigs) {
-						totalValue += c.getValue();
-					}
-				}
-				
-				ht.put(bigs, totalValue);
-			}
-			
-			// we have a hashtable of the total values of the most populous colour cards in our hand, now work out which is biggest.
+		} else if(difficulty == AIDifficulty.BEST || difficulty == AIDifficulty.MCTS || difficulty == AIDifficulty.ROLLOUT) {
+			// work out what the highest value colour is, i.e. if we have 2 red stops and 2 yellow "3" numbers, we choose red.
+			// at least two most populous colours could have the same value, so we'll have to pick at random if we don't find a bigger valued one
 			Vector<CardColour> biggestValue = new Vector<CardColour>();
 			int biggestValueNum = -1;
-			for(CardColour cc : ht.keySet()) {
-				if(ht.get(cc) == biggestValueNum) { // we have at least two most populous cards with the same value, so we'll have to pick at random if we don't find a bigger valued one 
+			for(CardColour cc : biggest) {
+				int totalValue = hand.valueOfColour(cc.ordinal());
+				
+				if(totalValue == biggestValueNum) {
 					biggestValue.add(cc);
-				} else if(ht.get(cc) > biggestValueNum) {
+				} else if(totalValue > biggestValueNum) {
 					biggestValue.clear();
 					biggestValue.add(cc);
-					biggestValueNum = ht.get(cc);
+					biggestValueNum = totalValue;
 				}
 			}
 			
 			if(biggestValue.size() > 1) {
-				Random random = new Random();
+				Random random = table.getRandom();
 				int ind = random.nextInt(biggestValue.size());
 				result = biggestValue.elementAt(ind);
 			} else {
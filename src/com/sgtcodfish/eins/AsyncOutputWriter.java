@@ -0,0 +1,263 @@
+package com.sgtcodfish.eins;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Writes text to a channel on its own thread, so whoever produces the text (e.g. the game loop) never waits for a slow terminal.
+ * Text is encoded on the caller's thread into one of a fixed ring of direct buffers, which is handed to the writer thread and comes back empty once
+ * it's been written; the writer writes every buffer waiting for it in a single gathering write. No buffers are allocated after construction.
+ * The caller only waits if every buffer is waiting to be written, so memory stays bounded however far behind the terminal falls.
+ *
+ * Only one thread should write to each AsyncOutputWriter at a time. Output is written in the order it was written here; use {@link #drain()}
+ * before anything else writes to the same place (such as stderr to the same terminal) or before waiting for input.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class AsyncOutputWriter {
+	public static final int BUFFER_COUNT_DEFAULT = 16;
+	public static final int BUFFER_SIZE_DEFAULT = 16 * 1024;
+	
+	protected static AsyncOutputWriter stdout = null; /** Shared by everything writing to stdout, so their output can't be interleaved. */
+	
+	protected GatheringByteChannel channel;
+	protected ArrayBlockingQueue<ByteBuffer> free; /** Empty buffers, ready to be filled. */
+	protected ArrayBlockingQueue<ByteBuffer> pending; /** Full buffers waiting to be written, in order. */
+	protected int bufferCount;
+	protected ByteBuffer[] batch; /** The buffers being written by the writer thread. */
+	protected Thread writer;
+	protected volatile IOException error; /** The first error writing to the channel; everything written after it is discarded. */
+	
+	// used on the caller's thread only.
+	protected CharsetEncoder encoder;
+	protected CharBuffer chars; /** Holds the text being encoded; grows if needed. */
+	protected ByteBuffer current; /** The buffer being filled, or null if none has been taken. */
+	
+	/**
+	 * @return The writer for stdout, created the first time it's asked for. Anything left in it is written out before the JVM exits.
+	 */
+	public static synchronized AsyncOutputWriter getStdout() {
+		if(stdout == null) {
+			stdout = new AsyncOutputWriter(new FileOutputStream(FileDescriptor.out).getChannel(), "stdout", BUFFER_COUNT_DEFAULT, BUFFER_SIZE_DEFAULT);
+			final AsyncOutputWriter out = stdout;
+			
+			Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+				@Override
+				public void run() {
+					out.drain();
+				}
+			}, "AsyncOutputWriter-stdout-shutdown"));
+		}
+		
+		return stdout;
+	}
+	
+	/**
+	 * Creates a writer and starts its thread, which is a daemon thread so it never keeps the JVM running; call {@link #drain()} before exiting.
+	 * @param nchannel The channel to write to, e.g. a FileChannel.
+	 * @param name Used in the name of the writer thread.
+	 * @param nbufferCount The number of buffers in the ring, at least 2.
+	 * @param bufferSize The size of each buffer in bytes, enough for at least a few characters.
+	 * @throws IllegalArgumentException
+	 */
+	public AsyncOutputWriter(GatheringByteChannel nchannel, String name, int nbufferCount, int bufferSize) throws IllegalArgumentException {
+		if(nbufferCount < 2 || bufferSize < 16) {
+			throw new IllegalArgumentException("Trying to create an output writer with too few (" + nbufferCount + ") or too small (" + bufferSize + ") buffers!");
+		}
+		
+		channel = nchannel;
+		bufferCount = nbufferCount;
+		free = new ArrayBlockingQueue<ByteBuffer>(bufferCount);
+		pending = new ArrayBlockingQueue<ByteBuffer>(bufferCount);
+		batch = new ByteBuffer[bufferCount];
+		error = null;
+		
+		for(int i = 0; i < bufferCount; i++) {
+			free.add(ByteBuffer.allocateDirect(bufferSize));
+		}
+		
+		encoder = Charset.defaultCharset().newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+		chars = CharBuffer.allocate(1024);
+		current = null;
+		
+		writer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				writeLoop();
+			}
+		}, "AsyncOutputWriter-" + name);
+		writer.setDaemon(true);
+		writer.start();
+	}
+	
+	/**
+	 * Encodes the text and hands it to the writer thread. Only waits if every buffer is already waiting to be written.
+	 * @param text The text to write.
+	 */
+	public void write(CharSequence text) {
+		int length = text.length();
+		
+		if(length == 0) {
+			return;
+		}
+		
+		if(chars.capacity() < length) {
+			chars = CharBuffer.allocate(Math.max(length, chars.capacity() * 2));
+		}
+		
+		chars.clear();
+		
+		if(text instanceof StringBuilder) {
+			((StringBuilder)text).getChars(0, length, chars.array(), 0);
+			chars.position(length);
+		} else {
+			chars.append(text);
+		}
+		
+		chars.flip();
+		encoder.reset();
+		CoderResult result;
+		
+		do {
+			if(current == null) {
+				current = takeFree();
+			}
+			
+			result = encoder.encode(chars, current, true);
+			
+			if(result.isOverflow()) {
+				submit();
+			}
+		} while(result.isOverflow());
+		
+		do {
+			if(current == null) {
+				current = takeFree();
+			}
+			
+			result = encoder.flush(current);
+			
+			if(result.isOverflow()) {
+				submit();
+			}
+		} while(result.isOverflow());
+		
+		submit();
+	}
+	
+	/**
+	 * Waits until everything written so far has been written to the channel (or discarded because of an error).
+	 */
+	public void drain() {
+		synchronized(this) {
+			while(free.size() < bufferCount && writer.isAlive()) {
+				try {
+					wait(100L);
+				} catch(InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @return The first error the writer thread got writing to the channel, or null if there hasn't been one.
+	 */
+	public IOException getError() {
+		return error;
+	}
+	
+	/**
+	 * @return An empty buffer, waiting for the writer thread to finish with one if there are none.
+	 */
+	protected ByteBuffer takeFree() {
+		boolean interrupted = false;
+		
+		try {
+			while(true) {
+				try {
+					return free.take();
+				} catch(InterruptedException ie) {
+					// output mustn't be lost because the caller was interrupted, so keep waiting and pass the interrupt on afterwards.
+					interrupted = true;
+				}
+			}
+		} finally {
+			if(interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+	
+	/**
+	 * Hands the current buffer to the writer thread, or puts it straight back if nothing has been put in it.
+	 */
+	protected void submit() {
+		if(current == null) {
+			return;
+		} else if(current.position() == 0) {
+			free.add(current);
+		} else {
+			current.flip();
+			pending.add(current); // can't be full, since there are only bufferCount buffers.
+		}
+		
+		current = null;
+	}
+	
+	/**
+	 * Run by the writer thread: writes every pending buffer, then hands them back empty.
+	 */
+	protected void writeLoop() {
+		while(true) {
+			int count = 0;
+			
+			try {
+				batch[count++] = pending.take();
+			} catch(InterruptedException ie) {
+				return;
+			}
+			
+			ByteBuffer next;
+			
+			while(count < bufferCount && (next = pending.poll()) != null) {
+				batch[count++] = next;
+			}
+			
+			try {
+				if(error == null) {
+					long remaining = 0L;
+					
+					for(int i = 0; i < count; i++) {
+						remaining += batch[i].remaining();
+					}
+					
+					while(remaining > 0L) {
+						remaining -= channel.write(batch, 0, count);
+					}
+				}
+			} catch(IOException ioe) {
+				error = ioe;
+			}
+			
+			for(int i = 0; i < count; i++) {
+				batch[i].clear();
+				free.add(batch[i]);
+				batch[i] = null;
+			}
+			
+			synchronized(this) {
+				notifyAll();
+			}
+		}
+	}
+}
@@ -96,6 +96,8 @@ public class Card implements Cloneable {
 	 */
 	protected int value;
 	
+	protected byte code; /** The {@link CardCode} for this card, kept up to date with the fields above. */
+	
 	/**
 	 * Makes this a copy of other
 	 * @param other The card to copy.
@@ -104,6 +106,7 @@ public class Card implements Cloneable {
 		type = other.getType();
 		colour = other.getColour();
 		value = other.getValue();
+		code = other.getCode();
 	}
 	
 	/**
@@ -128,6 +131,8 @@ public class Card implements Cloneable {
 		} else {
 			value = val;
 		}
+		
+		code = CardCode.encode(type, colour, value);
 	}
 	
 	/**
@@ -155,6 +160,8 @@ public class Card implements Cloneable {
 		} else {
 			value = 20;
 		}
+		
+		code = CardCode.encode(type, colour, value);
 	}
 	
 	/**
@@ -178,6 +185,13 @@ public class Card implements Cloneable {
 		return value;
 	}
 	
+	/**
+	 * @return The {@link CardCode} of this card, which identifies its type, colour and value in a single byte.
+	 */
+	public byte getCode() {
+		return code;
+	}
+	
 	/**
 	 * Returns a String representation of the card that identifies all its game-related properties in a human-readable format.
 	 * The format is "(COLOUR), (CARDTYPE)[(VALUE)]"
@@ -188,14 +202,8 @@ public class Card implements Cloneable {
 	 * Note that the colour is "Blk" for black and the first letter of the name of the colour otherwise.
 	 */
 	public String toString() {
-		String result = new String();
-		
-		result += "(" + colour.toShortString() + ")";
-		result += "(" + type.toString() + ")";
-		result += "[" + value + "]";
-		
-		
-		return result;
+		// all the possible strings are built once by CardCode.
+		return CardCode.toString(code);
 	}
 	
 	/**
@@ -203,15 +211,19 @@ public class Card implements Cloneable {
 	 * @param other The card with which this card will be swapped.
 	 */
 	public void swap(Card other) {
-		Card temp = new Card(this);
+		CardType tempType = type;
+		CardColour tempColour = colour;
+		int tempValue = value;
+		byte tempCode = code;
+		
 		type = other.type;
 		colour = other.colour;
 		value = other.value;
+		code = other.code;
 		
-		other.type = temp.type;
-		other.colour = temp.colour;
-		other.value = temp.value;
-		
-		temp = null;
+		other.type = tempType;
+		other.colour = tempColour;
+		other.value = tempValue;
+		other.code = tempCode;
 	}
 }
@@ -0,0 +1,156 @@
+package com.sgtcodfish.eins;
+
+import java.util.Random;
+
+/**
+ * The storage shared by a {@link Deck} and its {@link Pile}: a single circular array of {@link CardCode}s split into two regions.
+ *
+ * Going around the array from the top of the pile, the layout is: the pile (top card first), then the deck (bottom card first), then free space
+ * for the cards that are currently in players' hands. Drawing from the deck takes the card at the end of the deck region, and playing onto the pile
+ * writes the card just before the start of the pile region, so the free space is always exactly what the two regions have given up.
+ *
+ * When the deck runs out, the pile (apart from its top card) becomes the deck just by moving the boundary between the two regions, and only the new
+ * deck region needs shuffling; no cards are copied.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class CardBuffer {
+	protected byte[] codes; /** The cards, in circular order. */
+	protected int pileTop; /** The index of the top card of the pile. */
+	protected int pileSize; /** The number of cards in the pile; the deck starts at pileTop + pileSize. */
+	protected int deckSize; /** The number of cards in the deck; the top card of the deck is at pileTop + pileSize + deckSize - 1. */
+	
+	/**
+	 * Creates a buffer holding an unshuffled default deck and an empty pile.
+	 */
+	public CardBuffer() {
+		codes = new byte[CardCode.DECK_SIZE];
+		reset();
+	}
+	
+	/**
+	 * Puts every card back in the deck in the unshuffled default order, leaving the pile empty.
+	 */
+	public void reset() {
+		CardCode.fillDeck(codes);
+		pileTop = 0;
+		pileSize = 0;
+		deckSize = codes.length;
+	}
+	
+	/**
+	 * Empties both the deck and the pile, as if every card were in a player's hand.
+	 */
+	public void clear() {
+		pileTop = 0;
+		pileSize = 0;
+		deckSize = 0;
+	}
+	
+	/**
+	 * @return The array index of the i'th position after the top of the pile.
+	 */
+	protected int index(int i) {
+		int result = pileTop + i;
+		return (result >= codes.length ? result - codes.length : result);
+	}
+	
+	/**
+	 * @return The number of cards in the deck region.
+	 */
+	public int getDeckSize() {
+		return deckSize;
+	}
+	
+	/**
+	 * @return The number of cards in the pile region.
+	 */
+	public int getPileSize() {
+		return pileSize;
+	}
+	
+	/**
+	 * Removes the top card of the deck.
+	 * @return The code of the card removed.
+	 * @throws IllegalStateException If the deck is empty.
+	 */
+	public byte takeFromDeck() throws IllegalStateException {
+		if(deckSize == 0) {
+			throw new IllegalStateException("Trying to take a card from an empty deck!");
+		}
+		
+		return codes[index(pileSize + --deckSize)];
+	}
+	
+	/**
+	 * @param i The position of the card in the deck, 0 being the bottom card.
+	 * @return The code of the card.
+	 */
+	public byte peekDeck(int i) {
+		return codes[index(pileSize + i)];
+	}
+	
+	/**
+	 * Puts a card on top of the pile.
+	 * @param code The code of the card.
+	 * @throws IllegalStateException If there's no free space, which means a card has been added to the game from somewhere else.
+	 */
+	public void addToPile(byte code) throws IllegalStateException {
+		if(pileSize + deckSize == codes.length) {
+			throw new IllegalStateException("Trying to add a card to a full CardBuffer!");
+		}
+		
+		pileTop = (pileTop == 0 ? codes.length - 1 : pileTop - 1);
+		codes[pileTop] = code;
+		pileSize++;
+	}
+	
+	/**
+	 * @return The code of the top card of the pile.
+	 * @throws IllegalStateException If the pile is empty.
+	 */
+	public byte peekPile() throws IllegalStateException {
+		if(pileSize == 0) {
+			throw new IllegalStateException("Trying to look at the top card of an empty pile!");
+		}
+		
+		return codes[pileTop];
+	}
+	
+	/**
+	 * @param i The position of the card in the pile, 0 being the top card.
+	 * @return The code of the card.
+	 */
+	public byte peekPile(int i) {
+		return codes[index(i)];
+	}
+	
+	/**
+	 * Shuffles the deck region in place with a Fisher-Yates shuffle.
+	 * @param random The random number generator to use.
+	 */
+	public void shuffleDeck(Random random) {
+		for(int i = (deckSize - 1); i > 0; i--) {
+			int a = index(pileSize + i);
+			int b = index(pileSize + random.nextInt(i + 1));
+			byte temp = codes[a];
+			codes[a] = codes[b];
+			codes[b] = temp;
+		}
+	}
+	
+	/**
+	 * Turns the pile over to make a new deck, keeping the top card of the pile as the only card of the new pile.
+	 * The new deck is in the order the cards were played, so it should be shuffled afterwards.
+	 * @throws IllegalStateException If the deck isn't empty.
+	 */
+	public void turnOverPile() throws IllegalStateException {
+		if(deckSize != 0) {
+			throw new IllegalStateException("Trying to turn over the pile when the deck isn't empty!");
+		}
+		
+		if(pileSize > 1) {
+			deckSize = pileSize - 1;
+			pileSize = 1;
+		}
+	}
+}
@@ -0,0 +1,246 @@
+package com.sgtcodfish.eins;
+
+import com.sgtcodfish.eins.Card.CardColour;
+import com.sgtcodfish.eins.Card.CardType;
+
+/**
+ * A compact encoding of cards as small integers, for code that handles lots of cards (e.g. simulations) and wants to avoid {@link Card} objects.
+ *
+ * Two cards with the same type, colour and value are identical as far as the game is concerned, so a code identifies a kind of card rather than one
+ * physical card. There are KIND_COUNT kinds, numbered as follows:
+ * - Coloured cards are (colour.ordinal() * FACES_PER_COLOUR + face), where face is the value for NUMBER cards, then FACE_SKIP, FACE_PICKTWO or FACE_REVERSE.
+ * - CHANGECOL is CODE_CHANGECOL and CHANGECOLFOUR is CODE_CHANGECOLFOUR.
+ *
+ * Every code fits in a byte, so a whole deck is a byte[DECK_SIZE]. Everything about a code is found with a table lookup.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public final class CardCode {
+	public static final int FACES_PER_COLOUR = 13; /** 10 numbers plus SKIP, PICKTWO and REVERSE. */
+	public static final int FACE_SKIP = 10;
+	public static final int FACE_PICKTWO = 11;
+	public static final int FACE_REVERSE = 12;
+	
+	public static final byte CODE_CHANGECOL = 52;
+	public static final byte CODE_CHANGECOLFOUR = 53;
+	
+	public static final int KIND_COUNT = 54; /** The number of distinct kinds of card, and so the number of codes. */
+	public static final int COLOUR_COUNT = 5; /** The number of CardColours, including BLACK. */
+	
+	/** The number of cards in a default deck; see {@link Deck#Deck(Table)}. */
+	public static final int DECK_SIZE = 112;
+	
+	/** A bitmask (bit n set for code n) of the BLACK cards. */
+	public static final long BLACK_MASK = (1L << CODE_CHANGECOL) | (1L << CODE_CHANGECOLFOUR);
+	
+	private static final CardType[] TYPE = new CardType[KIND_COUNT];
+	private static final CardColour[] COLOUR = new CardColour[KIND_COUNT];
+	private static final int[] COLOUR_INDEX = new int[KIND_COUNT];
+	private static final int[] FACE = new int[KIND_COUNT];
+	private static final int[] VALUE = new int[KIND_COUNT];
+	private static final String[] NAME = new String[KIND_COUNT];
+	private static final byte[] DECK_TEMPLATE = new byte[DECK_SIZE];
+	private static final long[] COLOUR_MASK = new long[COLOUR_COUNT];
+	private static final long[] FACE_MASK = new long[FACES_PER_COLOUR];
+	private static final Card[] CARD = new Card[KIND_COUNT];
+	private static final long[] LEGAL = new long[KIND_COUNT * COLOUR_COUNT]; /** The legal mask for each (top card, current colour), indexed by top * COLOUR_COUNT + colour. */
+	
+	static {
+		CardColour[] colours = CardColour.getMainColoursAsArray();
+		
+		for(CardColour col : colours) {
+			for(int face = 0; face < FACES_PER_COLOUR; face++) {
+				int code = col.ordinal() * FACES_PER_COLOUR + face;
+				
+				if(face <= Card.VAL_BOUND_UPPER) {
+					TYPE[code] = CardType.NUMBER;
+					VALUE[code] = face;
+				} else {
+					TYPE[code] = (face == FACE_SKIP ? CardType.SKIP : (face == FACE_PICKTWO ? CardType.PICKTWO : CardType.REVERSE));
+					VALUE[code] = 20;
+				}
+				
+				COLOUR[code] = col;
+				FACE[code] = face;
+			}
+		}
+		
+		TYPE[CODE_CHANGECOL] = CardType.CHANGECOL;
+		TYPE[CODE_CHANGECOLFOUR] = CardType.CHANGECOLFOUR;
+		
+		for(int code = CODE_CHANGECOL; code <= CODE_CHANGECOLFOUR; code++) {
+			COLOUR[code] = CardColour.BLACK;
+			FACE[code] = -1; // never matches a coloured face
+			VALUE[code] = 50;
+		}
+		
+		for(int code = 0; code < KIND_COUNT; code++) {
+			COLOUR_INDEX[code] = COLOUR[code].ordinal();
+			NAME[code] = "(" + COLOUR[code].toShortString() + ")(" + TYPE[code] + ")[" + VALUE[code] + "]";
+			COLOUR_MASK[COLOUR_INDEX[code]] |= (1L << code);
+			
+			if(FACE[code] >= 0) {
+				FACE_MASK[FACE[code]] |= (1L << code);
+			}
+			
+			CARD[code] = toCard(code);
+		}
+		
+		// The default deck has 2 of every coloured card and 4 of each BLACK card.
+		int index = 0;
+		for(int repeat = 0; repeat < 2; repeat++) {
+			for(int code = 0; code < CODE_CHANGECOL; code++) {
+				DECK_TEMPLATE[index++] = (byte)code;
+			}
+		}
+		
+		for(int repeat = 0; repeat < 4; repeat++) {
+			DECK_TEMPLATE[index++] = CODE_CHANGECOL;
+			DECK_TEMPLATE[index++] = CODE_CHANGECOLFOUR;
+		}
+		
+		// There are only KIND_COUNT * COLOUR_COUNT possible states, so work out what's legal in every one of them now.
+		for(int top = 0; top < KIND_COUNT; top++) {
+			for(int colour = 0; colour < COLOUR_COUNT; colour++) {
+				long legal = BLACK_MASK | COLOUR_MASK[colour];
+				
+				if(FACE[top] >= 0) {
+					legal |= FACE_MASK[FACE[top]];
+				}
+				
+				LEGAL[top * COLOUR_COUNT + colour] = legal;
+			}
+		}
+	}
+	
+	private CardCode() {
+	}
+	
+	/**
+	 * Encodes a card described by its type, colour and value. The combination is assumed to be valid, as checked by the {@link Card} constructors.
+	 * @param type The type of the card.
+	 * @param colour The colour of the card.
+	 * @param value The value of the card; only used for NUMBER cards.
+	 * @return The code for the card.
+	 */
+	public static byte encode(CardType type, CardColour colour, int value) {
+		switch(type) {
+		case NUMBER:
+			return (byte)(colour.ordinal() * FACES_PER_COLOUR + value);
+		case SKIP:
+			return (byte)(colour.ordinal() * FACES_PER_COLOUR + FACE_SKIP);
+		case PICKTWO:
+			return (byte)(colour.ordinal() * FACES_PER_COLOUR + FACE_PICKTWO);
+		case REVERSE:
+			return (byte)(colour.ordinal() * FACES_PER_COLOUR + FACE_REVERSE);
+		case CHANGECOL:
+			return CODE_CHANGECOL;
+		case CHANGECOLFOUR:
+		default:
+			return CODE_CHANGECOLFOUR;
+		}
+	}
+	
+	/**
+	 * @return The type of the card with the given code.
+	 */
+	public static CardType getType(int code) {
+		return TYPE[code];
+	}
+	
+	/**
+	 * @return The colour of the card with the given code.
+	 */
+	public static CardColour getColour(int code) {
+		return COLOUR[code];
+	}
+	
+	/**
+	 * @return The ordinal of the colour of the card with the given code, to avoid dereferencing the enum.
+	 */
+	public static int getColourIndex(int code) {
+		return COLOUR_INDEX[code];
+	}
+	
+	/**
+	 * @return The scoring value of the card with the given code, as returned by {@link Card#getValue()}.
+	 */
+	public static int getValue(int code) {
+		return VALUE[code];
+	}
+	
+	/**
+	 * @return true if the card with the given code is BLACK.
+	 */
+	public static boolean isBlack(int code) {
+		return code >= CODE_CHANGECOL;
+	}
+	
+	/**
+	 * The same rules as {@link Table#isLegal(Card)}, on codes.
+	 * @param code The card whose legality we want to check.
+	 * @param top The top card of the pile.
+	 * @param currentColour The ordinal of the current colour in play.
+	 * @return true if the card is legal, false otherwise.
+	 */
+	public static boolean isLegal(int code, int top, int currentColour) {
+		return ((LEGAL[top * COLOUR_COUNT + currentColour] >>> code) & 1L) != 0L;
+	}
+	
+	/**
+	 * Looks up every card that is legal to play, using the same rules as {@link Table#isLegal(Card)}.
+	 * BLACK cards are always legal, cards of the current colour are always legal, and cards with the same face as the top card
+	 * (the same type and, for NUMBERs, the same value) are legal. The masks for every state are worked out when the class is loaded.
+	 * @param top The top card of the pile.
+	 * @param currentColour The ordinal of the current colour in play.
+	 * @return A bitmask with bit n set if the card with code n is legal.
+	 */
+	public static long legalMask(int top, int currentColour) {
+		return LEGAL[top * COLOUR_COUNT + currentColour];
+	}
+	
+	/**
+	 * @param colour The ordinal of a CardColour.
+	 * @return A bitmask with bit n set if the card with code n has the given colour.
+	 */
+	public static long colourMask(int colour) {
+		return COLOUR_MASK[colour];
+	}
+	
+	/**
+	 * @return The same string {@link Card#toString()} would give for the card with the given code, without building it.
+	 */
+	public static String toString(int code) {
+		return NAME[code];
+	}
+	
+	/**
+	 * Creates a new {@link Card} from a code.
+	 * @param code The code of the card to create.
+	 * @return A new card with the type, colour and value described by code.
+	 */
+	public static Card toCard(int code) {
+		if(TYPE[code] == CardType.NUMBER) {
+			return new Card(VALUE[code], COLOUR[code]);
+		} else {
+			return new Card(TYPE[code], COLOUR[code]);
+		}
+	}
+	
+	/**
+	 * Gets a {@link Card} for a code without creating a new one. The same instance is returned for every call with the same code,
+	 * so the returned card must never be changed (e.g. with {@link Card#swap(Card)}).
+	 * @param code The code of the card.
+	 * @return The shared card for code.
+	 */
+	public static Card getCard(int code) {
+		return CARD[code];
+	}
+	
+	/**
+	 * Copies the codes of an unshuffled default deck into dest, which must have room for DECK_SIZE codes.
+	 * @param dest The array to fill.
+	 */
+	public static void fillDeck(byte[] dest) {
+		System.arraycopy(DECK_TEMPLATE, 0, dest, 0, DECK_SIZE);
+	}
+}
@@ -1,7 +1,5 @@
 package com.sgtcodfish.eins;
 
-import java.util.Vector;
-
 import com.sgtcodfish.eins.Card.CardColour;
 
 /**
@@ -12,7 +10,7 @@ import com.sgtcodfish.eins.Card.CardColour;
 abstract public class CardEntity {
 	public static final String DEFAULT_ENTITY_NAME = "Unnamed Player";
 	
-	protected Vector<Card> cards; /** The cards that this CardEntity holds currently. */
+	protected Hand hand; /** The cards that this CardEntity holds currently. */
 	protected String name; /** The name of the player */
 	protected Table table;
 	
@@ -22,7 +20,7 @@ abstract public class CardEntity {
 	 * used to do initialisation in each form of the constructor
 	 */
 	protected void init() {
-		cards = new Vector<Card>();
+		hand = new Hand();
 		name = new String();
 		table = null;
 		saidEins = false;
@@ -61,7 +59,7 @@ abstract public class CardEntity {
 			saidEins = false;
 		}
 		
-		cards.add(ncard);
+		hand.add(ncard.getCode());
 		return ncard;
 	}
 	
@@ -73,6 +71,17 @@ abstract public class CardEntity {
 		return takeCard(d.takeCard());
 	}
 	
+	/**
+	 * Draws a card from the table's deck by choice (e.g. because there's nothing legal to play), and reports it to the table's listeners.
+	 * Protected since it should only be called from within a doTurn().
+	 * @return The card drawn.
+	 */
+	protected Card drawCard() {
+		Card drawn = takeCard(table.getDeck());
+		table.getEventListener().onDraw(this, drawn, false);
+		return drawn;
+	}
+	
 	/**
 	 * Attempt to play a {@link Card} c by placing it on the specified {@link Pile}. Protected since it should only be called from within a doTurn().
 	 * @param c The card to play, which the player must have in their hand.
@@ -100,7 +109,7 @@ abstract public class CardEntity {
 		
 		table.playCard(this, c);
 		
-		if(!cards.remove(c)) {
+		if(!hand.remove(c.getCode())) {
 			throw new IllegalStateException("Tried to remove a card (" + c + ") from player " + name + "\'s hand which wasn't there. Fatal error.");
 		}
 	}
@@ -109,13 +118,7 @@ abstract public class CardEntity {
 	 * @return The values of all cards in the hand, typically used at the end of the game.
 	 */
 	public int tallyValues() {
-		int tally = 0;
-		
-		for(Card c : cards) {
-			tally += c.getValue();
-		}
-		
-		return tally;
+		return hand.getTotalValue();
 	}
 	
 	/**
@@ -129,7 +132,7 @@ abstract public class CardEntity {
 	 * @return The size of cards
 	 */
 	public int countCards() {
-		return cards.size();
+		return hand.size();
 	}
 	
 	/**
@@ -138,13 +141,7 @@ abstract public class CardEntity {
 	 * @return true if this Entity has at least one of c, false otherwise.
 	 */
 	public boolean hasCard(Card c) {
-		boolean result = false;
-		
-		if(cards.contains(c)) {
-			result = true;
-		}
-		
-		return result;
+		return hand.contains(c.getCode());
 	}
 	
 	/**
@@ -153,15 +150,14 @@ abstract public class CardEntity {
 	 * @return The number of cards of colour col the player has.
 	 */
 	public int countCardsOfColour(CardColour col) {
-		int count = 0;
-		
-		for(Card c : cards) {
-			if(c.getColour() == col) {
-				count++;
-			}
-		}
-		
-		return count;
+		return hand.countOfColour(col.ordinal());
+	}
+	
+	/**
+	 * @return A bitmask of the kinds of card in this Entity's hand that are legal to play right now; see {@link Hand#getMask()}.
+	 */
+	public long getLegalMask() {
+		return hand.getMask() & table.getLegalMask();
 	}
 	
 	/**
@@ -178,8 +174,10 @@ abstract public class CardEntity {
 	public void printHand() {
 		table.getIOHandler().println(name + "\'s cards:");
 		
-		for(Card c : cards) {
-			table.getIOHandler().println(c.toString());
+		for(int code = 0; code < CardCode.KIND_COUNT; code++) {
+			for(int i = 0; i < hand.count(code); i++) {
+				table.getIOHandler().println(CardCode.toString(code));
+			}
 		}
 	}
 	
@@ -200,12 +198,11 @@ abstract public class CardEntity {
 	 */
 	public void sayEins() {
 		if(countCards() == 2) {
-			table.getIOHandler().println(name + " shouts EINS!");
+			table.getEventListener().onEinsShout(this, true);
 			saidEins = true;
 		} else {
-			table.getIOHandler().println(name + " says EINS incorrectly, and draws two cards as punishment.");
-			takeCard(table.getDeck());
-			takeCard(table.getDeck());
+			table.getEventListener().onEinsShout(this, false);
+			table.forceDraw(this, 2);
 		}
 	}
 	
@@ -5,16 +5,20 @@ import java.util.Scanner;
 /**
  * An implementation of {@link EINSIOHandler} for console IO. Prints to stdout for regular output, stderr for errors. Uses Scanner(System.in) for input.
  * Note that error output is not buffered, while regular output is and needs a call to flush().
+ * flush() hands the output to the shared stdout {@link AsyncOutputWriter} and returns straight away, so the game never waits for the terminal;
+ * the input methods and error output wait until everything flushed so far has been written, so prompts and errors still appear in order.
  * Note that input methods or deDelay WILL CAUSE A FLUSH.
  * Note that calling readString(true) can cause unintended behaviour with console input.
  * @author Ashley Davis (SgtCoDFish)
  */
 public class ConsoleIOHandler implements EINSIOHandler {
-	StringBuffer outputBuffer = null;
+	StringBuilder outputBuffer = null;
+	AsyncOutputWriter output = null;
 	Scanner scanner = new Scanner(System.in);
 	
 	public ConsoleIOHandler() {
-		outputBuffer = new StringBuffer();
+		outputBuffer = new StringBuilder();
+		output = AsyncOutputWriter.getStdout();
 	}
 	
 	@Override
@@ -23,9 +27,15 @@ public class ConsoleIOHandler implements EINSIOHandler {
 		scanner = null;
 	}
 	
+	@Override
+	public boolean isOutputEnabled() {
+		return true;
+	}
+	
 	@Override
 	public void println(String str) {
-		print(str + "\n");
+		outputBuffer.append(str);
+		outputBuffer.append('\n');
 	}
 
 	@Override
@@ -35,20 +45,21 @@ public class ConsoleIOHandler implements EINSIOHandler {
 
 	@Override
 	public void printErrorln(String err) {
+		output.drain();
 		System.err.println(err);
 	}
 
 	@Override
 	public void printError(String err) {
+		output.drain();
 		System.err.print(err);
 	}
 
 	@Override
 	public void flush() {
-		System.out.print(outputBuffer.toString());
+		output.write(outputBuffer);
 		
-		outputBuffer = null;
-		outputBuffer = new StringBuffer();
+		outputBuffer.setLength(0);
 	}
 
 	@Override
@@ -59,7 +70,7 @@ public class ConsoleIOHandler implements EINSIOHandler {
 	@Override
 	public String readString(boolean wsOK) {
 		flush();
-		System.out.flush();
+		output.drain();
 		
 		String retVal = new String();
 		
@@ -78,7 +89,7 @@ public class ConsoleIOHandler implements EINSIOHandler {
 	@Override
 	public int readInt() {
 		flush();
-		System.out.flush();
+		output.drain();
 		
 		int retVal = -1;
 		while(!scanner.hasNextInt()) {
@@ -98,11 +109,17 @@ public class ConsoleIOHandler implements EINSIOHandler {
 		
 		for(int i = 0; i < 5; i++) {
 			try {
-				System.out.print(".");
+				print(".");
+				flush();
 				Thread.sleep(shorterDelay);
-			} catch(InterruptedException ie) {}
+			} catch(InterruptedException ie) {
+				// cut the delay short, but leave the interrupt for whoever asked for it.
+				Thread.currentThread().interrupt();
+				break;
+			}
 		}
 		
-		System.out.println();
+		println("");
+		flush();
 	}
 }
@@ -1,89 +1,54 @@
 package com.sgtcodfish.eins;
 
 import java.util.Random;
-import java.util.Stack;
-
-import com.sgtcodfish.eins.Card.CardColour;
-import com.sgtcodfish.eins.Card.CardType;
 
 public class Deck {
-	protected Stack<Card> cards; /** The stack of cards that makes up this deck. */
+	protected CardBuffer cards; /** The cards that make up this deck, stored in the deck region of a buffer shared with the {@link Pile}. */
 	protected Table table; /** The table this deck is associated with */
+	protected Random random; /** Used to shuffle the deck. */
+	
+	/**
+	 * Creates a default deck of cards using the table's deck shuffling random number generator. See {@link #Deck(Table, Random)}.
+	 * @param ntable The table this deck is associated with.
+	 */
+	public Deck(Table ntable) {
+		this(ntable, ntable.getDeckRandom());
+	}
 	
 	/**
-	 * Creates a default deck of cards, stored in Cards, and shuffles them. The default deck consists of:
+	 * Creates a default deck of cards, stored in a new {@link CardBuffer}. The deck is not shuffled until shuffle() is called. The default deck consists of:
 	 * 2 of each regular colour (RED, BLUE, GREEN, YELLOW) of:
 	 * - NUMBER from 0-9 inclusive.
 	 * - SKIP
 	 * - PICKTWO
 	 * - REVERSE
 	 * as well as 4 of each of the two BLACK cards, CHANGECOL and CHANGECOLFOUR.
+	 * @param ntable The table this deck is associated with.
+	 * @param nrandom The random number generator to shuffle with, e.g. a seeded {@link FastRandom}.
 	 */
-	public Deck(Table ntable) {
-		// Create startRepeats copies of each normal (i.e. non-BLACK) card, the add the black ones later since there are twice as many of each BLACK type card.
-		final int startRepeats = 2;
-		cards = new Stack<Card>();
+	public Deck(Table ntable, Random nrandom) {
+		cards = new CardBuffer();
 		table = ntable;
-		
-		try {
-			for(int repeatCount = 0; repeatCount < startRepeats; repeatCount++) {
-				// Create the RED number cards.
-				for(int rloop = Card.VAL_BOUND_LOWER; rloop <= Card.VAL_BOUND_UPPER; rloop++) {
-					cards.add(new Card(rloop, CardColour.RED));
-				}
-				
-				// Create the BLUE number cards.
-				for(int bloop = Card.VAL_BOUND_LOWER; bloop <= Card.VAL_BOUND_UPPER; bloop++) {
-					cards.add(new Card(bloop, CardColour.BLUE));
-				}
-				
-				// Create the GREEN number cards.
-				for(int gloop = Card.VAL_BOUND_LOWER; gloop <= Card.VAL_BOUND_UPPER; gloop++) {
-					cards.add(new Card(gloop, CardColour.GREEN));
-				}
-				
-				// Create the YELLOW number cards.
-				for(int yloop = Card.VAL_BOUND_LOWER; yloop <= Card.VAL_BOUND_UPPER; yloop++) {
-					cards.add(new Card(yloop, CardColour.YELLOW));
-				}
-				
-				// Create each of the PICKTWO cards.
-				cards.add(new Card(CardType.PICKTWO, CardColour.RED));
-				cards.add(new Card(CardType.PICKTWO, CardColour.BLUE));
-				cards.add(new Card(CardType.PICKTWO, CardColour.GREEN));
-				cards.add(new Card(CardType.PICKTWO, CardColour.YELLOW));
-				
-				// Create each of the REVERSE cards.
-				cards.add(new Card(CardType.REVERSE, CardColour.RED));
-				cards.add(new Card(CardType.REVERSE, CardColour.BLUE));
-				cards.add(new Card(CardType.REVERSE, CardColour.GREEN));
-				cards.add(new Card(CardType.REVERSE, CardColour.YELLOW));
-				
-				// Create each of the SKIP cards.
-				cards.add(new Card(CardType.SKIP, CardColour.RED));
-				cards.add(new Card(CardType.SKIP, CardColour.BLUE));
-				cards.add(new Card(CardType.SKIP, CardColour.GREEN));
-				cards.add(new Card(CardType.SKIP, CardColour.YELLOW));
-			}
-			
-			// Now add in the BLACK cards.
-			for(int breps = 0; breps < (startRepeats * 2); breps++) {
-				cards.add(new Card(CardType.CHANGECOL, CardColour.BLACK));
-				cards.add(new Card(CardType.CHANGECOLFOUR, CardColour.BLACK));
-			}
-		} catch (IllegalArgumentException ie) {
-			table.getIOHandler().printErrorln("Illegal Argument in Deck(): " + ie);
-		}
+		random = nrandom;
+		refill();
+	}
+	
+	/**
+	 * Puts every card back in the deck, in the unshuffled default order, and empties the pile. The default deck is built once by CardCode, so this is a plain array copy.
+	 */
+	public void refill() {
+		cards.reset();
 	}
 	
 	/**
 	 * Removes the top card of the deck and returns it. The class that invokes this method should then track the card to make sure it doesn't disappear.
-	 * Note that if you call this method and the deck is empty, you'll encounter an error; you should be checking the deck size yourself, then use Pile.reseed(Deck) if you run out.
+	 * If this empties the deck, the table is asked to reseed it from the pile.
+	 * @throws IllegalStateException If the deck is already empty.
 	 */
-	public Card takeCard() {
-		Card retval = cards.pop();
+	public Card takeCard() throws IllegalStateException {
+		Card retval = CardCode.getCard(cards.takeFromDeck());
 		
-		if(cards.size() == 0) {
+		if(cards.getDeckSize() == 0) {
 			table.reseedDeck();
 		}
 		
@@ -91,42 +56,33 @@ public class Deck {
 	}
 	
 	/**
-	 * Shuffles the deck, leaving each card in a random position
+	 * Shuffles the deck, leaving each card in a random position. A Fisher-Yates shuffle of the codes in place, so nothing is allocated.
 	 */
 	public void shuffle() {
-//		System.out.println("In Shuffle. Deck prior to shuffling:");
-//		printDeck();
-		
-		Random random = new Random();
-		int rint = -1;
-//		int loopint = 0;
-		for(int i = (cards.size()-1); i >= 0; i--) {
-//			loopint++;
-			rint = random.nextInt(i+1);
-			//System.out.println(loopint + ": Shuffling " + cards.elementAt(i) + " with " + cards.elementAt(rint) + "!");
-			
-			cards.elementAt(i).swap(cards.elementAt(rint));
-		}
-		
-//		System.out.println("\nCards after shuffling:");
-//		printDeck();
+		cards.shuffleDeck(random);
 	}
 	
 	/**
 	 * @return The number of cards in the deck.
 	 */
 	public int countCards() {
-		return cards.size();
+		return cards.getDeckSize();
 	}
 	
 	/**
-	 * Prints this deck in its entirety.
+	 * @return The buffer holding this deck's cards, which the {@link Pile} dealt from this deck shares.
+	 */
+	public CardBuffer getBuffer() {
+		return cards;
+	}
+	
+	/**
+	 * Prints this deck in its entirety, from the bottom card to the top card.
 	 */
 	public void printDeck() {
-		int cloop = 0;
-		StringBuffer bf = new StringBuffer();
-		for(Card c : cards) {
-			cloop++;
+		StringBuilder bf = new StringBuilder();
+		for(int cloop = 1; cloop <= cards.getDeckSize(); cloop++) {
+			bf.setLength(0);
 			
 			if(cloop < 100) { // ensure we have a width of 3 when outputting cloop.
 				if(cloop >= 10) { // 10 <= cloop <= 99 so add a single 0 to the beginning.
@@ -138,32 +94,23 @@ public class Deck {
 			
 			bf.append(cloop);
 			bf.append(": ");
-			bf.append(c.toString());
+			bf.append(CardCode.toString(cards.peekDeck(cloop - 1)));
 			table.getIOHandler().println(bf.toString());
 		}
 	}
 	
 	/**
 	 * Called by Pile.reseed(Deck) to recreate the deck from the Pile after the deck has been exhausted. This should ONLY be called by Pile.reseed(Deck)
-	 * @param crd The stack of cards to seed the deck with.
+	 * The pile shares this deck's buffer, so the pile is turned over in place and then shuffled; no cards are copied.
 	 * @throws IllegalArgumentException
 	 */
-	public void reseed(Stack<Card> crd) throws IllegalArgumentException {
-		if(cards.size() != 0) {
+	public void reseed() throws IllegalArgumentException {
+		if(cards.getDeckSize() != 0) {
 			throw new IllegalArgumentException("Trying to reseed a non-empty deck!");
-		} else if(crd == null) {
-			throw new IllegalArgumentException("Trying to reseed a deck with a null stack of cards!");
-		} else {
-			table.getIOHandler().println("The deck was exhausted, so the pile is turned over.\n");
 		}
 		
-		while(crd.size() > 0) {
-			cards.add(crd.pop());
-		}
-		System.out.println("DECKDECKDECK");
-		for(Card c : cards) {
-			System.out.println(c);
-		}
-		System.out.println("PILEPILEPILE");
+		cards.turnOverPile();
+		shuffle();
+		table.getEventListener().onDeckReseeded();
 	}
 }
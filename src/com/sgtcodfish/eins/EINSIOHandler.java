@@ -31,6 +31,14 @@ public interface EINSIOHandler {
 	 */
 	public void printError(String err);
 	
+	/**
+	 * Used by the game engine to skip building messages that would never be seen. Messages can still be printed when this returns false,
+	 * they just might be ignored. Callers should check this before doing any string building for output, for example:
+	 * if(io.isOutputEnabled()) io.println(name + " played " + card + "!");
+	 * @return false if everything printed with print and println is discarded, true otherwise.
+	 */
+	public boolean isOutputEnabled();
+	
 	/**
 	 * Force all output to occur when this function is called.
 	 */
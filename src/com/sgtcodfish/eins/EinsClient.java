@@ -0,0 +1,253 @@
+package com.sgtcodfish.eins;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.Socket;
+import java.util.Arrays;
+
+/**
+ * Connects to an {@link EinsServer} and plays there, either for a person at the console or, with -auto, by itself as a scripted player for testing
+ * the server: it answers every prompt (see {@link RemoteIOHandler#PROMPT}) by playing its first legal card or drawing, choosing red whenever it's
+ * asked for a colour, and giving AUTO_NAME as its name.
+ *
+ * Usage: EinsClient [-auto] [-quiet] [host [port]]
+ * With -quiet, nothing the server sends is printed; only how the session went.
+ * When playing by itself, the client also times how long the server takes to answer each of its answers with the next prompt (see getLatencies()).
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class EinsClient {
+	public static final String HOST_DEFAULT = "localhost";
+	public static final String AUTO_NAME = "Robot";
+	
+	protected Socket socket;
+	protected Reader input;
+	protected OutputStream output;
+	protected EINSIOHandler display; /** Where the server's output is printed, or null to print nothing. */
+	protected StringBuilder line; /** The line the server is sending. */
+	protected StringBuilder lastLine; /** The last line the server sent that wasn't blank, which the automatic player answers. */
+	protected int prompts; /** The number of prompts answered so far. */
+	protected long sentAt; /** When the last answer was sent, from System.nanoTime(), or 0 if the server hasn't asked for anything since. */
+	protected long[] latencies; /** The nanoseconds between each answer and the next prompt; the first latencyCount are used. */
+	protected int latencyCount;
+	
+	/**
+	 * Connects to a server.
+	 * @param host The host the server is on.
+	 * @param port The port the server is listening on.
+	 * @param ndisplay Where everything the server sends is printed, or null to print nothing.
+	 * @throws IOException If the server can't be connected to.
+	 */
+	public EinsClient(String host, int port, EINSIOHandler ndisplay) throws IOException {
+		socket = new Socket(host, port);
+		socket.setTcpNoDelay(true);
+		input = new InputStreamReader(socket.getInputStream(), RemoteIOHandler.CHARSET);
+		output = socket.getOutputStream();
+		display = ndisplay;
+		line = new StringBuilder();
+		lastLine = new StringBuilder();
+		prompts = 0;
+		sentAt = 0L;
+		latencies = new long[64];
+		latencyCount = 0;
+	}
+	
+	/**
+	 * Plays by itself until the server closes the connection.
+	 * @throws IOException If the connection fails.
+	 */
+	public void playAuto() throws IOException {
+		char[] buffer = new char[4096];
+		int read;
+		
+		while((read = input.read(buffer)) >= 0) {
+			int start = 0;
+			
+			for(int i = 0; i < read; i++) {
+				if(buffer[i] == RemoteIOHandler.PROMPT) {
+					recordLatency();
+					show(buffer, start, i);
+					start = i + 1;
+					send(chooseAnswer(line.length() > 0 ? line.toString() : lastLine.toString()));
+				} else if(buffer[i] == '\n') {
+					if(line.length() > 0) {
+						lastLine.setLength(0);
+						lastLine.append(line);
+						line.setLength(0);
+					}
+				} else {
+					line.append(buffer[i]);
+				}
+			}
+			
+			show(buffer, start, read);
+		}
+		
+		socket.close();
+	}
+	
+	/**
+	 * Passes lines typed at the console to the server and prints what it sends back, until either side closes.
+	 * @param console Where the player's answers are read from.
+	 * @throws IOException If the connection fails.
+	 */
+	public void playInteractive(final BufferedReader console) throws IOException {
+		Thread typing = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					String line;
+					
+					while((line = console.readLine()) != null) {
+						send(line);
+					}
+					
+					socket.shutdownOutput();
+				} catch(IOException ioe) {
+					// the server has gone; the main thread finds out too.
+				}
+			}
+		}, "EinsClient-console");
+		typing.setDaemon(true);
+		typing.start();
+		
+		char[] buffer = new char[4096];
+		int read;
+		
+		while((read = input.read(buffer)) >= 0) {
+			int start = 0;
+			
+			for(int i = 0; i < read; i++) {
+				if(buffer[i] == RemoteIOHandler.PROMPT) {
+					show(buffer, start, i);
+					start = i + 1;
+				}
+			}
+			
+			show(buffer, start, read);
+		}
+		
+		socket.close();
+	}
+	
+	/**
+	 * @param prompt The last line the server sent before asking for input that wasn't blank.
+	 * @return What the automatic player answers.
+	 */
+	protected String chooseAnswer(String prompt) {
+		if(prompt.contains("name")) {
+			return AUTO_NAME;
+		} else if(prompt.contains("colour")) {
+			return "R";
+		} else {
+			return "1"; // plays the first legal card, or draws if there aren't any.
+		}
+	}
+	
+	protected void send(String line) throws IOException {
+		synchronized(output) {
+			output.write((line + "\n").getBytes(RemoteIOHandler.CHARSET));
+			output.flush();
+		}
+		
+		prompts++;
+		sentAt = System.nanoTime();
+	}
+	
+	/**
+	 * Records how long the prompt just received took to arrive after the last answer.
+	 */
+	protected void recordLatency() {
+		if(sentAt == 0L) {
+			return;
+		} else if(latencyCount == latencies.length) {
+			latencies = Arrays.copyOf(latencies, latencies.length * 2);
+		}
+		
+		latencies[latencyCount++] = System.nanoTime() - sentAt;
+		sentAt = 0L;
+	}
+	
+	protected void show(char[] buffer, int start, int end) {
+		if(display != null && end > start) {
+			display.print(new String(buffer, start, end - start));
+			display.flush();
+		}
+	}
+	
+	/**
+	 * @return The number of prompts answered (or, when playing interactively, lines sent) so far.
+	 */
+	public int getPrompts() {
+		return prompts;
+	}
+	
+	/**
+	 * @return The nanoseconds between each answer sent by playAuto() and the server's next prompt, in the order they were sent. The last answer of
+	 * each session isn't included, since the server closes the connection rather than prompting again.
+	 */
+	public long[] getLatencies() {
+		return Arrays.copyOf(latencies, latencyCount);
+	}
+	
+	/**
+	 * Parses the command line arguments described in the class documentation and plays until the server closes the connection.
+	 */
+	public static void main(String[] args) {
+		ConsoleIOHandler io = new ConsoleIOHandler();
+		boolean auto = false;
+		boolean quiet = false;
+		String host = HOST_DEFAULT;
+		int port = EinsServer.PORT_DEFAULT;
+		
+		try {
+			while(args.length > 0 && args[0].startsWith("-")) {
+				if(args[0].equals("-auto")) {
+					auto = true;
+				} else if(args[0].equals("-quiet")) {
+					quiet = true;
+				} else {
+					throw new IllegalArgumentException("Unknown option " + args[0]);
+				}
+				
+				String[] rest = new String[args.length - 1];
+				System.arraycopy(args, 1, rest, 0, rest.length);
+				args = rest;
+			}
+			
+			if(args.length > 0) {
+				host = args[0];
+			}
+			
+			if(args.length > 1) {
+				port = Integer.parseInt(args[1]);
+			}
+		} catch(IllegalArgumentException iae) { // includes NumberFormatException
+			io.printErrorln("Invalid arguments: " + iae.getMessage());
+			io.printErrorln("Usage: EinsClient [-auto] [-quiet] [host [port]]");
+			return;
+		}
+		
+		long start = System.nanoTime();
+		EinsClient client = null;
+		
+		try {
+			client = new EinsClient(host, port, quiet ? null : io);
+			
+			if(auto) {
+				client.playAuto();
+			} else {
+				client.playInteractive(new BufferedReader(new InputStreamReader(System.in)));
+			}
+		} catch(IOException ioe) {
+			io.printErrorln("Lost the connection to " + host + ":" + port + ": " + ioe);
+		}
+		
+		if(client != null) {
+			io.println("\nDisconnected after " + client.getPrompts() + " prompts in " + ((System.nanoTime() - start) / 1000000L) + "ms.");
+			io.flush();
+		}
+	}
+}
@@ -0,0 +1,510 @@
+package com.sgtcodfish.eins;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sgtcodfish.eins.AIPlayer.AIDifficulty;
+import com.sgtcodfish.eins.PacedTableRunner.PacedGame;
+
+/**
+ * Hosts many games of EINS at once over TCP. Each connection gets its own table, with the player in the human seat (through a {@link RemoteIOHandler})
+ * and AIPlayers in the others, and plays a series of games there.
+ *
+ * By default each table is driven by its own thread, which reads and writes its player's socket itself ({@link SocketIOHandler}) and spends
+ * nearly all its time waiting for its player to answer. The threads are created with a small stack (STACK_SIZE_DEFAULT) and tables keep very
+ * little besides their cards, so thousands of tables fit in one JVM; the most allowed at once is set with -max, and anyone connecting beyond that
+ * is told the server is full.
+ * With -nio, no table has a thread of its own. All the sockets are handled by a {@link SelectorServer} with the given number of threads
+ * ({@link SelectorIOHandler}), and the tables are played on a {@link PacedTableRunner}, suspended whenever they're waiting for their player and
+ * resumed when the answer arrives, so a waiting player only costs the memory their table takes.
+ *
+ * Usage: EinsServer [-port port] [-ais count] [-difficulty difficulty] [-games games] [-pace factor] [-max tables] [-timeout seconds] [-nio threads]
+ * -pace scales every pause in the game as {@link ScaledPacer} does, with 0 for no pauses. The server only listens on the loopback address.
+ * Connect with {@link EinsClient}, or any plain terminal client such as telnet.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class EinsServer implements Runnable, SelectorServer.ConnectionListener {
+	public static final int PORT_DEFAULT = 10419;
+	public static final int AI_COUNT_DEFAULT = 5;
+	public static final int GAME_COUNT_DEFAULT = 3;
+	public static final int TABLE_COUNT_MAX_DEFAULT = 4096;
+	public static final int IDLE_TIMEOUT_DEFAULT = 600; /** The longest to wait for a player to answer, in seconds. */
+	public static final long STACK_SIZE_DEFAULT = 256L * 1024L; /** The stack size of each table's thread; the game never recurses deeply. */
+	
+	protected ServerSocket serverSocket; /** Accepts connections for SocketIOHandlers, or null if selectorServer is used. */
+	protected SelectorServer selectorServer; /** Handles every connection, or null if serverSocket is used. */
+	protected PacedTableRunner runner; /** Plays every table if selectorServer is used, or null. */
+	protected int aiCount;
+	protected AIDifficulty difficulty;
+	protected int games; /** The number of games in each series. */
+	protected Pacer pacer; /** Paces every table, or null to let each table choose (real time, since they all have a human). */
+	protected int maxTables;
+	protected int idleTimeoutMillis;
+	protected EINSIOHandler log; /** Where connections and errors are reported. */
+	
+	protected AtomicInteger activeTables;
+	protected AtomicInteger tablesStarted;
+	protected AtomicInteger gamesFinished;
+	
+	/**
+	 * One player's series of games, run on its own thread.
+	 */
+	protected class Session implements Runnable {
+		protected RemoteIOHandler io;
+		protected int number;
+		
+		protected Session(RemoteIOHandler nio, int nnumber) {
+			io = nio;
+			number = nnumber;
+		}
+		
+		@Override
+		public void run() {
+			try {
+				play(io);
+			} catch(IllegalStateException ise) {
+				report("Table " + number + " ended: " + ise.getMessage());
+			} finally {
+				try {
+					io.close();
+				} catch(IOException ioe) {
+				}
+				
+				activeTables.decrementAndGet();
+			}
+		}
+		
+		protected void play(RemoteIOHandler io) throws IllegalStateException {
+			io.println("Welcome to EINS! You're at table " + number + ". Please enter your name:");
+			String nname = io.readString().trim();
+			
+			if(nname.length() == 0) {
+				nname = Eins.PLAYER_NAME_DEFAULT;
+			}
+			
+			ScoreList slist = new ScoreList();
+			
+			for(int i = 0; i < games && !io.isClosed(); i++) {
+				io.println("Game #" + (i+1) + " of " + games + ":");
+				Table table = new Table(io, nname, aiCount, difficulty);
+				
+				if(pacer != null) {
+					table.setPacer(pacer);
+				}
+				
+				boolean ended = table.mainLoop(slist);
+				slist.printScores(io);
+				
+				if(ended) {
+					break;
+				}
+				
+				gamesFinished.incrementAndGet();
+			}
+			
+			if(!io.isClosed()) {
+				io.println("Final Scores:\n");
+				slist.printScoresFinal(io);
+				io.println("\nThanks for playing!");
+				io.flush();
+			}
+		}
+	}
+	
+	/**
+	 * One player's series of games on the selector server, played by the runner without a thread of its own: the player's answers arrive as
+	 * lines on the server's threads and resume the game they're for.
+	 */
+	protected class AsyncSession implements SelectorIOHandler.LineListener, PacedTableRunner.InputSource, Runnable {
+		protected SelectorIOHandler io;
+		protected int number;
+		protected String nname;
+		protected ScoreList slist;
+		protected int played; /** The number of games in the series started so far. */
+		protected volatile Table table; /** The table being played on, or null while asking for the player's name. */
+		protected volatile PacedGame waiting; /** The game waiting for the player's answer, or null. */
+		
+		protected AsyncSession(SelectorIOHandler nio, int nnumber) {
+			io = nio;
+			number = nnumber;
+			slist = new ScoreList();
+			played = 0;
+			table = null;
+			waiting = null;
+		}
+		
+		protected void start() {
+			io.println("Welcome to EINS! You're at table " + number + ". Please enter your name:");
+			io.requestLine(this);
+		}
+		
+		@Override
+		public void onLine(String line) {
+			if(table != null) {
+				PacedGame game = waiting;
+				waiting = null;
+				game.resume(line);
+				return;
+			}
+			
+			nname = line.trim();
+			
+			if(nname.length() == 0) {
+				// blank lines are skipped, like readString() does.
+				io.requestLine(this);
+				return;
+			}
+			
+			startGame();
+		}
+		
+		@Override
+		public void onClosed() {
+			PacedGame game = waiting;
+			waiting = null;
+			
+			if(game != null) {
+				game.abort(); // finishes the session.
+			} else if(table == null) {
+				end("The player has disconnected!");
+			}
+		}
+		
+		@Override
+		public void requestInput(PacedGame game) {
+			waiting = game;
+			io.requestLine(this);
+		}
+		
+		protected void startGame() {
+			played++;
+			io.println("Game #" + played + " of " + games + ":");
+			Table ntable = new Table(io, nname, aiCount, difficulty);
+			
+			if(pacer != null) {
+				ntable.setPacer(pacer);
+			}
+			
+			table = ntable;
+			runner.submit(ntable, slist, this, this);
+		}
+		
+		/**
+		 * Called by the runner when a game is over; starts the next one, or ends the series.
+		 */
+		@Override
+		public void run() {
+			// a game that ends without a winner was ended by the player, an error or a disconnection.
+			boolean ended = !table.isFinished();
+			
+			try {
+				slist.printScores(io);
+				
+				if(!ended) {
+					gamesFinished.incrementAndGet();
+				}
+				
+				if(!ended && played < games && !io.isClosed()) {
+					startGame();
+					return;
+				}
+				
+				if(io.isClosed()) {
+					end("The player has disconnected!");
+					return;
+				}
+				
+				io.println("Final Scores:\n");
+				slist.printScoresFinal(io);
+				io.println("\nThanks for playing!");
+				io.flush();
+				end(null);
+			} catch(IllegalStateException ise) {
+				end(ise.getMessage());
+			}
+		}
+		
+		/**
+		 * @param reason Why the series ended early, or null if it didn't.
+		 */
+		protected void end(String reason) {
+			if(reason != null) {
+				report("Table " + number + " ended: " + reason);
+			}
+			
+			try {
+				io.close();
+			} catch(IOException ioe) {
+			}
+			
+			activeTables.decrementAndGet();
+		}
+	}
+	
+	/**
+	 * Creates a server listening on the loopback address.
+	 * @param port The port to listen on, or 0 for any free port (see {@link #getPort()}).
+	 * @param naiCount The number of AI players at each table.
+	 * @param ndifficulty The difficulty of the AI players.
+	 * @param ngames The number of games in each player's series.
+	 * @param npacer Paces every table, or null for real time.
+	 * @param nmaxTables The most tables to host at once.
+	 * @param idleTimeoutSeconds The longest to wait for a player to answer before ending their game, or 0 to wait forever.
+	 * @param ioThreads The number of threads for a {@link SelectorServer} to handle every connection, or 0 for each table to handle its own.
+	 * @param nlog Where connections and errors are reported.
+	 * @throws IOException If the port can't be listened on.
+	 * @throws IllegalArgumentException
+	 */
+	public EinsServer(int port, int naiCount, AIDifficulty ndifficulty, int ngames, Pacer npacer, int nmaxTables, int idleTimeoutSeconds, int ioThreads,
+			EINSIOHandler nlog) throws IOException, IllegalArgumentException {
+		if(naiCount < 1 || ngames < 1 || nmaxTables < 1 || idleTimeoutSeconds < 0 || ioThreads < 0) {
+			throw new IllegalArgumentException("Trying to start a server with an invalid number of AIs (" + naiCount + "), games (" + ngames + "), tables (" +
+					nmaxTables + "), timeout (" + idleTimeoutSeconds + ") or IO threads (" + ioThreads + ")!");
+		}
+		
+		aiCount = naiCount;
+		difficulty = ndifficulty;
+		games = ngames;
+		pacer = npacer;
+		maxTables = nmaxTables;
+		idleTimeoutMillis = idleTimeoutSeconds * 1000;
+		log = nlog;
+		activeTables = new AtomicInteger();
+		tablesStarted = new AtomicInteger();
+		gamesFinished = new AtomicInteger();
+		
+		if(ioThreads > 0) {
+			serverSocket = null;
+			selectorServer = new SelectorServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), ioThreads, idleTimeoutMillis, this);
+			runner = new PacedTableRunner();
+		} else {
+			serverSocket = new ServerSocket(port, 256, InetAddress.getLoopbackAddress());
+			selectorServer = null;
+			runner = null;
+		}
+	}
+	
+	/**
+	 * Accepts connections until the server is closed, starting a table for each.
+	 */
+	@Override
+	public void run() {
+		if(selectorServer != null) {
+			selectorServer.start();
+			
+			try {
+				selectorServer.join();
+			} catch(InterruptedException ie) {
+				Thread.currentThread().interrupt();
+			}
+			
+			return;
+		}
+		
+		while(!serverSocket.isClosed()) {
+			Socket socket = null;
+			
+			try {
+				socket = serverSocket.accept();
+			} catch(IOException ioe) {
+				if(!serverSocket.isClosed()) {
+					report("Couldn't accept a connection: " + ioe);
+				}
+				
+				continue;
+			}
+			
+			try {
+				startTable(new SocketIOHandler(socket, idleTimeoutMillis), socket.getRemoteSocketAddress().toString());
+			} catch(IOException ioe) {
+				report("Couldn't talk to " + socket.getRemoteSocketAddress() + ": " + ioe);
+				
+				try {
+					socket.close();
+				} catch(IOException ioe2) {
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Starts a series of games for a new player on the runner, or tells them the server is full.
+	 */
+	@Override
+	public void onConnected(SelectorIOHandler io) {
+		if(!reserveTable(io)) {
+			return;
+		}
+		
+		int number = tablesStarted.incrementAndGet();
+		new AsyncSession(io, number).start();
+		report("Table " + number + " started for " + io.channel.socket().getRemoteSocketAddress() + " (" + activeTables.get() + " tables running).");
+	}
+	
+	/**
+	 * Starts a table for a new player on its own thread, or tells them the server is full.
+	 * @param io The new player's connection.
+	 * @param address Where they're connecting from, for the log.
+	 */
+	protected void startTable(RemoteIOHandler io, String address) {
+		if(!reserveTable(io)) {
+			return;
+		}
+		
+		int number = tablesStarted.incrementAndGet();
+		
+		try {
+			Thread t = new Thread(null, new Session(io, number), "EinsServer-table-" + number, STACK_SIZE_DEFAULT);
+			t.start();
+			report("Table " + number + " started for " + address + " (" + activeTables.get() + " tables running).");
+		} catch(OutOfMemoryError oome) { // thrown when no more threads can be created
+			activeTables.decrementAndGet();
+			report("Couldn't start a thread for table " + number + ": " + oome);
+			refuse(io);
+		}
+	}
+	
+	/**
+	 * Counts a new table as running, unless there are already maxTables, in which case the player is told the server is full.
+	 * @return true if the table can be started.
+	 */
+	protected boolean reserveTable(RemoteIOHandler io) {
+		if(activeTables.incrementAndGet() > maxTables) {
+			activeTables.decrementAndGet();
+			refuse(io);
+			return false;
+		}
+		
+		return true;
+	}
+	
+	protected void refuse(RemoteIOHandler io) {
+		io.println("Sorry, the server is full! Try again later.");
+		
+		try {
+			io.close();
+		} catch(IOException ioe) {
+		}
+	}
+	
+	protected void report(String message) {
+		synchronized(log) {
+			log.println(message);
+			log.flush();
+		}
+	}
+	
+	/**
+	 * Stops accepting connections; tables already running carry on until their series is over, except with -nio, where they stop too since
+	 * their players' answers can't be read any more.
+	 */
+	public void close() throws IOException {
+		if(selectorServer != null) {
+			selectorServer.close();
+			runner.shutdown();
+		} else {
+			serverSocket.close();
+		}
+	}
+	
+	/**
+	 * @return The port the server is listening on.
+	 */
+	public int getPort() {
+		return (selectorServer != null ? selectorServer.getPort() : serverSocket.getLocalPort());
+	}
+	
+	/**
+	 * @return The number of tables being played on now.
+	 */
+	public int getActiveTables() {
+		return activeTables.get();
+	}
+	
+	/**
+	 * @return The number of tables started since the server started.
+	 */
+	public int getTablesStarted() {
+		return tablesStarted.get();
+	}
+	
+	/**
+	 * @return The number of games played to the end since the server started.
+	 */
+	public int getGamesFinished() {
+		return gamesFinished.get();
+	}
+	
+	/**
+	 * Parses the command line arguments described in the class documentation and runs the server until it's killed.
+	 */
+	public static void main(String[] args) {
+		ConsoleIOHandler io = new ConsoleIOHandler();
+		int port = PORT_DEFAULT;
+		int ais = AI_COUNT_DEFAULT;
+		AIDifficulty diff = Table.AI_DIFFICULTY_DEFAULT;
+		int games = GAME_COUNT_DEFAULT;
+		Pacer pacer = null;
+		int max = TABLE_COUNT_MAX_DEFAULT;
+		int timeout = IDLE_TIMEOUT_DEFAULT;
+		int ioThreads = 0;
+		
+		try {
+			while(args.length > 1 && args[0].startsWith("-")) {
+				if(args[0].equals("-port")) {
+					port = Integer.parseInt(args[1]);
+				} else if(args[0].equals("-ais")) {
+					ais = Integer.parseInt(args[1]);
+				} else if(args[0].equals("-difficulty")) {
+					diff = AIDifficulty.valueOf(args[1].toUpperCase());
+				} else if(args[0].equals("-games")) {
+					games = Integer.parseInt(args[1]);
+				} else if(args[0].equals("-pace")) {
+					double factor = Double.parseDouble(args[1]);
+					pacer = (factor == 0.0d ? NullPacer.INSTANCE : new ScaledPacer(factor));
+				} else if(args[0].equals("-max")) {
+					max = Integer.parseInt(args[1]);
+				} else if(args[0].equals("-timeout")) {
+					timeout = Integer.parseInt(args[1]);
+				} else if(args[0].equals("-nio")) {
+					ioThreads = Integer.parseInt(args[1]);
+				} else {
+					throw new IllegalArgumentException("Unknown option " + args[0]);
+				}
+				
+				String[] rest = new String[args.length - 2];
+				System.arraycopy(args, 2, rest, 0, rest.length);
+				args = rest;
+			}
+			
+			if(args.length > 0) {
+				throw new IllegalArgumentException("Unexpected argument " + args[0]);
+			}
+		} catch(IllegalArgumentException iae) { // includes NumberFormatException
+			io.printErrorln("Invalid arguments: " + iae.getMessage());
+			io.printErrorln("Usage: EinsServer [-port port] [-ais count] [-difficulty difficulty] [-games games] [-pace factor] [-max tables] [-timeout seconds] [-nio threads]");
+			return;
+		}
+		
+		EinsServer server = null;
+		
+		try {
+			server = new EinsServer(port, ais, diff, games, pacer, max, timeout, ioThreads, io);
+		} catch(IOException ioe) {
+			io.printErrorln("Couldn't listen on port " + port + ": " + ioe);
+			return;
+		} catch(IllegalArgumentException iae) {
+			io.printErrorln("Invalid arguments: " + iae.getMessage());
+			return;
+		}
+		
+		io.println("Hosting up to " + max + " tables of " + ais + " " + diff + " AIs on port " + server.getPort() +
+				(ioThreads > 0 ? ", with " + ioThreads + " IO threads." : "."));
+		io.flush();
+		server.run();
+	}
+}
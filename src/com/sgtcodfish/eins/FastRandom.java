@@ -0,0 +1,111 @@
+package com.sgtcodfish.eins;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fast, seedable random number generator for use by a single {@link Table}. Implements xoshiro256** seeded via SplitMix64.
+ *
+ * Extends {@link Random} so that it can be used anywhere a Random is expected, but unlike Random it is NOT thread-safe:
+ * it keeps its state in plain fields, so there is no atomic update on every call. Each table (and so each thread) should have its own.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class FastRandom extends Random {
+	private static final long serialVersionUID = 1L;
+	
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+	private static final AtomicLong seedSequence = new AtomicLong(System.nanoTime()); /** Used to make unseeded generators different from each other. */
+	
+	private long s0, s1, s2, s3;
+	
+	/**
+	 * Creates a generator with a seed that is very likely to be different to any other generator's.
+	 */
+	public FastRandom() {
+		this(mix(seedSequence.getAndAdd(GOLDEN_GAMMA) ^ System.nanoTime()));
+	}
+	
+	/**
+	 * Creates a generator with the given seed. Two generators created with the same seed produce the same sequence of numbers.
+	 * @param seed The seed.
+	 */
+	public FastRandom(long seed) {
+		super(0L);
+		setSeed(seed);
+	}
+	
+	/**
+	 * Resets the generator to the state it would have if it were created with the given seed.
+	 * @param seed The seed.
+	 */
+	@Override
+	public void setSeed(long seed) {
+		// The four words of state are filled from a SplitMix64 sequence, which never gives an all-zero state.
+		long x = seed;
+		s0 = mix(x += GOLDEN_GAMMA);
+		s1 = mix(x += GOLDEN_GAMMA);
+		s2 = mix(x += GOLDEN_GAMMA);
+		s3 = mix(x += GOLDEN_GAMMA);
+	}
+	
+	@Override
+	public long nextLong() {
+		long result = Long.rotateLeft(s1 * 5L, 7) * 9L;
+		long t = s1 << 17;
+		
+		s2 ^= s0;
+		s3 ^= s1;
+		s1 ^= s2;
+		s0 ^= s3;
+		s2 ^= t;
+		s3 = Long.rotateLeft(s3, 45);
+		
+		return result;
+	}
+	
+	@Override
+	protected int next(int bits) {
+		return (int)(nextLong() >>> (64 - bits));
+	}
+	
+	@Override
+	public int nextInt(int bound) {
+		if(bound <= 0) {
+			throw new IllegalArgumentException("bound must be positive, was " + bound);
+		}
+		
+		// Lemire's multiply-and-shift; the rejection loop almost never runs more than once.
+		long m = ((nextLong() >>> 32) * bound);
+		long low = m & 0xffffffffL;
+		
+		if(low < bound) {
+			long threshold = (0x100000000L - bound) % bound;
+			
+			while(low < threshold) {
+				m = ((nextLong() >>> 32) * bound);
+				low = m & 0xffffffffL;
+			}
+		}
+		
+		return (int)(m >>> 32);
+	}
+	
+	/**
+	 * Creates a new generator whose sequence is independent of this one's for all practical purposes, e.g. to give to another thread or to keep
+	 * one part of the game from disturbing another's random numbers. Uses up one number from this generator, so splitting two generators with the
+	 * same state gives two new generators with the same state.
+	 * @return The new generator.
+	 */
+	public FastRandom split() {
+		return new FastRandom(nextLong());
+	}
+	
+	/**
+	 * The SplitMix64 finaliser; scrambles x so that nearby seeds give very different states.
+	 */
+	protected static long mix(long x) {
+		x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+		x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+		return x ^ (x >>> 31);
+	}
+}
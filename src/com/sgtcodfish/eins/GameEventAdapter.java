@@ -0,0 +1,65 @@
+package com.sgtcodfish.eins;
+
+import com.sgtcodfish.eins.Card.CardColour;
+
+/**
+ * A {@link GameEventListener} which does nothing for every event, so subclasses only need to override the events they care about.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public abstract class GameEventAdapter implements GameEventListener {
+	@Override
+	public void onGameStarted(Table table) {
+	}
+	
+	@Override
+	public void onTurnStarted(CardEntity player) {
+	}
+	
+	@Override
+	public void onTurnEnded(CardEntity player) {
+	}
+	
+	@Override
+	public void onCardPlayed(CardEntity player, Card card, boolean changedColour) {
+	}
+	
+	@Override
+	public void onColourChosen(CardEntity player, CardColour colour) {
+	}
+	
+	@Override
+	public void onDraw(CardEntity player, Card card, boolean forced) {
+	}
+	
+	@Override
+	public void onPass(CardEntity player) {
+	}
+	
+	@Override
+	public void onTurnSkipped(CardEntity player, Card cause) {
+	}
+	
+	@Override
+	public void onDirectionReversed(boolean reversed) {
+	}
+	
+	@Override
+	public void onEinsShout(CardEntity player, boolean correct) {
+	}
+	
+	@Override
+	public void onEinsAccusation(CardEntity accusor, boolean correct) {
+	}
+	
+	@Override
+	public void onEinsForgotten(CardEntity player) {
+	}
+	
+	@Override
+	public void onDeckReseeded() {
+	}
+	
+	@Override
+	public void onGameWon(CardEntity winner) {
+	}
+}
@@ -0,0 +1,231 @@
+package com.sgtcodfish.eins;
+
+import com.sgtcodfish.eins.Card.CardColour;
+import com.sgtcodfish.eins.Card.CardType;
+
+/**
+ * Counts the events of any number of games in plain counters, for statistics over long simulations.
+ * One counter can listen to many tables in turn, but not to tables on different threads at the same time; give each thread its own and
+ * combine them with {@link #add(GameEventCounter)} afterwards.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class GameEventCounter implements GameEventListener {
+	protected long games; /** The number of games started. */
+	protected long gamesWon; /** The number of games which ended with a winner. */
+	protected long turns; /** The number of turns taken. */
+	protected long[] cardsPlayed; /** The number of cards played of each type, indexed by CardType ordinal. */
+	protected long coloursChosen; /** The number of times a colour was chosen. */
+	protected long cardsDrawn; /** The number of cards drawn by choice. */
+	protected long forcedDraws; /** The number of cards drawn as a punishment or because of a PICKTWO or CHANGECOLFOUR. */
+	protected long passes; /** The number of turns that ended without a card being played. */
+	protected long turnsSkipped; /** The number of turns missed because of a card. */
+	protected long reverses; /** The number of times the direction of play was reversed. */
+	protected long einsShouts; /** The number of correct EINS shouts. */
+	protected long incorrectEinsShouts; /** The number of incorrect EINS shouts. */
+	protected long accusations; /** The number of correct accusations. */
+	protected long incorrectAccusations; /** The number of incorrect accusations. */
+	protected long einsForgotten; /** The number of players caught by a correct accusation. */
+	protected long reseeds; /** The number of times the deck was reseeded from the pile. */
+	
+	/**
+	 * Creates a counter with every count at 0.
+	 */
+	public GameEventCounter() {
+		cardsPlayed = new long[CardType.values().length];
+	}
+	
+	@Override
+	public void onGameStarted(Table table) {
+		games++;
+	}
+	
+	@Override
+	public void onTurnStarted(CardEntity player) {
+		turns++;
+	}
+	
+	@Override
+	public void onTurnEnded(CardEntity player) {
+	}
+	
+	@Override
+	public void onCardPlayed(CardEntity player, Card card, boolean changedColour) {
+		cardsPlayed[card.getType().ordinal()]++;
+	}
+	
+	@Override
+	public void onColourChosen(CardEntity player, CardColour colour) {
+		coloursChosen++;
+	}
+	
+	@Override
+	public void onDraw(CardEntity player, Card card, boolean forced) {
+		if(forced) {
+			forcedDraws++;
+		} else {
+			cardsDrawn++;
+		}
+	}
+	
+	@Override
+	public void onPass(CardEntity player) {
+		passes++;
+	}
+	
+	@Override
+	public void onTurnSkipped(CardEntity player, Card cause) {
+		turnsSkipped++;
+	}
+	
+	@Override
+	public void onDirectionReversed(boolean reversed) {
+		reverses++;
+	}
+	
+	@Override
+	public void onEinsShout(CardEntity player, boolean correct) {
+		if(correct) {
+			einsShouts++;
+		} else {
+			incorrectEinsShouts++;
+		}
+	}
+	
+	@Override
+	public void onEinsAccusation(CardEntity accusor, boolean correct) {
+		if(correct) {
+			accusations++;
+		} else {
+			incorrectAccusations++;
+		}
+	}
+	
+	@Override
+	public void onEinsForgotten(CardEntity player) {
+		einsForgotten++;
+	}
+	
+	@Override
+	public void onDeckReseeded() {
+		reseeds++;
+	}
+	
+	@Override
+	public void onGameWon(CardEntity winner) {
+		gamesWon++;
+	}
+	
+	/**
+	 * Adds all of other's counts to this counter's, as if this counter had listened to all of other's games too.
+	 * @param other The counter to add.
+	 */
+	public void add(GameEventCounter other) {
+		games += other.games;
+		gamesWon += other.gamesWon;
+		turns += other.turns;
+		
+		for(int i = 0; i < cardsPlayed.length; i++) {
+			cardsPlayed[i] += other.cardsPlayed[i];
+		}
+		
+		coloursChosen += other.coloursChosen;
+		cardsDrawn += other.cardsDrawn;
+		forcedDraws += other.forcedDraws;
+		passes += other.passes;
+		turnsSkipped += other.turnsSkipped;
+		reverses += other.reverses;
+		einsShouts += other.einsShouts;
+		incorrectEinsShouts += other.incorrectEinsShouts;
+		accusations += other.accusations;
+		incorrectAccusations += other.incorrectAccusations;
+		einsForgotten += other.einsForgotten;
+		reseeds += other.reseeds;
+	}
+	
+	public long getGames() {
+		return games;
+	}
+	
+	public long getGamesWon() {
+		return gamesWon;
+	}
+	
+	public long getTurns() {
+		return turns;
+	}
+	
+	/**
+	 * @param type The type of card.
+	 * @return The number of cards of that type played.
+	 */
+	public long getCardsPlayed(CardType type) {
+		return cardsPlayed[type.ordinal()];
+	}
+	
+	public long getColoursChosen() {
+		return coloursChosen;
+	}
+	
+	public long getCardsDrawn() {
+		return cardsDrawn;
+	}
+	
+	public long getForcedDraws() {
+		return forcedDraws;
+	}
+	
+	public long getPasses() {
+		return passes;
+	}
+	
+	public long getTurnsSkipped() {
+		return turnsSkipped;
+	}
+	
+	public long getReverses() {
+		return reverses;
+	}
+	
+	public long getEinsShouts() {
+		return einsShouts;
+	}
+	
+	public long getIncorrectEinsShouts() {
+		return incorrectEinsShouts;
+	}
+	
+	public long getAccusations() {
+		return accusations;
+	}
+	
+	public long getIncorrectAccusations() {
+		return incorrectAccusations;
+	}
+	
+	public long getEinsForgotten() {
+		return einsForgotten;
+	}
+	
+	public long getReseeds() {
+		return reseeds;
+	}
+	
+	/**
+	 * Prints a summary of the counts, with averages per game.
+	 * @param io The IO handler to print to.
+	 */
+	public void printSummary(EINSIOHandler io) {
+		double perGame = (games == 0L ? 0.0d : 1.0d / games);
+		
+		io.println(games + " games, " + gamesWon + " won, " + String.format("%.2f", turns * perGame) + " turns per game.");
+		
+		for(CardType type : CardType.values()) {
+			io.println(type + " played: " + getCardsPlayed(type) + " (" + String.format("%.2f", getCardsPlayed(type) * perGame) + " per game)");
+		}
+		
+		io.println("Cards drawn: " + cardsDrawn + " by choice, " + forcedDraws + " forced; " + passes + " passes, " + turnsSkipped + " turns skipped, " + reverses + " reverses.");
+		io.println("EINS: " + einsShouts + " shouts (" + incorrectEinsShouts + " incorrect), " + accusations + " correct accusations catching " + einsForgotten +
+				" players, " + incorrectAccusations + " incorrect accusations.");
+		io.println("Deck reseeded " + reseeds + " times.");
+	}
+}
@@ -0,0 +1,105 @@
+package com.sgtcodfish.eins;
+
+import com.sgtcodfish.eins.Card.CardColour;
+
+/**
+ * Receives a typed event for everything that happens during a game at a {@link Table}, in the order it happens.
+ * Register with {@link Table#addGameEventListener(GameEventListener)}. The console messages describing the game are printed by one of these
+ * (a {@link GameEventPrinter}), and statistics can be gathered by another (e.g. a {@link GameEventCounter}) without parsing any text.
+ *
+ * Listeners are called on the thread playing the game, in the middle of a turn, so they must be quick and must not change the game.
+ * Extend {@link GameEventAdapter} to only handle some of the events.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public interface GameEventListener {
+	/**
+	 * Called once the cards have been dealt and the first card turned over, before the effects of the first card are applied.
+	 * @param table The table the game is being played at.
+	 */
+	public void onGameStarted(Table table);
+	
+	/**
+	 * Called just before a player takes their turn.
+	 * @param player The player whose turn it is.
+	 */
+	public void onTurnStarted(CardEntity player);
+	
+	/**
+	 * Called just after a player finishes their turn.
+	 * @param player The player whose turn it was.
+	 */
+	public void onTurnEnded(CardEntity player);
+	
+	/**
+	 * Called when a card is played onto the pile, before any of its effects are applied.
+	 * @param player The player who played the card.
+	 * @param card The card played.
+	 * @param changedColour true if the card was played because it matched the top card rather than the current colour, so the current colour is now the card's colour.
+	 */
+	public void onCardPlayed(CardEntity player, Card card, boolean changedColour);
+	
+	/**
+	 * Called when a player chooses a colour, after playing a BLACK card or because the first card was BLACK.
+	 * @param player The player who chose.
+	 * @param colour The colour chosen.
+	 */
+	public void onColourChosen(CardEntity player, CardColour colour);
+	
+	/**
+	 * Called for every card a player draws, apart from the cards dealt at the start of the game.
+	 * @param player The player who drew the card.
+	 * @param card The card drawn.
+	 * @param forced true if the card was drawn as a punishment or because of a PICKTWO or CHANGECOLFOUR, false if the player chose to draw it.
+	 */
+	public void onDraw(CardEntity player, Card card, boolean forced);
+	
+	/**
+	 * Called when a player ends their turn without playing a card.
+	 * @param player The player who passed.
+	 */
+	public void onPass(CardEntity player);
+	
+	/**
+	 * Called when a player misses their turn because of a card. Any cards the player has to draw are reported with {@link #onDraw(CardEntity, Card, boolean)} first.
+	 * @param player The player who misses their turn.
+	 * @param cause The card that made them miss it.
+	 */
+	public void onTurnSkipped(CardEntity player, Card cause);
+	
+	/**
+	 * Called when the direction of play is reversed.
+	 * @param reversed true if play is now counter-clockwise, false if it's clockwise.
+	 */
+	public void onDirectionReversed(boolean reversed);
+	
+	/**
+	 * Called when a player shouts EINS.
+	 * @param player The player who shouted.
+	 * @param correct true if they had 2 cards, false if they'll draw two cards as punishment.
+	 */
+	public void onEinsShout(CardEntity player, boolean correct);
+	
+	/**
+	 * Called when a player accuses the others of forgetting to say EINS, before anyone is punished.
+	 * @param accusor The player making the accusation.
+	 * @param correct true if at least one player had forgotten, false if the accusor will draw two cards as punishment.
+	 */
+	public void onEinsAccusation(CardEntity accusor, boolean correct);
+	
+	/**
+	 * Called for each player caught by a correct accusation, before they draw their two cards.
+	 * @param player The player who forgot to say EINS.
+	 */
+	public void onEinsForgotten(CardEntity player);
+	
+	/**
+	 * Called when the deck runs out and the pile is turned over and shuffled to make a new one.
+	 */
+	public void onDeckReseeded();
+	
+	/**
+	 * Called when a player has no cards left.
+	 * @param winner The player who won.
+	 */
+	public void onGameWon(CardEntity winner);
+}
@@ -0,0 +1,159 @@
+package com.sgtcodfish.eins;
+
+import com.sgtcodfish.eins.Card.CardColour;
+
+/**
+ * Passes every event on to a list of {@link GameEventListener}s, in the order they were added. Used by {@link Table} so that the game only ever
+ * calls one listener. The list is copied when it changes rather than when it's used, so sending an event doesn't allocate anything.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class GameEventMulticaster implements GameEventListener {
+	protected GameEventListener[] listeners; /** The listeners to pass events to; never changed, only replaced. */
+	
+	/**
+	 * Creates a multicaster with no listeners.
+	 */
+	public GameEventMulticaster() {
+		listeners = new GameEventListener[0];
+	}
+	
+	/**
+	 * Adds a listener to the end of the list.
+	 * @param l The listener to add.
+	 * @throws IllegalArgumentException If l is null.
+	 */
+	public void add(GameEventListener l) throws IllegalArgumentException {
+		if(l == null) {
+			throw new IllegalArgumentException("Trying to add a null GameEventListener!");
+		}
+		
+		GameEventListener[] nlisteners = new GameEventListener[listeners.length + 1];
+		System.arraycopy(listeners, 0, nlisteners, 0, listeners.length);
+		nlisteners[listeners.length] = l;
+		listeners = nlisteners;
+	}
+	
+	/**
+	 * Removes the first occurrence of a listener from the list.
+	 * @param l The listener to remove.
+	 * @return true if the listener was removed, false if it wasn't in the list.
+	 */
+	public boolean remove(GameEventListener l) {
+		for(int i = 0; i < listeners.length; i++) {
+			if(listeners[i] == l) {
+				GameEventListener[] nlisteners = new GameEventListener[listeners.length - 1];
+				System.arraycopy(listeners, 0, nlisteners, 0, i);
+				System.arraycopy(listeners, i + 1, nlisteners, i, listeners.length - i - 1);
+				listeners = nlisteners;
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * @return The number of listeners in the list.
+	 */
+	public int size() {
+		return listeners.length;
+	}
+	
+	@Override
+	public void onGameStarted(Table table) {
+		for(GameEventListener l : listeners) {
+			l.onGameStarted(table);
+		}
+	}
+	
+	@Override
+	public void onTurnStarted(CardEntity player) {
+		for(GameEventListener l : listeners) {
+			l.onTurnStarted(player);
+		}
+	}
+	
+	@Override
+	public void onTurnEnded(CardEntity player) {
+		for(GameEventListener l : listeners) {
+			l.onTurnEnded(player);
+		}
+	}
+	
+	@Override
+	public void onCardPlayed(CardEntity player, Card card, boolean changedColour) {
+		for(GameEventListener l : listeners) {
+			l.onCardPlayed(player, card, changedColour);
+		}
+	}
+	
+	@Override
+	public void onColourChosen(CardEntity player, CardColour colour) {
+		for(GameEventListener l : listeners) {
+			l.onColourChosen(player, colour);
+		}
+	}
+	
+	@Override
+	public void onDraw(CardEntity player, Card card, boolean forced) {
+		for(GameEventListener l : listeners) {
+			l.onDraw(player, card, forced);
+		}
+	}
+	
+	@Override
+	public void onPass(CardEntity player) {
+		for(GameEventListener l : listeners) {
+			l.onPass(player);
+		}
+	}
+	
+	@Override
+	public void onTurnSkipped(CardEntity player, Card cause) {
+		for(GameEventListener l : listeners) {
+			l.onTurnSkipped(player, cause);
+		}
+	}
+	
+	@Override
+	public void onDirectionReversed(boolean reversed) {
+		for(GameEventListener l : listeners) {
+			l.onDirectionReversed(reversed);
+		}
+	}
+	
+	@Override
+	public void onEinsShout(CardEntity player, boolean correct) {
+		for(GameEventListener l : listeners) {
+			l.onEinsShout(player, correct);
+		}
+	}
+	
+	@Override
+	public void onEinsAccusation(CardEntity accusor, boolean correct) {
+		for(GameEventListener l : listeners) {
+			l.onEinsAccusation(accusor, correct);
+		}
+	}
+	
+	@Override
+	public void onEinsForgotten(CardEntity player) {
+		for(GameEventListener l : listeners) {
+			l.onEinsForgotten(player);
+		}
+	}
+	
+	@Override
+	public void onDeckReseeded() {
+		for(GameEventListener l : listeners) {
+			l.onDeckReseeded();
+		}
+	}
+	
+	@Override
+	public void onGameWon(CardEntity winner) {
+		for(GameEventListener l : listeners) {
+			l.onGameWon(winner);
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package com.sgtcodfish.eins;
+
+import com.sgtcodfish.eins.Card.CardColour;
+import com.sgtcodfish.eins.Card.CardType;
+
+/**
+ * Describes a game in English as it happens, by printing a message for each event to the table's {@link EINSIOHandler}.
+ * Every {@link Table} whose IO handler has output enabled gets one of these, which is how the console shows what's going on.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class GameEventPrinter implements GameEventListener {
+	protected Table table; /** The table whose game is being described. */
+	
+	/**
+	 * Creates a printer for the game at a table, which prints to the table's IO handler.
+	 * @param ntable The table whose game should be described.
+	 */
+	public GameEventPrinter(Table ntable) {
+		table = ntable;
+	}
+	
+	/**
+	 * @return The IO handler to print to.
+	 */
+	protected EINSIOHandler getIOHandler() {
+		return table.getIOHandler();
+	}
+	
+	@Override
+	public void onGameStarted(Table t) {
+		if(t.getPile().getTopCard().getType() != CardType.NUMBER) {
+			getIOHandler().println("The first card is " + t.getPile().getTopCard().getType() + "!");
+		}
+	}
+	
+	@Override
+	public void onTurnStarted(CardEntity player) {
+		Card top = table.getPile().getTopCard();
+		getIOHandler().println("-----");
+		getIOHandler().println("Top card: " + top + (top.getColour() == CardColour.BLACK ? "[Clr: " + table.getCurrentColour() + "]!" : "!"));
+	}
+	
+	@Override
+	public void onTurnEnded(CardEntity player) {
+		getIOHandler().println("-----");
+		getIOHandler().print("\n");
+	}
+	
+	@Override
+	public void onCardPlayed(CardEntity player, Card card, boolean changedColour) {
+		if(card.getColour() == CardColour.BLACK) {
+			getIOHandler().println(player.getName() + " played a " + card.getType() + "!");
+		} else if(changedColour) {
+			getIOHandler().println(player.getName() + " played " + card + ", changing the colour to " + card.getColour() + "!");
+		} else {
+			getIOHandler().println(player.getName() + " played " + card + "!");
+		}
+	}
+	
+	@Override
+	public void onColourChosen(CardEntity player, CardColour colour) {
+		getIOHandler().println(player.getName() + " chose " + colour + " as the new colour!");
+	}
+	
+	@Override
+	public void onDraw(CardEntity player, Card card, boolean forced) {
+		// draws are described by the events that cause them, and human players are told what they drew by HumanPlayer itself.
+	}
+	
+	@Override
+	public void onPass(CardEntity player) {
+	}
+	
+	@Override
+	public void onTurnSkipped(CardEntity player, Card cause) {
+		switch(cause.getType()) {
+		case PICKTWO:
+			getIOHandler().println(player.getName() + " misses their turn and draws two cards!");
+			break;
+			
+		case CHANGECOLFOUR:
+			getIOHandler().println(player.getName() + " misses their turn and draws four cards!");
+			break;
+			
+		default:
+			getIOHandler().println(player.getName() + " misses their turn!");
+			break;
+		}
+	}
+	
+	@Override
+	public void onDirectionReversed(boolean reversed) {
+		getIOHandler().println("The order of play is reversed! Direction of play is now " + (reversed ? "counter-clockwise" : "clockwise") + "!");
+	}
+	
+	@Override
+	public void onEinsShout(CardEntity player, boolean correct) {
+		if(correct) {
+			getIOHandler().println(player.getName() + " shouts EINS!");
+		} else {
+			getIOHandler().println(player.getName() + " says EINS incorrectly, and draws two cards as punishment.");
+		}
+	}
+	
+	@Override
+	public void onEinsAccusation(CardEntity accusor, boolean correct) {
+		getIOHandler().println(accusor.getName() + " accuses all players of forgetting to say EINS!");
+		
+		if(!correct) {
+			getIOHandler().println(accusor.getName() + "\'s accusation was incorrect and so draws two cards as punishment.");
+		}
+	}
+	
+	@Override
+	public void onEinsForgotten(CardEntity player) {
+		getIOHandler().println(player.getName() + " has only one card and has forgotten to say EINS! They draw two cards as punishment.");
+	}
+	
+	@Override
+	public void onDeckReseeded() {
+		getIOHandler().println("The deck was exhausted, so the pile is turned over.\n");
+	}
+	
+	@Override
+	public void onGameWon(CardEntity winner) {
+		getIOHandler().println(winner.getName() + " has won this game!");
+	}
+}
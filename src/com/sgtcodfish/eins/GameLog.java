@@ -0,0 +1,78 @@
+package com.sgtcodfish.eins;
+
+/**
+ * Describes the binary format of game logs written by {@link GameLogWriter} and read by {@link GameRecord}.
+ *
+ * A log file is any number of records, one per finished game, one after another. Each record is a 4 byte big-endian length followed by that many bytes:
+ * - FORMAT_VERSION (1 byte)
+ * - the table's seed (8 bytes, big-endian); with the seed the deck can be rebuilt, so forced draws and reseeds don't need to be logged.
+ * - the number of players (1 byte), then the kind of player in each seat (1 byte each; see seatKind).
+ * - the first card turned over (1 byte), then for each seat the size of its dealt hand (1 byte) followed by the codes of the cards (1 byte each).
+ * - the moves, one byte each, in the order they happened: a {@link CardCode} for a card played, COLOUR + the colour's ordinal for a colour chosen,
+ *   then DRAW, PASS, EINS, ACCUSE and RESEED. Every move is made by the player whose turn it is, so seats aren't logged.
+ * - END, then the seat of the winner (1 byte).
+ *
+ * A typical game for 6 players takes under 200 bytes.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public final class GameLog {
+	public static final int FORMAT_VERSION = 1;
+	
+	public static final int COLOUR = 0x40; /** COLOUR + ordinal: the player whose turn it is chose a colour. */
+	public static final int DRAW = 0x50; /** The player drew a card by choice. */
+	public static final int PASS = 0x51; /** The player ended their turn without playing. */
+	public static final int EINS = 0x52; /** The player said EINS, correctly or not. */
+	public static final int ACCUSE = 0x53; /** The player accused the others of forgetting to say EINS. */
+	public static final int RESEED = 0x54; /** The deck ran out and the pile was turned over; for information only. */
+	public static final int END = 0x55; /** The game was won; followed by the winner's seat. */
+	
+	public static final int SEAT_HUMAN = 0; /** The seat kind for a human player; AIs are SEAT_AI + their AIDifficulty's ordinal. */
+	public static final int SEAT_AI = 1;
+	public static final int SEAT_UNKNOWN = 0xFF;
+	
+	private GameLog() {
+	}
+	
+	/**
+	 * @return true if token is a card played, rather than a colour or one of the other moves.
+	 */
+	public static boolean isCard(int token) {
+		return token < CardCode.KIND_COUNT;
+	}
+	
+	/**
+	 * @return true if token is a colour choice.
+	 */
+	public static boolean isColour(int token) {
+		return token >= COLOUR && token < COLOUR + CardCode.COLOUR_COUNT - 1;
+	}
+	
+	/**
+	 * @param player A player.
+	 * @return The byte used to describe the kind of player in a log.
+	 */
+	public static int seatKind(CardEntity player) {
+		if(player instanceof HumanPlayer) {
+			return SEAT_HUMAN;
+		} else if(player instanceof AIPlayer) {
+			return SEAT_AI + ((AIPlayer)player).difficulty.ordinal();
+		} else if(player instanceof ReplayPlayer) {
+			return ((ReplayPlayer)player).getSeatKind();
+		} else {
+			return SEAT_UNKNOWN;
+		}
+	}
+	
+	/**
+	 * @return A name for a kind of seat, e.g. "HUMAN" or "BEST".
+	 */
+	public static String seatKindToString(int kind) {
+		if(kind == SEAT_HUMAN) {
+			return "HUMAN";
+		} else if(kind >= SEAT_AI && kind - SEAT_AI < AIPlayer.AIDifficulty.values().length) {
+			return AIPlayer.AIDifficulty.values()[kind - SEAT_AI].toString();
+		} else {
+			return "UNKNOWN";
+		}
+	}
+}
@@ -0,0 +1,161 @@
+package com.sgtcodfish.eins;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Collects {@link GameLogStats} over any number of game log files, reading them with several threads at once.
+ * Each file is split into a few segments per thread with {@link MappedGameLogReader#split(FileChannel, int)}, every segment is read by its own
+ * reader into its own statistics, and the statistics are added together at the end.
+ *
+ * Usage: GameLogAnalyzer [-threads threads] logfile...
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class GameLogAnalyzer {
+	public static final int SEGMENTS_PER_THREAD = 4; /** More segments than threads, so a thread that finishes early can pick up more work. */
+	
+	/**
+	 * Reads one segment of a file.
+	 */
+	protected static class Segment implements Callable<GameLogStats> {
+		protected FileChannel channel;
+		protected long start;
+		protected long end;
+		
+		protected Segment(FileChannel nchannel, long nstart, long nend) {
+			channel = nchannel;
+			start = nstart;
+			end = nend;
+		}
+		
+		@Override
+		public GameLogStats call() throws IOException, IllegalArgumentException {
+			GameLogStats stats = new GameLogStats();
+			stats.addAll(new MappedGameLogReader(channel, start, end));
+			return stats;
+		}
+	}
+	
+	protected int threads;
+	
+	/**
+	 * @param nthreads The number of file segments to read at once; must be at least 1.
+	 * @throws IllegalArgumentException
+	 */
+	public GameLogAnalyzer(int nthreads) throws IllegalArgumentException {
+		if(nthreads < 1) {
+			throw new IllegalArgumentException("Need at least 1 thread to analyze game logs, not " + nthreads + "!");
+		}
+		
+		threads = nthreads;
+	}
+	
+	/**
+	 * Reads every record in the given files.
+	 * @param fileNames The log files.
+	 * @return The statistics of all the records.
+	 * @throws IOException If a file can't be read.
+	 * @throws IllegalArgumentException If a file isn't a valid game log.
+	 */
+	public GameLogStats analyze(String[] fileNames) throws IOException, IllegalArgumentException {
+		Vector<FileChannel> channels = new Vector<FileChannel>(fileNames.length);
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		
+		try {
+			Vector<Future<GameLogStats>> futures = new Vector<Future<GameLogStats>>();
+			
+			for(String fileName : fileNames) {
+				FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+				channels.add(channel);
+				long[] bounds = MappedGameLogReader.split(channel, threads * SEGMENTS_PER_THREAD);
+				
+				for(int i = 0; i + 1 < bounds.length; i++) {
+					futures.add(pool.submit(new Segment(channel, bounds[i], bounds[i + 1])));
+				}
+			}
+			
+			GameLogStats total = new GameLogStats();
+			
+			for(Future<GameLogStats> f : futures) {
+				total.add(f.get());
+			}
+			
+			return total;
+		} catch(InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while analyzing game logs!");
+		} catch(ExecutionException ee) {
+			if(ee.getCause() instanceof IOException) {
+				throw (IOException)ee.getCause();
+			} else if(ee.getCause() instanceof IllegalArgumentException) {
+				throw (IllegalArgumentException)ee.getCause();
+			}
+			
+			IllegalStateException ise = new IllegalStateException("Analyzing a game log failed: " + ee.getCause());
+			ise.initCause(ee.getCause());
+			throw ise;
+		} finally {
+			pool.shutdownNow();
+			
+			for(FileChannel channel : channels) {
+				channel.close();
+			}
+		}
+	}
+	
+	/**
+	 * Parses the command line arguments described in the class documentation, analyzes the logs and prints the results.
+	 */
+	public static void main(String[] args) {
+		ConsoleIOHandler io = new ConsoleIOHandler();
+		int threads = Runtime.getRuntime().availableProcessors();
+		GameLogAnalyzer analyzer = null;
+		
+		try {
+			if(args.length > 1 && args[0].equals("-threads")) {
+				threads = Integer.parseInt(args[1]);
+				String[] rest = new String[args.length - 2];
+				System.arraycopy(args, 2, rest, 0, rest.length);
+				args = rest;
+			}
+			
+			if(args.length == 0) {
+				throw new IllegalArgumentException("expected at least one log file");
+			}
+			
+			analyzer = new GameLogAnalyzer(threads);
+		} catch(IllegalArgumentException iae) { // includes NumberFormatException
+			io.printErrorln("Invalid arguments: " + iae.getMessage());
+			io.printErrorln("Usage: GameLogAnalyzer [-threads threads] logfile...");
+			return;
+		}
+		
+		long start = System.nanoTime();
+		GameLogStats stats = null;
+		
+		try {
+			stats = analyzer.analyze(args);
+		} catch(IOException ioe) {
+			io.printErrorln("Couldn't read game logs: " + ioe);
+			return;
+		} catch(IllegalArgumentException iae) {
+			io.printErrorln(iae.getMessage());
+			return;
+		}
+		
+		long nanos = System.nanoTime() - start;
+		double seconds = nanos / 1000000000.0d;
+		io.println("Read " + stats.getBytes() + " bytes in " + (nanos / 1000000L) + "ms on " + threads + " threads, " +
+				String.format("%.1f", stats.getBytes() / seconds / (1 << 20)) + "MB/second, " + (long)(stats.getGames() / seconds) + " games/second.");
+		stats.printSummary(io);
+		io.flush();
+	}
+}
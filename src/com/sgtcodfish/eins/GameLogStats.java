@@ -0,0 +1,229 @@
+package com.sgtcodfish.eins;
+
+import com.sgtcodfish.eins.Card.CardType;
+
+/**
+ * Statistics over the records of game logs, collected from a {@link MappedGameLogReader} without allocating anything per record.
+ * Like {@link GameEventCounter}, each thread should have its own and combine them with {@link #add(GameLogStats)} afterwards.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class GameLogStats {
+	protected static final int SEATS_MAX = 256; /** One more than the biggest seat number or seat kind a log can hold. */
+	protected static final byte[] TYPE_OF_CODE = new byte[CardCode.KIND_COUNT]; /** The CardType ordinal of each code. */
+	
+	static {
+		for(int code = 0; code < CardCode.KIND_COUNT; code++) {
+			TYPE_OF_CODE[code] = (byte)CardCode.getType(code).ordinal();
+		}
+	}
+	
+	protected long games; /** The number of records read. */
+	protected long bytes; /** The total size of the records read. */
+	protected long turns; /** The number of turns which ended with a card played or a pass. */
+	protected long shortestGame; /** The fewest turns in a game. */
+	protected long longestGame; /** The most turns in a game. */
+	protected long[] cardsPlayed; /** The number of cards played of each type, indexed by CardType ordinal. */
+	protected long coloursChosen;
+	protected long cardsDrawn; /** The number of cards drawn by choice. */
+	protected long passes;
+	protected long einsShouts; /** The number of EINS shouts, correct or not. */
+	protected long accusations; /** The number of accusations, correct or not. */
+	protected long reseeds;
+	protected long gamesReseeded; /** The number of games in which the deck was reseeded at least once. */
+	protected long[] seatGames; /** The number of games with someone in each seat. */
+	protected long[] seatWins; /** The number of games won from each seat. */
+	protected long[] kindGames; /** The number of seats taken by each kind of player (see GameLog.seatKind). */
+	protected long[] kindWins; /** The number of games won by each kind of player. */
+	
+	/**
+	 * Creates statistics with every count at 0.
+	 */
+	public GameLogStats() {
+		shortestGame = Long.MAX_VALUE;
+		longestGame = 0L;
+		cardsPlayed = new long[CardType.values().length];
+		seatGames = new long[SEATS_MAX];
+		seatWins = new long[SEATS_MAX];
+		kindGames = new long[SEATS_MAX];
+		kindWins = new long[SEATS_MAX];
+	}
+	
+	/**
+	 * Adds the record r is currently on.
+	 */
+	public void add(MappedGameLogReader r) {
+		games++;
+		bytes += r.getRecordSize();
+		
+		int playerCount = r.getPlayerCount();
+		
+		for(int seat = 0; seat < playerCount; seat++) {
+			seatGames[seat]++;
+			kindGames[r.getSeatKind(seat)]++;
+		}
+		
+		int winner = r.getWinner();
+		seatWins[winner]++;
+		kindWins[r.getSeatKind(winner)]++;
+		
+		long gameTurns = 0L;
+		long gameReseeds = 0L;
+		int moveCount = r.getMoveCount();
+		
+		for(int i = 0; i < moveCount; i++) {
+			int move = r.getMove(i);
+			
+			if(GameLog.isCard(move)) {
+				cardsPlayed[TYPE_OF_CODE[move]]++;
+				gameTurns++;
+			} else if(GameLog.isColour(move)) {
+				coloursChosen++;
+			} else {
+				switch(move) {
+				case GameLog.DRAW:
+					cardsDrawn++;
+					break;
+				
+				case GameLog.PASS:
+					passes++;
+					gameTurns++;
+					break;
+				
+				case GameLog.EINS:
+					einsShouts++;
+					break;
+				
+				case GameLog.ACCUSE:
+					accusations++;
+					break;
+				
+				case GameLog.RESEED:
+					gameReseeds++;
+					break;
+				
+				default:
+					break;
+				}
+			}
+		}
+		
+		turns += gameTurns;
+		shortestGame = Math.min(shortestGame, gameTurns);
+		longestGame = Math.max(longestGame, gameTurns);
+		reseeds += gameReseeds;
+		
+		if(gameReseeds > 0L) {
+			gamesReseeded++;
+		}
+	}
+	
+	/**
+	 * Adds every record from r's current position to the end of its segment.
+	 * @throws IllegalArgumentException If a record is invalid.
+	 */
+	public void addAll(MappedGameLogReader r) throws IllegalArgumentException {
+		while(r.next()) {
+			add(r);
+		}
+	}
+	
+	/**
+	 * Adds all the counts from another set of statistics to these.
+	 * @param other The statistics to add.
+	 */
+	public void add(GameLogStats other) {
+		games += other.games;
+		bytes += other.bytes;
+		turns += other.turns;
+		shortestGame = Math.min(shortestGame, other.shortestGame);
+		longestGame = Math.max(longestGame, other.longestGame);
+		
+		for(int i = 0; i < cardsPlayed.length; i++) {
+			cardsPlayed[i] += other.cardsPlayed[i];
+		}
+		
+		coloursChosen += other.coloursChosen;
+		cardsDrawn += other.cardsDrawn;
+		passes += other.passes;
+		einsShouts += other.einsShouts;
+		accusations += other.accusations;
+		reseeds += other.reseeds;
+		gamesReseeded += other.gamesReseeded;
+		
+		for(int i = 0; i < SEATS_MAX; i++) {
+			seatGames[i] += other.seatGames[i];
+			seatWins[i] += other.seatWins[i];
+			kindGames[i] += other.kindGames[i];
+			kindWins[i] += other.kindWins[i];
+		}
+	}
+	
+	public long getGames() {
+		return games;
+	}
+	
+	public long getBytes() {
+		return bytes;
+	}
+	
+	public long getTurns() {
+		return turns;
+	}
+	
+	/**
+	 * @param type The type of card.
+	 * @return The number of cards of that type played.
+	 */
+	public long getCardsPlayed(CardType type) {
+		return cardsPlayed[type.ordinal()];
+	}
+	
+	public long getReseeds() {
+		return reseeds;
+	}
+	
+	/**
+	 * @return The fraction of games with someone in a seat that were won from that seat, or 0 if there were none.
+	 */
+	public double getSeatWinRate(int seat) {
+		return (seatGames[seat] == 0L ? 0.0d : (double)seatWins[seat] / seatGames[seat]);
+	}
+	
+	/**
+	 * @return The fraction of seats taken by a kind of player (see GameLog.seatKind) that won their game, or 0 if there were none.
+	 */
+	public double getKindWinRate(int kind) {
+		return (kindGames[kind] == 0L ? 0.0d : (double)kindWins[kind] / kindGames[kind]);
+	}
+	
+	/**
+	 * Prints a summary of the statistics, with averages per game.
+	 * @param io The IO handler to print to.
+	 */
+	public void printSummary(EINSIOHandler io) {
+		double perGame = (games == 0L ? 0.0d : 1.0d / games);
+		
+		io.println(games + " games, " + String.format("%.2f", turns * perGame) + " turns per game (shortest " + (games == 0L ? 0L : shortestGame) +
+				", longest " + longestGame + "), " + String.format("%.1f", bytes * perGame) + " bytes per game.");
+		
+		for(int seat = 0; seat < SEATS_MAX; seat++) {
+			if(seatGames[seat] != 0L) {
+				io.println("Seat " + (seat+1) + ": won " + seatWins[seat] + " of " + seatGames[seat] + " games (" + String.format("%.2f", 100.0d * getSeatWinRate(seat)) + "%)");
+			}
+		}
+		
+		for(int kind = 0; kind < SEATS_MAX; kind++) {
+			if(kindGames[kind] != 0L) {
+				io.println(GameLog.seatKindToString(kind) + ": won " + kindWins[kind] + " of " + kindGames[kind] + " seats (" + String.format("%.2f", 100.0d * getKindWinRate(kind)) + "%)");
+			}
+		}
+		
+		for(CardType type : CardType.values()) {
+			io.println(type + " played: " + getCardsPlayed(type) + " (" + String.format("%.2f", getCardsPlayed(type) * perGame) + " per game)");
+		}
+		
+		io.println("Cards drawn by choice: " + cardsDrawn + "; " + passes + " passes, " + coloursChosen + " colours chosen.");
+		io.println("EINS: " + einsShouts + " shouts, " + accusations + " accusations.");
+		io.println("Deck reseeded " + reseeds + " times, in " + gamesReseeded + " games (" + String.format("%.2f", 100.0d * gamesReseeded * perGame) + "%).");
+	}
+}
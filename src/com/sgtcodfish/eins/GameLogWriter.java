@@ -0,0 +1,230 @@
+package com.sgtcodfish.eins;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import com.sgtcodfish.eins.Card.CardColour;
+
+/**
+ * Writes every finished game at the tables it listens to as a record in a binary log file; see {@link GameLog} for the format.
+ * Add one to a table with {@link Table#addGameEventListener(GameEventListener)}; one writer can listen to any number of tables one after another
+ * (e.g. every game of a {@link Simulation}), but not to tables on different threads at the same time.
+ *
+ * Moves are put in a reused array as they happen, and finished records are collected in a buffer which is only appended to the file when it's full
+ * or the writer is closed, so the game loop never waits on the disk. Games that don't finish (e.g. because a player quit) aren't written.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class GameLogWriter implements GameEventListener, Closeable {
+	public static final int BUFFER_SIZE_DEFAULT = 1 << 16;
+	
+	protected FileChannel channel; /** The log file, opened for appending. */
+	protected ByteBuffer buffer; /** Finished records waiting to be written. */
+	protected byte[] record; /** The record of the game in progress. */
+	protected int recordLength; /** The number of bytes of record used. */
+	protected Table table; /** The table whose game is in progress, or null if there isn't one. */
+	protected long gamesWritten; /** The number of records written or waiting to be written. */
+	
+	/**
+	 * Opens a log file for appending, creating it if it doesn't exist.
+	 * @param fileName The name of the file.
+	 * @throws IOException
+	 */
+	public GameLogWriter(String fileName) throws IOException {
+		this(fileName, BUFFER_SIZE_DEFAULT);
+	}
+	
+	/**
+	 * Opens a log file for appending, creating it if it doesn't exist.
+	 * @param fileName The name of the file.
+	 * @param bufferSize How many bytes of records to collect before writing them to the file.
+	 * @throws IOException
+	 */
+	public GameLogWriter(String fileName, int bufferSize) throws IOException {
+		channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		buffer = ByteBuffer.allocate(bufferSize);
+		record = new byte[512];
+		recordLength = 0;
+		table = null;
+		gamesWritten = 0L;
+	}
+	
+	/**
+	 * Adds a byte to the record in progress, if there is one.
+	 */
+	protected void put(int b) {
+		if(table == null) {
+			return;
+		}
+		
+		if(recordLength == record.length) {
+			byte[] nrecord = new byte[record.length * 2];
+			System.arraycopy(record, 0, nrecord, 0, recordLength);
+			record = nrecord;
+		}
+		
+		record[recordLength++] = (byte)b;
+	}
+	
+	@Override
+	public void onGameStarted(Table t) {
+		table = t;
+		recordLength = 0;
+		
+		put(GameLog.FORMAT_VERSION);
+		
+		for(int shift = 56; shift >= 0; shift -= 8) {
+			put((int)(t.getSeed() >>> shift));
+		}
+		
+		put(t.players.size());
+		
+		for(CardEntity ce : t.players) {
+			put(GameLog.seatKind(ce));
+		}
+		
+		put(t.getPile().getTopCard().getCode());
+		
+		for(CardEntity ce : t.players) {
+			put(ce.countCards());
+			
+			for(int code = 0; code < CardCode.KIND_COUNT; code++) {
+				for(int i = ce.hand.count(code); i > 0; i--) {
+					put(code);
+				}
+			}
+		}
+	}
+	
+	@Override
+	public void onTurnStarted(CardEntity player) {
+	}
+	
+	@Override
+	public void onTurnEnded(CardEntity player) {
+	}
+	
+	@Override
+	public void onCardPlayed(CardEntity player, Card card, boolean changedColour) {
+		put(card.getCode());
+	}
+	
+	@Override
+	public void onColourChosen(CardEntity player, CardColour colour) {
+		put(GameLog.COLOUR + colour.ordinal());
+	}
+	
+	@Override
+	public void onDraw(CardEntity player, Card card, boolean forced) {
+		if(!forced) { // forced draws follow from the other moves and the seed.
+			put(GameLog.DRAW);
+		}
+	}
+	
+	@Override
+	public void onPass(CardEntity player) {
+		put(GameLog.PASS);
+	}
+	
+	@Override
+	public void onTurnSkipped(CardEntity player, Card cause) {
+	}
+	
+	@Override
+	public void onDirectionReversed(boolean reversed) {
+	}
+	
+	@Override
+	public void onEinsShout(CardEntity player, boolean correct) {
+		put(GameLog.EINS);
+	}
+	
+	@Override
+	public void onEinsAccusation(CardEntity accusor, boolean correct) {
+		put(GameLog.ACCUSE);
+	}
+	
+	@Override
+	public void onEinsForgotten(CardEntity player) {
+	}
+	
+	@Override
+	public void onDeckReseeded() {
+		put(GameLog.RESEED);
+	}
+	
+	/**
+	 * Finishes the record of the game and queues it to be written.
+	 * @throws IllegalStateException If the log file can't be written to.
+	 */
+	@Override
+	public void onGameWon(CardEntity winner) throws IllegalStateException {
+		if(table == null) {
+			return;
+		}
+		
+		put(GameLog.END);
+		put(table.players.indexOf(winner));
+		table = null;
+		
+		try {
+			if(buffer.remaining() < 4 + recordLength) {
+				flush();
+			}
+			
+			if(buffer.remaining() < 4 + recordLength) {
+				// bigger than the whole buffer, so write it straight out.
+				ByteBuffer single = ByteBuffer.allocate(4 + recordLength);
+				single.putInt(recordLength).put(record, 0, recordLength).flip();
+				writeFully(single);
+			} else {
+				buffer.putInt(recordLength).put(record, 0, recordLength);
+			}
+		} catch(IOException ioe) {
+			IllegalStateException ise = new IllegalStateException("Couldn't write to the game log: " + ioe);
+			ise.initCause(ioe);
+			throw ise;
+		}
+		
+		gamesWritten++;
+	}
+	
+	/**
+	 * Writes every finished record to the file.
+	 * @throws IOException
+	 */
+	public void flush() throws IOException {
+		buffer.flip();
+		writeFully(buffer);
+		buffer.clear();
+	}
+	
+	protected void writeFully(ByteBuffer b) throws IOException {
+		while(b.hasRemaining()) {
+			channel.write(b);
+		}
+	}
+	
+	/**
+	 * @return The number of games recorded so far.
+	 */
+	public long getGamesWritten() {
+		return gamesWritten;
+	}
+	
+	/**
+	 * Writes every finished record to the file and closes it. A game in progress is thrown away.
+	 * @throws IOException
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package com.sgtcodfish.eins;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * One game read back from a log written by {@link GameLogWriter}; see {@link GameLog} for the format.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class GameRecord {
+	protected long seed; /** The seed of the table the game was played at. */
+	protected byte[] seats; /** The kind of player in each seat; see GameLog.seatKind. */
+	protected int firstCard; /** The code of the first card turned over. */
+	protected byte[][] deal; /** The codes of the cards dealt to each seat, in ascending order. */
+	protected byte[] moves; /** Every move made, in order, not including END. */
+	protected int winner; /** The seat of the winner. */
+	
+	/**
+	 * Reads one record, starting at the length before it, and leaves buf's position at the start of the next record.
+	 * @param buf The buffer to read from.
+	 * @return The record read.
+	 * @throws IllegalArgumentException If the record is truncated or isn't a valid record.
+	 */
+	public static GameRecord read(ByteBuffer buf) throws IllegalArgumentException {
+		if(buf.remaining() < 4) {
+			throw new IllegalArgumentException("Truncated game log: no room for a record length at " + buf.position());
+		}
+		
+		int length = buf.getInt();
+		
+		if(length < 0 || length > buf.remaining()) {
+			throw new IllegalArgumentException("Truncated game log: record of " + length + " bytes at " + (buf.position() - 4) + " but only " + buf.remaining() + " left");
+		}
+		
+		int start = buf.position() - 4;
+		ByteBuffer rec = buf.slice(); // a view of just this record, so a bad record can't read into the next one.
+		rec.limit(length);
+		buf.position(buf.position() + length);
+		
+		try {
+			int version = rec.get() & 0xFF;
+			
+			if(version != GameLog.FORMAT_VERSION) {
+				throw new IllegalArgumentException("Game log record at " + start + " has unknown version " + version);
+			}
+			
+			GameRecord r = new GameRecord();
+			r.seed = rec.getLong();
+			r.seats = new byte[rec.get() & 0xFF];
+			rec.get(r.seats);
+			r.firstCard = rec.get() & 0xFF;
+			r.deal = new byte[r.seats.length][];
+			
+			for(int i = 0; i < r.seats.length; i++) {
+				r.deal[i] = new byte[rec.get() & 0xFF];
+				rec.get(r.deal[i]);
+			}
+			
+			// the moves run up to END and the winner's seat, which are the last 2 bytes.
+			int moveCount = rec.remaining() - 2;
+			
+			if(moveCount < 0) {
+				throw new IllegalArgumentException("Game log record at " + start + " is too short");
+			}
+			
+			r.moves = new byte[moveCount];
+			rec.get(r.moves);
+			
+			if((rec.get() & 0xFF) != GameLog.END) {
+				throw new IllegalArgumentException("Game log record at " + start + " doesn't finish with END");
+			}
+			
+			r.winner = rec.get() & 0xFF;
+			
+			if(r.winner >= r.seats.length) {
+				throw new IllegalArgumentException("Game log record at " + start + " has a winner in seat " + r.winner + " of " + r.seats.length);
+			}
+			
+			return r;
+		} catch(BufferUnderflowException bue) {
+			throw new IllegalArgumentException("Game log record at " + start + " is shorter than its contents");
+		}
+	}
+	
+	public long getSeed() {
+		return seed;
+	}
+	
+	public int getPlayerCount() {
+		return seats.length;
+	}
+	
+	/**
+	 * @return The kind of player in a seat; see GameLog.seatKind.
+	 */
+	public int getSeatKind(int seat) {
+		return seats[seat] & 0xFF;
+	}
+	
+	public int getFirstCard() {
+		return firstCard;
+	}
+	
+	/**
+	 * @return The codes of the cards dealt to a seat, in ascending order. Not a copy.
+	 */
+	public byte[] getDeal(int seat) {
+		return deal[seat];
+	}
+	
+	/**
+	 * @return Every move in the game, in order; see {@link GameLog}. Not a copy.
+	 */
+	public byte[] getMoves() {
+		return moves;
+	}
+	
+	public int getWinner() {
+		return winner;
+	}
+}
@@ -0,0 +1,308 @@
+package com.sgtcodfish.eins;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Vector;
+
+/**
+ * Plays games from a log written by {@link GameLogWriter} through the engine again, as fast as possible, checking that each one turns out the way it
+ * was recorded. Each game is played at a {@link Table} with the recorded seed, so the deck is shuffled the same way, and with a {@link ReplayPlayer}
+ * in each seat making the recorded moves.
+ *
+ * Usage: GameReplay logfile [-print game]
+ * With -print, only the given game (counting from 1) is replayed, and every move is printed as it would be in a normal game.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class GameReplay {
+	public static final int READ_BUFFER_SIZE = 1 << 20;
+	
+	protected EINSIOHandler output; /** The IO handler given to each table. */
+	protected ScoreList scores; /** The scores of every game replayed. */
+	
+	// the game being replayed.
+	protected GameRecord record;
+	protected int position; /** The index in record's moves of the next move. */
+	protected int reseedsLogged; /** The number of RESEEDs passed over in the moves. */
+	protected int reseedsPlayed; /** The number of times the deck was actually reseeded. */
+	protected boolean dealMatched;
+	protected int winner; /** The seat of the winner in the replay, or -1. */
+	
+	protected int recordsRead; /** The number of records read by replayFile. */
+	protected int gamesReplayed; /** The number of games which replayed the way they were recorded. */
+	protected int gamesMismatched; /** The number of games which didn't. */
+	
+	/**
+	 * Creates a replayer which discards all the output from the games.
+	 */
+	public GameReplay() {
+		this(new NullIOHandler());
+	}
+	
+	/**
+	 * @param noutput The IO handler given to each table; if its output is enabled, every move is printed.
+	 */
+	public GameReplay(EINSIOHandler noutput) {
+		output = noutput;
+		scores = new ScoreList();
+		recordsRead = 0;
+		gamesReplayed = 0;
+		gamesMismatched = 0;
+	}
+	
+	/**
+	 * Plays one recorded game through the engine.
+	 * @param r The record of the game.
+	 * @return true if the replay made every recorded move and ended the same way as the record, false if not.
+	 */
+	public boolean replay(GameRecord r) {
+		record = r;
+		position = 0;
+		reseedsLogged = 0;
+		reseedsPlayed = 0;
+		dealMatched = false;
+		winner = -1;
+		
+		Vector<CardEntity> players = new Vector<CardEntity>(r.getPlayerCount());
+		
+		for(int i = 0; i < r.getPlayerCount(); i++) {
+			players.add(new ReplayPlayer("Seat " + (i+1) + " (" + GameLog.seatKindToString(r.getSeatKind(i)) + ")", r.getSeatKind(i), this));
+		}
+		
+		final Table table;
+		
+		try {
+			table = new Table(output, players, r.getSeed());
+		} catch(IllegalArgumentException iae) {
+			gamesMismatched++;
+			return false;
+		}
+		
+		table.addGameEventListener(new GameEventAdapter() {
+			@Override
+			public void onGameStarted(Table t) {
+				dealMatched = matchesDeal(t);
+			}
+			
+			@Override
+			public void onDeckReseeded() {
+				reseedsPlayed++;
+			}
+			
+			@Override
+			public void onGameWon(CardEntity player) {
+				winner = table.players.indexOf(player);
+			}
+		});
+		
+		boolean aborted = table.mainLoop(scores);
+		
+		while(position < record.getMoves().length && (record.getMoves()[position] & 0xFF) == GameLog.RESEED) {
+			// a reseed can be logged after the last move if the winner's turn emptied the deck.
+			position++;
+			reseedsLogged++;
+		}
+		
+		boolean matched = !aborted && dealMatched && winner == record.getWinner() && position == record.getMoves().length && reseedsPlayed == reseedsLogged;
+		
+		if(matched) {
+			gamesReplayed++;
+		} else {
+			gamesMismatched++;
+		}
+		
+		record = null;
+		return matched;
+	}
+	
+	/**
+	 * @return true if the cards dealt and the first card turned over at t are the ones in the record.
+	 */
+	protected boolean matchesDeal(Table t) {
+		if(t.getPile().getTopCard().getCode() != record.getFirstCard()) {
+			return false;
+		}
+		
+		int[] counts = new int[CardCode.KIND_COUNT];
+		
+		for(int i = 0; i < record.getPlayerCount(); i++) {
+			CardEntity ce = t.players.elementAt(i);
+			byte[] dealt = record.getDeal(i);
+			
+			if(ce.countCards() != dealt.length) {
+				return false;
+			}
+			
+			for(int code = 0; code < counts.length; code++) {
+				counts[code] = 0;
+			}
+			
+			for(byte code : dealt) {
+				counts[code & 0xFF]++;
+			}
+			
+			for(int code = 0; code < counts.length; code++) {
+				if(ce.hand.count(code) != counts[code]) {
+					return false;
+				}
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Called by the {@link ReplayPlayer}s to get the next recorded move, skipping over reseeds.
+	 * @return The next move; see {@link GameLog}.
+	 * @throws IllegalStateException If every recorded move has been made.
+	 */
+	public int nextMove() throws IllegalStateException {
+		byte[] moves = record.getMoves();
+		
+		while(position < moves.length) {
+			int move = moves[position++] & 0xFF;
+			
+			if(move == GameLog.RESEED) {
+				reseedsLogged++;
+			} else {
+				return move;
+			}
+		}
+		
+		throw new IllegalStateException("Replay doesn't match the game: it has run out of recorded moves.");
+	}
+	
+	/**
+	 * Replays every game in a log file, or just one of them.
+	 * @param fileName The log file.
+	 * @param only The number of the only game to replay, counting from 1, or 0 to replay them all.
+	 * @param progress If non-null, a report is printed here for each game that doesn't replay correctly.
+	 * @return The number of records read from this file.
+	 * @throws IOException
+	 * @throws IllegalArgumentException If the file isn't a valid game log.
+	 */
+	public int replayFile(String fileName, int only, EINSIOHandler progress) throws IOException, IllegalArgumentException {
+		FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+		ByteBuffer buf = ByteBuffer.allocate(READ_BUFFER_SIZE);
+		int count = 0;
+		
+		try {
+			buf.limit(0);
+			
+			while(true) {
+				// read until the buffer holds at least one whole record.
+				while(buf.remaining() < 4 || buf.remaining() < 4 + buf.getInt(buf.position())) {
+					if(buf.remaining() >= 4 && 4 + buf.getInt(buf.position()) > buf.capacity()) {
+						ByteBuffer nbuf = ByteBuffer.allocate(4 + buf.getInt(buf.position()));
+						nbuf.put(buf);
+						buf = nbuf;
+					} else {
+						buf.compact();
+					}
+					
+					int read = channel.read(buf);
+					buf.flip();
+					
+					if(read < 0) {
+						if(buf.hasRemaining()) {
+							throw new IllegalArgumentException("Truncated game log: " + buf.remaining() + " bytes left over at the end of " + fileName);
+						}
+						
+						return count;
+					}
+				}
+				
+				GameRecord r = GameRecord.read(buf);
+				count++;
+				recordsRead++;
+				
+				if((only == 0 || count == only) && !replay(r) && progress != null) {
+					progress.println("Game " + count + " (seed " + r.getSeed() + ") didn't replay the way it was recorded!");
+				}
+				
+				if(count == only) {
+					return count;
+				}
+			}
+		} finally {
+			channel.close();
+		}
+	}
+	
+	/**
+	 * @return The number of records read by replayFile so far, whether or not they were replayed.
+	 */
+	public int getRecordsRead() {
+		return recordsRead;
+	}
+	
+	/**
+	 * @return The number of games which replayed the way they were recorded.
+	 */
+	public int getGamesReplayed() {
+		return gamesReplayed;
+	}
+	
+	/**
+	 * @return The number of games which didn't replay the way they were recorded.
+	 */
+	public int getGamesMismatched() {
+		return gamesMismatched;
+	}
+	
+	/**
+	 * @return The scores of every game replayed.
+	 */
+	public ScoreList getScores() {
+		return scores;
+	}
+	
+	/**
+	 * Parses the command line arguments described in the class documentation and replays the log.
+	 */
+	public static void main(String[] args) {
+		ConsoleIOHandler io = new ConsoleIOHandler();
+		int only = 0;
+		
+		try {
+			if(args.length == 3 && args[1].equals("-print")) {
+				only = Integer.parseInt(args[2]);
+				
+				if(only < 1) {
+					throw new IllegalArgumentException("games are numbered from 1");
+				}
+			} else if(args.length != 1) {
+				throw new IllegalArgumentException("expected a log file");
+			}
+		} catch(IllegalArgumentException iae) { // includes NumberFormatException
+			io.printErrorln("Invalid arguments: " + iae.getMessage());
+			io.printErrorln("Usage: GameReplay logfile [-print game]");
+			return;
+		}
+		
+		GameReplay replay = (only == 0 ? new GameReplay() : new GameReplay(io));
+		long start = System.nanoTime();
+		
+		try {
+			replay.replayFile(args[0], only, io);
+		} catch(IOException ioe) {
+			io.printErrorln("Couldn't read " + args[0] + ": " + ioe);
+			return;
+		} catch(IllegalArgumentException iae) {
+			io.printErrorln(iae.getMessage());
+		}
+		
+		long nanos = System.nanoTime() - start;
+		io.println("Read " + replay.getRecordsRead() + " games, replayed " + replay.getGamesReplayed() + " correctly and " + replay.getGamesMismatched() + " incorrectly in " +
+				(nanos / 1000000L) + "ms, " + (long)Simulation.gamesPerSecond(replay.getGamesReplayed() + replay.getGamesMismatched(), nanos) + " games/second.");
+		
+		if(only == 0) {
+			io.println("Final Scores:\n");
+			replay.getScores().printScoresFinal(io);
+		}
+		
+		io.flush();
+	}
+}
@@ -0,0 +1,792 @@
+package com.sgtcodfish.eins;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import com.sgtcodfish.eins.Card.CardColour;
+
+/**
+ * A flat copy of everything about a game in progress, for AIs that search ahead by playing out many possible futures.
+ *
+ * Unlike a {@link Table}, which is a graph of players, hands, a deck and a pile that all refer back to it, a GameState is a handful of primitive
+ * arrays and scalars: hands are counts of each {@link CardCode}, the deck and pile are arrays of codes, and the turn is three ints and a boolean.
+ * Copying one with {@link #copyFrom(GameState)} is a few array copies and never allocates, so a search can reset a scratch state millions of times.
+ * Take one from a table with {@link Table#snapshot()}.
+ *
+ * States can be used in two ways: as values, where {@link #after(int, Random)} leaves the state alone and returns the position after a move, or as
+ * scratch space, where {@link #apply(int, Random)} changes the state in place. Two states are equal if they describe the same position.
+ *
+ * Moves are ints: playing a card is its code, with the colour to choose in the bits above for BLACK cards (see {@link #playMove(int, int)}),
+ * and drawing is MOVE_DRAW; a legal card that's just been drawn must then be played. The rules are the same as Table's, apart from EINS: nobody is
+ * ever punished for forgetting it.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class GameState {
+	public static final int MOVE_DRAW = 0x100; /** Draw a card because there's nothing legal to play. */
+	public static final int MAX_MOVES = 64; /** The most moves that can ever be legal at once; the size for arrays given to legalMoves. */
+	
+	protected static final int CODE_BITS = 6; /** The number of bits of a move holding the card's code. */
+	protected static final int CODE_MASK = (1 << CODE_BITS) - 1;
+	protected static final int MAIN_COLOUR_COUNT = 4; /** The colours that can be chosen, i.e. every CardColour but BLACK. */
+	
+	protected static final int SCORE_CAP = 250; /** Hands worth this much or more are the worst possible result for a loser; see getReward. */
+	
+	protected int playerCount; /** The number of players; seats are numbered in the same order as the table's players. */
+	protected byte[] hands; /** The number of each kind of card held by each player, indexed by player * CardCode.KIND_COUNT + code. */
+	protected long[] handMasks; /** The kinds of card held by each player, as in {@link Hand#getMask()}. */
+	protected int[] handSizes; /** The number of cards held by each player. */
+	
+	protected byte[] deck; /** The codes of the cards in the deck, bottom first. */
+	protected int deckSize; /** The number of cards in the deck. */
+	protected byte[] pile; /** The codes of the cards in the pile, bottom first; the top card is pile[pileSize - 1]. */
+	protected int pileSize; /** The number of cards in the pile. */
+	
+	protected int currentPlayer; /** The seat of the player whose turn it is. */
+	protected boolean reversed; /** true if play is counter-clockwise. */
+	protected int currentColour; /** The ordinal of the current colour in play. */
+	protected int drawnCard; /** The code of the legal card the current player just drew and must play, or -1. */
+	protected int winner; /** The seat of the winner, or -1 if the game isn't over. */
+	
+	/**
+	 * Creates an empty state for a game with playerCount players. It's only useful once something is copied into it.
+	 * @param nplayerCount The number of players.
+	 */
+	public GameState(int nplayerCount) {
+		playerCount = nplayerCount;
+		hands = new byte[playerCount * CardCode.KIND_COUNT];
+		handMasks = new long[playerCount];
+		handSizes = new int[playerCount];
+		deck = new byte[CardCode.DECK_SIZE];
+		pile = new byte[CardCode.DECK_SIZE];
+		drawnCard = -1;
+		winner = -1;
+	}
+	
+	/**
+	 * Creates a copy of the game at a table as it is now.
+	 * @param table The table to copy.
+	 */
+	public GameState(Table table) {
+		this(table.players.size());
+		copyFrom(table);
+	}
+	
+	/**
+	 * Creates a copy of another state.
+	 * @param other The state to copy.
+	 */
+	public GameState(GameState other) {
+		this(other.playerCount);
+		copyFrom(other);
+	}
+	
+	/**
+	 * Makes this state a copy of another state for the same number of players, without allocating anything.
+	 * @param other The state to copy.
+	 * @throws IllegalArgumentException If other has a different number of players.
+	 */
+	public void copyFrom(GameState other) throws IllegalArgumentException {
+		if(other.playerCount != playerCount) {
+			throw new IllegalArgumentException("Trying to copy a GameState for " + other.playerCount + " players into one for " + playerCount + "!");
+		}
+		
+		System.arraycopy(other.hands, 0, hands, 0, hands.length);
+		System.arraycopy(other.handMasks, 0, handMasks, 0, playerCount);
+		System.arraycopy(other.handSizes, 0, handSizes, 0, playerCount);
+		System.arraycopy(other.deck, 0, deck, 0, other.deckSize);
+		System.arraycopy(other.pile, 0, pile, 0, other.pileSize);
+		deckSize = other.deckSize;
+		pileSize = other.pileSize;
+		currentPlayer = other.currentPlayer;
+		reversed = other.reversed;
+		currentColour = other.currentColour;
+		drawnCard = other.drawnCard;
+		winner = other.winner;
+	}
+	
+	/**
+	 * Makes this state a copy of the game at a table as it is now, with the same number of players as this state.
+	 * @param table The table to copy.
+	 * @throws IllegalArgumentException If the table has a different number of players.
+	 */
+	public void copyFrom(Table table) throws IllegalArgumentException {
+		if(table.players.size() != playerCount) {
+			throw new IllegalArgumentException("Trying to copy a table of " + table.players.size() + " players into a GameState for " + playerCount + "!");
+		}
+		
+		winner = -1;
+		
+		for(int p = 0; p < playerCount; p++) {
+			Hand hand = table.players.elementAt(p).hand;
+			
+			for(int code = 0; code < CardCode.KIND_COUNT; code++) {
+				hands[p * CardCode.KIND_COUNT + code] = (byte)hand.count(code);
+			}
+			
+			handMasks[p] = hand.getMask();
+			handSizes[p] = hand.size();
+			
+			if(handSizes[p] == 0) {
+				winner = p;
+			}
+		}
+		
+		// the deck and pile share one buffer; see CardBuffer.
+		CardBuffer buffer = table.getDeck().getBuffer();
+		deckSize = buffer.getDeckSize();
+		pileSize = buffer.getPileSize();
+		
+		for(int i = 0; i < deckSize; i++) {
+			deck[i] = buffer.peekDeck(i);
+		}
+		
+		for(int i = 0; i < pileSize; i++) {
+			pile[pileSize - 1 - i] = buffer.peekPile(i);
+		}
+		
+		currentPlayer = table.currentPlayer;
+		reversed = table.reversed;
+		currentColour = table.getCurrentColour().ordinal();
+		drawnCard = -1;
+	}
+	
+	/**
+	 * Makes a move for a card.
+	 * @param code The code of the card to play.
+	 * @param colour The ordinal of the colour to choose if the card is BLACK; ignored otherwise.
+	 * @return The move.
+	 */
+	public static int playMove(int code, int colour) {
+		return (CardCode.isBlack(code) ? code | (colour << CODE_BITS) : code);
+	}
+	
+	/**
+	 * @return true if move plays a card, false if it's MOVE_DRAW.
+	 */
+	public static boolean isPlayMove(int move) {
+		return move < MOVE_DRAW;
+	}
+	
+	/**
+	 * @return The code of the card played by move.
+	 */
+	public static int getMoveCode(int move) {
+		return move & CODE_MASK;
+	}
+	
+	/**
+	 * @return The ordinal of the colour chosen by move, which only means anything if it plays a BLACK card.
+	 */
+	public static int getMoveColour(int move) {
+		return move >>> CODE_BITS;
+	}
+	
+	/**
+	 * @return A description of move, e.g. "(Blk)(Wild Card)[50] choosing GREEN" or "draw".
+	 */
+	public static String moveToString(int move) {
+		if(move == MOVE_DRAW) {
+			return "draw";
+		} else if(CardCode.isBlack(getMoveCode(move))) {
+			return CardCode.toString(getMoveCode(move)) + " choosing " + CardColour.values()[getMoveColour(move)];
+		} else {
+			return CardCode.toString(move);
+		}
+	}
+	
+	public int getPlayerCount() {
+		return playerCount;
+	}
+	
+	public int getCurrentPlayer() {
+		return currentPlayer;
+	}
+	
+	public boolean isReversed() {
+		return reversed;
+	}
+	
+	/**
+	 * @return The ordinal of the current colour in play.
+	 */
+	public int getCurrentColour() {
+		return currentColour;
+	}
+	
+	/**
+	 * @return The code of the top card of the pile.
+	 */
+	public int getTopCard() {
+		return pile[pileSize - 1];
+	}
+	
+	/**
+	 * @return The code of the card the current player has just drawn and must play, or -1 if they haven't drawn one.
+	 */
+	public int getDrawnCard() {
+		return drawnCard;
+	}
+	
+	/**
+	 * Records that the current player has just drawn a legal card (already in their hand) and must now play it, choosing a colour if it's BLACK.
+	 * Used when copying a table in the middle of a turn.
+	 * @param code The code of the card drawn, or -1 to clear it.
+	 */
+	public void setDrawnCard(int code) {
+		drawnCard = code;
+	}
+	
+	/**
+	 * @return The seat of the player who won, or -1 if the game isn't over.
+	 */
+	public int getWinner() {
+		return winner;
+	}
+	
+	/**
+	 * @return true if someone has won.
+	 */
+	public boolean isFinished() {
+		return winner >= 0;
+	}
+	
+	public int getDeckSize() {
+		return deckSize;
+	}
+	
+	public int getPileSize() {
+		return pileSize;
+	}
+	
+	/**
+	 * @return The number of cards held by player.
+	 */
+	public int getHandSize(int player) {
+		return handSizes[player];
+	}
+	
+	/**
+	 * @return The number of cards with the given code held by player.
+	 */
+	public int getHandCount(int player, int code) {
+		return hands[player * CardCode.KIND_COUNT + code];
+	}
+	
+	/**
+	 * @return A bitmask of the kinds of card held by player.
+	 */
+	public long getHandMask(int player) {
+		return handMasks[player];
+	}
+	
+	/**
+	 * @return The total value of the cards held by player, i.e. the score they'd get if the game ended now.
+	 */
+	public int getHandValue(int player) {
+		int total = 0;
+		long m = handMasks[player];
+		
+		while(m != 0L) {
+			int code = Long.numberOfTrailingZeros(m);
+			total += hands[player * CardCode.KIND_COUNT + code] * CardCode.getValue(code);
+			m &= m - 1L;
+		}
+		
+		return total;
+	}
+	
+	/**
+	 * How good the end of a game was for a player, between 0 and 1. Winning is worth 1; since lower scores are better in a {@link ScoreList},
+	 * losing is worth between 0.5 (with no points left in hand) and 0 (with SCORE_CAP points or more).
+	 * @param player The seat to score.
+	 * @return The reward for player.
+	 */
+	public double getReward(int player) {
+		if(winner == player) {
+			return 1.0d;
+		}
+		
+		int value = Math.min(getHandValue(player), SCORE_CAP);
+		return 0.5d * (SCORE_CAP - value) / SCORE_CAP;
+	}
+	
+	/**
+	 * @return A bitmask of the kinds of card the current player could play right now, ignoring any card they've just drawn.
+	 */
+	public long getLegalMask() {
+		return handMasks[currentPlayer] & CardCode.legalMask(getTopCard(), currentColour);
+	}
+	
+	/**
+	 * @return Every move the current player can make, in a new array of the right length; see legalMoves(int[]) to avoid allocating.
+	 */
+	public int[] legalMoves() {
+		int[] moves = new int[MAX_MOVES];
+		return Arrays.copyOf(moves, legalMoves(moves));
+	}
+	
+	/**
+	 * @param move A move.
+	 * @return true if the current player can make move right now.
+	 */
+	public boolean isLegalMove(int move) {
+		if(winner >= 0) {
+			return false;
+		} else if(drawnCard >= 0) {
+			return isPlayOf(move, drawnCard);
+		} else if(move == MOVE_DRAW) {
+			return getLegalMask() == 0L;
+		} else if(!isPlayMove(move)) {
+			return false;
+		}
+		
+		int code = getMoveCode(move);
+		return ((getLegalMask() >>> code) & 1L) != 0L && isPlayOf(move, code);
+	}
+	
+	/**
+	 * @return true if move is one of the moves that play the card with the given code.
+	 */
+	protected static boolean isPlayOf(int move, int code) {
+		if(CardCode.isBlack(code)) {
+			return getMoveCode(move) == code && getMoveColour(move) < MAIN_COLOUR_COUNT;
+		} else {
+			return move == code;
+		}
+	}
+	
+	/**
+	 * Lists every move the current player can make. BLACK cards give one move for each colour that could be chosen.
+	 * @param moves Filled with the moves; must have room for MAX_MOVES.
+	 * @return The number of moves, 0 if the game is over.
+	 */
+	public int legalMoves(int[] moves) {
+		if(winner >= 0) {
+			return 0;
+		}
+		
+		int count = 0;
+		
+		if(drawnCard >= 0) {
+			return addPlayMoves(moves, count, drawnCard); // a legal card that's been drawn has to be played
+		}
+		
+		long legal = getLegalMask();
+		
+		if(legal == 0L) {
+			moves[count++] = MOVE_DRAW;
+			return count;
+		}
+		
+		while(legal != 0L) {
+			count = addPlayMoves(moves, count, Long.numberOfTrailingZeros(legal));
+			legal &= legal - 1L;
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Adds the moves for playing one kind of card to moves.
+	 * @return The new number of moves.
+	 */
+	protected int addPlayMoves(int[] moves, int count, int code) {
+		if(CardCode.isBlack(code)) {
+			for(int colour = 0; colour < MAIN_COLOUR_COUNT; colour++) {
+				moves[count++] = playMove(code, colour);
+			}
+		} else {
+			moves[count++] = code;
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Works out the position after a move without changing this state.
+	 * @param move The move for the current player to make.
+	 * @param random Used to shuffle the pile if the deck runs out.
+	 * @return A new state, with move applied.
+	 * @throws IllegalArgumentException If move isn't legal.
+	 */
+	public GameState after(int move, Random random) throws IllegalArgumentException {
+		if(!isLegalMove(move)) {
+			throw new IllegalArgumentException("Trying to make an illegal move (" + moveToString(move) + ")!");
+		}
+		
+		GameState result = new GameState(this);
+		result.apply(move, random);
+		return result;
+	}
+	
+	/**
+	 * Makes a move for the current player. The move is assumed to be one of those given by legalMoves.
+	 * @param move The move to make.
+	 * @param random Used to shuffle the pile if the deck runs out.
+	 * @throws IllegalStateException If the game is already over.
+	 */
+	public void apply(int move, Random random) throws IllegalStateException {
+		if(winner >= 0) {
+			throw new IllegalStateException("Trying to make a move in a finished game!");
+		}
+		
+		if(move == MOVE_DRAW) {
+			int code = draw(currentPlayer, random);
+			
+			if(code >= 0 && CardCode.isLegal(code, getTopCard(), currentColour)) {
+				drawnCard = code; // the same player now has to play it
+			} else {
+				advance();
+			}
+		} else {
+			drawnCard = -1;
+			playCard(getMoveCode(move), getMoveColour(move), random);
+		}
+	}
+	
+	/**
+	 * Plays a card from the current player's hand, with the same effects as {@link Table#playCard(CardEntity, Card)}.
+	 */
+	protected void playCard(int code, int colour, Random random) {
+		int player = currentPlayer;
+		remove(player, code);
+		pile[pileSize++] = (byte)code;
+		
+		if(CardCode.isBlack(code)) {
+			currentColour = colour;
+			advance();
+			
+			if(code == CardCode.CODE_CHANGECOLFOUR) {
+				// the same 3 cards as Table draws for a CHANGECOLFOUR.
+				for(int i = 0; i < 3; i++) {
+					draw(currentPlayer, random);
+				}
+				
+				advance();
+			}
+		} else {
+			// a legal coloured card always leaves its own colour in play.
+			currentColour = CardCode.getColourIndex(code);
+			
+			switch(code % CardCode.FACES_PER_COLOUR) {
+			case CardCode.FACE_SKIP:
+				advance();
+				break;
+			
+			case CardCode.FACE_REVERSE:
+				reversed = !reversed;
+				break;
+			
+			case CardCode.FACE_PICKTWO:
+				advance();
+				draw(currentPlayer, random);
+				draw(currentPlayer, random);
+				break;
+			
+			default:
+				break;
+			}
+			
+			advance();
+		}
+		
+		if(handSizes[player] == 0) {
+			winner = player;
+		}
+	}
+	
+	/**
+	 * Moves the turn on to the next player in the direction of play.
+	 */
+	protected void advance() {
+		if(!reversed) {
+			currentPlayer = (currentPlayer + 1 == playerCount ? 0 : currentPlayer + 1);
+		} else {
+			currentPlayer = (currentPlayer == 0 ? playerCount - 1 : currentPlayer - 1);
+		}
+	}
+	
+	/**
+	 * Moves the top card of the deck into a player's hand, turning over the pile if that empties the deck.
+	 * @return The code of the card drawn, or -1 if there were no cards to draw.
+	 */
+	protected int draw(int player, Random random) {
+		if(deckSize == 0) {
+			return -1;
+		}
+		
+		int code = deck[--deckSize];
+		add(player, code);
+		
+		if(deckSize == 0) {
+			reseed(random);
+		}
+		
+		return code;
+	}
+	
+	/**
+	 * Turns the pile, apart from its top card, into a new shuffled deck, as {@link Deck#reseed()} does.
+	 */
+	protected void reseed(Random random) {
+		if(pileSize <= 1) {
+			return;
+		}
+		
+		deckSize = pileSize - 1;
+		System.arraycopy(pile, 0, deck, 0, deckSize);
+		pile[0] = pile[pileSize - 1];
+		pileSize = 1;
+		shuffle(deck, deckSize, random);
+	}
+	
+	protected void add(int player, int code) {
+		hands[player * CardCode.KIND_COUNT + code]++;
+		handMasks[player] |= (1L << code);
+		handSizes[player]++;
+	}
+	
+	protected void remove(int player, int code) {
+		if(--hands[player * CardCode.KIND_COUNT + code] == 0) {
+			handMasks[player] &= ~(1L << code);
+		}
+		
+		handSizes[player]--;
+	}
+	
+	/**
+	 * A Fisher-Yates shuffle of the first length codes of an array.
+	 */
+	protected static void shuffle(byte[] codes, int length, Random random) {
+		for(int i = length - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			byte temp = codes[i];
+			codes[i] = codes[j];
+			codes[j] = temp;
+		}
+	}
+	
+	/**
+	 * Replaces everything the observer can't see with a random guess that's consistent with what they can see: every other player's hand and the deck
+	 * are shuffled together and dealt out again, so every hand keeps its size and the observer's hand, the pile and the turn are unchanged.
+	 * Searching many of these guesses is how an AI copes with not knowing the other hands.
+	 * @param observer The seat whose view is kept.
+	 * @param random The random number generator to use.
+	 */
+	public void determinize(int observer, Random random) {
+		// gather every hidden card at the end of the pile array, past the cards really in the pile.
+		int hidden = pileSize;
+		
+		for(int p = 0; p < playerCount; p++) {
+			if(p == observer) {
+				continue;
+			}
+			
+			long m = handMasks[p];
+			
+			while(m != 0L) {
+				int code = Long.numberOfTrailingZeros(m);
+				
+				for(int i = hands[p * CardCode.KIND_COUNT + code]; i > 0; i--) {
+					pile[hidden++] = (byte)code;
+				}
+				
+				hands[p * CardCode.KIND_COUNT + code] = 0;
+				m &= m - 1L;
+			}
+			
+			handMasks[p] = 0L;
+		}
+		
+		System.arraycopy(deck, 0, pile, hidden, deckSize);
+		hidden += deckSize;
+		
+		// shuffle them and deal them back out.
+		int count = hidden - pileSize;
+		
+		for(int i = count - 1; i > 0; i--) {
+			int j = pileSize + random.nextInt(i + 1);
+			byte temp = pile[pileSize + i];
+			pile[pileSize + i] = pile[j];
+			pile[j] = temp;
+		}
+		
+		int next = pileSize;
+		
+		for(int p = 0; p < playerCount; p++) {
+			if(p == observer) {
+				continue;
+			}
+			
+			for(int i = 0; i < handSizes[p]; i++) {
+				int code = pile[next++];
+				hands[p * CardCode.KIND_COUNT + code]++;
+				handMasks[p] |= (1L << code);
+			}
+		}
+		
+		System.arraycopy(pile, next, deck, 0, deckSize);
+	}
+	
+	/**
+	 * Plays the game to the end with every player choosing a random legal card (each card in hand equally likely), choosing the colour they hold most of
+	 * for BLACK cards, and always playing a card they've drawn if they can.
+	 * @param random The random number generator to use.
+	 * @param maxMoves The most moves to make before giving up, in case nobody can ever win.
+	 * @return The number of moves made.
+	 */
+	public int playout(Random random, int maxMoves) {
+		int moves = 0;
+		
+		if(winner < 0 && drawnCard >= 0) {
+			int code = drawnCard;
+			drawnCard = -1;
+			playCard(code, mostHeldColour(currentPlayer), random);
+			moves++;
+		}
+		
+		while(winner < 0 && moves < maxMoves) {
+			int player = currentPlayer;
+			long legal = getLegalMask();
+			int code;
+			
+			if(legal == 0L) {
+				code = draw(player, random);
+				
+				if(code < 0 || !CardCode.isLegal(code, getTopCard(), currentColour)) {
+					advance();
+					moves++;
+					continue;
+				}
+			} else {
+				code = pickRandom(player, legal, random);
+			}
+			
+			playCard(code, (CardCode.isBlack(code) ? mostHeldColour(player) : 0), random);
+			moves++;
+		}
+		
+		return moves;
+	}
+	
+	/**
+	 * Picks a random card from those held by player whose kinds are in kinds, as {@link Hand#pickRandom(long, Random)} does.
+	 */
+	protected int pickRandom(int player, long kinds, Random random) {
+		int offset = player * CardCode.KIND_COUNT;
+		long m = handMasks[player] & kinds;
+		int total = 0;
+		
+		for(long t = m; t != 0L; t &= t - 1L) {
+			total += hands[offset + Long.numberOfTrailingZeros(t)];
+		}
+		
+		int index = random.nextInt(total);
+		
+		while(true) {
+			int code = Long.numberOfTrailingZeros(m);
+			index -= hands[offset + code];
+			
+			if(index < 0) {
+				return code;
+			}
+			
+			m &= m - 1L;
+		}
+	}
+	
+	/**
+	 * @return The ordinal of the colour player holds the most cards of; the first such colour if there's a tie.
+	 */
+	protected int mostHeldColour(int player) {
+		int offset = player * CardCode.KIND_COUNT;
+		int best = 0;
+		int bestCount = -1;
+		
+		for(int colour = 0; colour < MAIN_COLOUR_COUNT; colour++) {
+			int count = 0;
+			
+			for(int face = 0; face < CardCode.FACES_PER_COLOUR; face++) {
+				count += hands[offset + colour * CardCode.FACES_PER_COLOUR + face];
+			}
+			
+			if(count > bestCount) {
+				best = colour;
+				bestCount = count;
+			}
+		}
+		
+		return best;
+	}
+	
+	@Override
+	public boolean equals(Object o) {
+		if(this == o) {
+			return true;
+		} else if(!(o instanceof GameState)) {
+			return false;
+		}
+		
+		GameState other = (GameState)o;
+		
+		if(playerCount != other.playerCount || deckSize != other.deckSize || pileSize != other.pileSize || currentPlayer != other.currentPlayer ||
+				reversed != other.reversed || currentColour != other.currentColour || drawnCard != other.drawnCard || winner != other.winner) {
+			return false;
+		}
+		
+		// only the used parts of the deck and pile matter.
+		for(int i = 0; i < deckSize; i++) {
+			if(deck[i] != other.deck[i]) {
+				return false;
+			}
+		}
+		
+		for(int i = 0; i < pileSize; i++) {
+			if(pile[i] != other.pile[i]) {
+				return false;
+			}
+		}
+		
+		return Arrays.equals(hands, other.hands);
+	}
+	
+	@Override
+	public int hashCode() {
+		int result = Arrays.hashCode(hands);
+		
+		for(int i = 0; i < deckSize; i++) {
+			result = 31 * result + deck[i];
+		}
+		
+		for(int i = 0; i < pileSize; i++) {
+			result = 31 * result + pile[i];
+		}
+		
+		result = 31 * result + currentPlayer;
+		result = 31 * result + (reversed ? 1 : 0);
+		result = 31 * result + currentColour;
+		result = 31 * result + drawnCard;
+		return result;
+	}
+	
+	/**
+	 * @return A short description of the position, e.g. for debugging a search.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("GameState[top ").append(CardCode.toString(getTopCard())).append(", colour ").append(CardColour.values()[currentColour]);
+		sb.append(", player ").append(currentPlayer).append(reversed ? " (counter-clockwise)" : "");
+		sb.append(", deck ").append(deckSize).append(", pile ").append(pileSize).append(", hands");
+		
+		for(int p = 0; p < playerCount; p++) {
+			sb.append(' ').append(handSizes[p]);
+		}
+		
+		if(winner >= 0) {
+			sb.append(", won by ").append(winner);
+		}
+		
+		return sb.append(']').toString();
+	}
+}
@@ -0,0 +1,244 @@
+package com.sgtcodfish.eins;
+
+import java.util.Random;
+
+/**
+ * A hand of cards stored as a count of each {@link CardCode} rather than as a list of {@link Card}s.
+ *
+ * Alongside the counts, a bitmask of which kinds are held (bit n set if at least one card with code n is held) and per-colour totals are kept up to date
+ * as cards are added and removed, so that questions like "which of my cards are legal?" or "how many red cards do I have?" don't need to look at every card.
+ * Since there are only CardCode.KIND_COUNT (54) kinds of card, the bitmask fits in a long; masks of legal cards are given by {@link CardCode#legalMask(int, int)}.
+ *
+ * The order the cards were added in is kept too, as the list of cards used to keep it, so that choices which went to the first suitable card in
+ * the hand (see {@link #pickFirst(long)} and {@link #pickHighestValue(long)}) still go to the same card.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class Hand {
+	protected byte[] counts; /** The number of each kind of card held, indexed by code. */
+	protected long mask; /** Bit n is set if counts[n] > 0. */
+	protected int[] colourCounts; /** The number of cards of each colour held, indexed by CardColour ordinal. */
+	protected int[] colourValues; /** The total value of the cards of each colour held, indexed by CardColour ordinal. */
+	protected int size; /** The total number of cards held. */
+	protected int totalValue; /** The total value of all cards held. */
+	protected byte[] order; /** The codes of the cards held in the order they were added; the first size are used. */
+	
+	/**
+	 * Creates an empty hand.
+	 */
+	public Hand() {
+		counts = new byte[CardCode.KIND_COUNT];
+		colourCounts = new int[CardCode.COLOUR_COUNT];
+		colourValues = new int[CardCode.COLOUR_COUNT];
+		order = new byte[16];
+		clear();
+	}
+	
+	/**
+	 * Removes every card from the hand.
+	 */
+	public void clear() {
+		for(int i = 0; i < counts.length; i++) {
+			counts[i] = 0;
+		}
+		
+		for(int i = 0; i < colourCounts.length; i++) {
+			colourCounts[i] = 0;
+			colourValues[i] = 0;
+		}
+		
+		mask = 0L;
+		size = 0;
+		totalValue = 0;
+	}
+	
+	/**
+	 * Adds a card to the hand.
+	 * @param code The code of the card to add.
+	 */
+	public void add(int code) {
+		int value = CardCode.getValue(code);
+		int colour = CardCode.getColourIndex(code);
+		
+		if(size == order.length) {
+			byte[] norder = new byte[order.length * 2];
+			System.arraycopy(order, 0, norder, 0, size);
+			order = norder;
+		}
+		
+		order[size] = (byte)code;
+		counts[code]++;
+		mask |= (1L << code);
+		colourCounts[colour]++;
+		colourValues[colour] += value;
+		size++;
+		totalValue += value;
+	}
+	
+	/**
+	 * Removes one card from the hand; of the cards with the given code, the one that was added first is removed.
+	 * @param code The code of the card to remove.
+	 * @return true if the card was removed, false if there was no such card in the hand.
+	 */
+	public boolean remove(int code) {
+		if(counts[code] == 0) {
+			return false;
+		}
+		
+		int value = CardCode.getValue(code);
+		int colour = CardCode.getColourIndex(code);
+		
+		if(--counts[code] == 0) {
+			mask &= ~(1L << code);
+		}
+		
+		int index = 0;
+		
+		while(order[index] != code) {
+			index++;
+		}
+		
+		System.arraycopy(order, index + 1, order, index, size - index - 1);
+		
+		colourCounts[colour]--;
+		colourValues[colour] -= value;
+		size--;
+		totalValue -= value;
+		return true;
+	}
+	
+	/**
+	 * @return true if the hand has at least one card with the given code.
+	 */
+	public boolean contains(int code) {
+		return ((mask >>> code) & 1L) != 0L;
+	}
+	
+	/**
+	 * @return The number of cards with the given code in the hand.
+	 */
+	public int count(int code) {
+		return counts[code];
+	}
+	
+	/**
+	 * @return A bitmask of the kinds of card held; bit n is set if the hand has at least one card with code n.
+	 */
+	public long getMask() {
+		return mask;
+	}
+	
+	/**
+	 * @return The total number of cards in the hand.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * @return The total value of all the cards in the hand.
+	 */
+	public int getTotalValue() {
+		return totalValue;
+	}
+	
+	/**
+	 * @param colour The ordinal of the CardColour to count.
+	 * @return The number of cards of the given colour in the hand.
+	 */
+	public int countOfColour(int colour) {
+		return colourCounts[colour];
+	}
+	
+	/**
+	 * @param colour The ordinal of the CardColour to total.
+	 * @return The total value of the cards of the given colour in the hand.
+	 */
+	public int valueOfColour(int colour) {
+		return colourValues[colour];
+	}
+	
+	/**
+	 * Counts the cards in the hand whose kinds are in kinds, counting duplicates separately.
+	 * @param kinds A bitmask of kinds of card, e.g. from {@link CardCode#legalMask(int, int)}.
+	 * @return The number of cards held with a code in kinds.
+	 */
+	public int count(long kinds) {
+		long m = mask & kinds;
+		int total = 0;
+		
+		while(m != 0L) {
+			total += counts[Long.numberOfTrailingZeros(m)];
+			m &= m - 1L; // clear the lowest set bit
+		}
+		
+		return total;
+	}
+	
+	/**
+	 * Picks a random card from those in the hand whose kinds are in kinds, with each card (not each kind) equally likely.
+	 * @param kinds A bitmask of kinds of card.
+	 * @param random The random number generator to use.
+	 * @return The code of the chosen card, or -1 if the hand has no cards in kinds.
+	 */
+	public int pickRandom(long kinds, Random random) {
+		int total = count(kinds);
+		
+		if(total == 0) {
+			return -1;
+		}
+		
+		int index = random.nextInt(total);
+		long m = mask & kinds;
+		
+		while(true) {
+			int code = Long.numberOfTrailingZeros(m);
+			index -= counts[code];
+			
+			if(index < 0) {
+				return code;
+			}
+			
+			m &= m - 1L;
+		}
+	}
+	
+	/**
+	 * Finds the card that was added to the hand first of those whose kinds are in kinds.
+	 * @param kinds A bitmask of kinds of card.
+	 * @return The code of the chosen card, or -1 if the hand has no cards in kinds.
+	 */
+	public int pickFirst(long kinds) {
+		if((mask & kinds) == 0L) {
+			return -1;
+		}
+		
+		for(int i = 0; i < size; i++) {
+			if(((kinds >>> order[i]) & 1L) != 0L) {
+				return order[i];
+			}
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Finds the highest value card in the hand whose kind is in kinds. If there's a tie, the card that was added first is chosen.
+	 * @param kinds A bitmask of kinds of card.
+	 * @return The code of the chosen card, or -1 if the hand has no cards in kinds.
+	 */
+	public int pickHighestValue(long kinds) {
+		int best = -1;
+		int bestValue = -1;
+		
+		for(int i = 0; i < size; i++) {
+			int code = order[i];
+			
+			if(((kinds >>> code) & 1L) != 0L && CardCode.getValue(code) > bestValue) {
+				best = code;
+				bestValue = CardCode.getValue(code);
+			}
+		}
+		
+		return best;
+	}
+}
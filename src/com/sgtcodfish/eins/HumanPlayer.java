@@ -8,14 +8,37 @@ import com.sgtcodfish.eins.Card.CardColour;
 
 /**
  * Defines a human player. Usually handled by {@link Table the Table class}.
+ *
+ * A turn is a small state machine: a menu is shown, the player's answer is received, and the action they chose is applied, after which either
+ * another menu is shown or the turn is over. doTurn() and askForColour() drive it by reading from the table's IO handler until it's done,
+ * which holds the calling thread while the player thinks. A table that's been made suspendable (see {@link Table#setSuspendable(boolean)})
+ * instead calls startTurn() and returns, and passes each line the player sends to onInput() through {@link Table#resume(String)}, so nothing
+ * waits for the player at all.
  * @author Ashley Davis (SgtCoDFish).
  */
 public class HumanPlayer extends CardEntity {
+	/**
+	 * What the player is being asked for.
+	 */
+	public enum TurnState {
+		NONE, // not waiting for anything.
+		MOVE, // choosing from the main menu of their turn.
+		DRAWN, // choosing whether to play the card they just drew.
+		COLOUR; // choosing the colour for a BLACK card.
+	}
+	
 	protected String name;
 	
 	protected boolean didAccuse = false; // true if the player accused others of saying EINS this turn. Protects against humans drawing the whole deck.
 	protected boolean didSayEINS = false; // true if the player shouted EINS this turn. Protects against humans drawing the whole deck.
 	
+	protected TurnState state = TurnState.NONE;
+	protected Vector<Card> legal = new Vector<Card>(); /** The cards offered in the main menu, one of each kind that's legal. */
+	protected boolean reprint = false; // true if the player's hand might've been changed since they last saw it and they'll need to have it printed again.
+	protected Card drawn = null; /** The card drawn this turn, while they choose whether to play it. */
+	protected Card colourFor = null; /** The BLACK card being played once a colour is chosen, or null if the colour is for the first card on the pile. */
+	protected CardColour chosenColour = null; /** The colour chosen, returned by the next askForColour. */
+	
 	/**
 	 * Creates a player with the name nname
 	 * @param nname The name to use for the player.
@@ -25,44 +48,154 @@ public class HumanPlayer extends CardEntity {
 	}
 	
 	/**
-	 * Executes a turn by asking the player for appropriate input to choose a move to make.
+	 * Executes a turn by asking the player for appropriate input to choose a move to make, waiting for each answer.
 	 */
 	@Override
 	public void doTurn() {
-		Vector<Card> legal = null;
-		int clooper = 1;
-		int lsize = -1;
-		int userInput = -1;
-		boolean reprint = true; // true if the player's hand might've been changed since they last saw it and they'll need to have it printed again.
+		startTurn();
+		awaitInput();
+	}
+	
+	/**
+	 * Starts a turn by showing the player their hand and the main menu. The turn carries on as their answers are passed to onInput(), until
+	 * isWaiting() returns false.
+	 */
+	public void startTurn() {
 		didSayEINS = false;
 		didAccuse = false;
 		
 		table.getIOHandler().println("~~~~~");
 		
-		do {
+		reprint = true;
+		state = TurnState.MOVE;
+		showMenu();
+	}
+	
+	/**
+	 * Starts asking the player for a colour without playing a card, e.g. for the first card on the pile. Once isWaiting() returns false,
+	 * askForColour() returns the colour they chose.
+	 */
+	public void startColourChoice() {
+		colourFor = null;
+		state = TurnState.COLOUR;
+		showMenu();
+	}
+	
+	/**
+	 * @return true if the player is being asked for something, i.e. the turn or colour choice isn't over.
+	 */
+	public boolean isWaiting() {
+		return (state != TurnState.NONE);
+	}
+	
+	public TurnState getTurnState() {
+		return state;
+	}
+	
+	/**
+	 * Reads answers from the table's IO handler until the player isn't being asked for anything.
+	 */
+	protected void awaitInput() {
+		while(state != TurnState.NONE) {
+			if(state == TurnState.COLOUR) {
+				String ncol = null;
+				
+				try {
+					// readString will cause a flush here
+					ncol = table.getIOHandler().readString();
+				} catch(InputMismatchException ime) {
+					ncol = "";
+				}
+				
+				chooseColour(ncol);
+			} else {
+				int userInput = -1;
+				
+				try {
+					// readInt() will cause a flush here
+					userInput = table.getIOHandler().readInt();
+				} catch(InputMismatchException ime) {
+					printNotANumber();
+					userInput = -1;
+				} catch(NoSuchElementException nsee) {
+					table.getIOHandler().printErrorln("NSEE: " + nsee);
+					table.getIOHandler().printErrorln("userInput = " + userInput);
+					userInput = -1;
+				}
+				
+				choose(userInput);
+			}
+		}
+	}
+	
+	/**
+	 * Applies one line of input from the player to whatever they're being asked for, then shows them what comes next.
+	 * Blank lines are ignored, like {@link EINSIOHandler#readString()} does.
+	 * @param line The line the player sent.
+	 * @throws IllegalStateException If the player isn't being asked for anything.
+	 */
+	public void onInput(String line) throws IllegalStateException {
+		if(state == TurnState.NONE) {
+			throw new IllegalStateException("Player " + getName() + " sent input when it wasn't asked for!");
+		}
+		
+		line = line.trim();
+		
+		if(line.length() == 0) {
+			return;
+		} else if(state == TurnState.COLOUR) {
+			chooseColour(line);
+			return;
+		}
+		
+		// only the first number on the line counts, as with the console's readInt().
+		int end = line.indexOf(' ');
+		int userInput = -1;
+		
+		try {
+			userInput = Integer.parseInt(end < 0 ? line : line.substring(0, end));
+		} catch(NumberFormatException nfe) {
+			printNotANumber();
+			userInput = -1;
+		}
+		
+		choose(userInput);
+	}
+	
+	protected void printNotANumber() {
+		if(state == TurnState.MOVE) {
+			table.getIOHandler().println("\nOnly type in a number, nothing else!\n");
+		} else {
+			table.getIOHandler().println("Only type in a number, nothing else!");
+		}
+	}
+	
+	/**
+	 * Prints whatever the player is being asked for.
+	 */
+	protected void showMenu() {
+		switch(state) {
+		case MOVE:
 			if(reprint) {
 				// work out what options the player has in terms of moves to make.
 				// first, work out how many different cards the player can play, if any.
-				if(legal != null) legal.clear();
-				legal = new Vector<Card>();
-				for(Card c : cards) {
-					if(table.isLegal(c)) {
-						// if the above are all true, this card isn't legal to play.
-						legal.add(c);
-					}
+				legal.clear();
+				long legalMask = getLegalMask();
+				while(legalMask != 0L) {
+					// only offer each kind of card once; playing either of two identical cards is the same move.
+					legal.add(CardCode.getCard(Long.numberOfTrailingZeros(legalMask)));
+					legalMask &= legalMask - 1L;
 				}
 				
 				// we now have a list of legal moves, and we need to output them if we have at least one, or failing that give the player the option to draw a card.
 				printHand();
 				table.getIOHandler().print("\n");
 				
-				//System.out.println("Current card in play: " + table.getPile().getTopCard());
-				lsize = legal.size(); // for speed reasons
-				
 				reprint = false;
 			}
 			
-			clooper = 1;
+			int lsize = legal.size();
+			int clooper = 1;
 			if(lsize >= 1) {
 				table.getIOHandler().println("Your options: ");
 				for(Card c : legal) {
@@ -77,169 +210,192 @@ public class HumanPlayer extends CardEntity {
 			table.getIOHandler().println("Enter " + (lsize + 3) + " to: Accuse players of forgetting to shout EINS!");
 			table.getIOHandler().println("Enter " + (lsize + 4) + " to: See a list of current players and how many cards they have!");
 			table.getIOHandler().println("Enter " + (lsize + 5) + " to: Quit the game.");
-			
-			userInput = -1;
-			
 			table.getIOHandler().println("Enter a number corresponding to the above menu of choices. For help, enter 0.");
-			// readInt() will cause a flush here
-			
-			try {
-				userInput = table.getIOHandler().readInt();
-			} catch(InputMismatchException ime) {
-				table.getIOHandler().println("\nOnly type in a number, nothing else!\n");
-				userInput = -1;
-			} catch(NoSuchElementException nsee) {
-				table.getIOHandler().printErrorln("NSEE: " + nsee);
-				table.getIOHandler().printErrorln("userInput = " + userInput);
-				userInput = -1;
+			break;
+		
+		case DRAWN:
+			// need to show another menu to allow for human players to say EINS
+			table.getIOHandler().println("\nChoose what to do:");
+			table.getIOHandler().println("Enter 1 to: Play the " + drawn + " you just picked up!");
+			table.getIOHandler().println("Enter 2 to: Shout EINS!");
+			break;
+		
+		case COLOUR:
+			table.getIOHandler().println("Input the colour you want to change to. Either (R)ed, (G)reen, (B)lue, or (Y)ellow. Only the first character of your input will be considered.");
+			break;
+		
+		case NONE:
+			break;
+		}
+	}
+	
+	/**
+	 * Applies the player's choice from the main menu or the menu after drawing a card.
+	 * @param userInput The number they entered, or -1 if they didn't enter a number.
+	 */
+	protected void choose(int userInput) {
+		if(state == TurnState.DRAWN) {
+			if(userInput == 1) {
+				//System.out.println(getName() + " plays the drawn " + drawn + "!");
+				Card c = drawn;
+				drawn = null;
+				play(c);
+				return;
+			} else if(userInput == 2) {
+				sayEins();
 			}
+			
+			showMenu();
+			return;
+		}
 		
-			if(userInput == 1 && lsize == 0) {
-				break;
+		int lsize = legal.size();
+		
+		if(userInput == 1 && lsize == 0) {
+			// there aren't legal moves, so all there is left is to draw.
+			Card c = drawCard();
+			table.getIOHandler().println(getName() + " drew " + c + "!");
+			
+			if(table.isLegal(c)) {
+				drawn = c;
+				state = TurnState.DRAWN;
+				showMenu();
+			} else {
+				playCard(null);
+				endTurn();
 			}
 			
-			if(userInput < 0 || userInput > (lsize + 5)) {
-				table.getIOHandler().println("Enter a number between 0 and " + (lsize + 5) + ", not including " + (lsize + 1) + "!");
-			} else if(userInput == 0) {
-				table.getIOHandler().println("Choose one of the options shown above. For example, enter " + (lsize + 2) + " to shout EINS!");
-			} else if(userInput == lsize + 2) {
-				if(!didSayEINS) { // make sure the user didn't already shout EINS this turn.
-					// The user chose to shout eins, which means we handle that and let them enter another menu option.
-					int bcc = countCards();
-					table.getIOHandler().doDelay(1000);
-					sayEins();
-					if(countCards() > bcc) {
-						reprint = true; // picked up some cards so need to print our new hand
-						table.getIOHandler().doDelay(2500);
-					}
-					
-					didSayEINS = true;
-				} else {
-					table.getIOHandler().println("You already shouted EINS this turn!");
+			return;
+		}
+		
+		if(userInput < 0 || userInput > (lsize + 5)) {
+			table.getIOHandler().println("Enter a number between 0 and " + (lsize + 5) + ", not including " + (lsize + 1) + "!");
+		} else if(userInput == 0) {
+			table.getIOHandler().println("Choose one of the options shown above. For example, enter " + (lsize + 2) + " to shout EINS!");
+		} else if(userInput == lsize + 2) {
+			if(!didSayEINS) { // make sure the user didn't already shout EINS this turn.
+				// The user chose to shout eins, which means we handle that and let them enter another menu option.
+				int bcc = countCards();
+				table.delay(1000);
+				sayEins();
+				if(countCards() > bcc) {
+					reprint = true; // picked up some cards so need to print our new hand
+					table.delay(2500);
 				}
 				
-				userInput = -1;
-			} else if(userInput == lsize + 3) {
-				if(!didAccuse) {
-					// The user chose to accuse the last player of forgetting to shout eins, so we handle that and let them choose a new menu option.
-					int bcc = countCards();
-					table.getIOHandler().doDelay(1000);
-					accuseEins();
-					
-					if(countCards() > bcc) {
-						reprint = true;
-						table.getIOHandler().doDelay(2500);
-					}
-					
-					didAccuse = true;
-				} else {
-					table.getIOHandler().println("You already accused others of not saying EINS this turn!");
-				}
-			
-				userInput = -1;
-			} else if(userInput == lsize + 4) {
-				// The user wants to see a list of current players.
-				table.getIOHandler().print("\n");
-				table.printPlayers();
-				table.getIOHandler().print("\n");
-				userInput = -1;
-			} else if(userInput == lsize + 5) {
-				// Need to quit!
-				table.requestEnd();
-//				scanner.close();
-				return;
-			} else if(userInput == (lsize + 1)) {
-				userInput = -1;
+				didSayEINS = true;
 			} else {
-				break;
+				table.getIOHandler().println("You already shouted EINS this turn!");
 			}
-		} while(true);
-		
-		if(lsize >= 1) { // if there are legal moves, to get to this point the player must have chosen to make one of them, so make it
-			// the user chose to play a card
-			playCard(legal.elementAt(userInput-1));
-		} else { // if there aren't legal moves, all there is left is to draw.
-			Card drawn = takeCard(table.getDeck());
-			table.getIOHandler().println(getName() + " drew " + drawn + "!");
-			if(table.isLegal(drawn)) {
-				// need to show another menu to allow for human players to say EINS
-				int secondInput = -1;
-				//scanner = new Scanner(System.in);
+		} else if(userInput == lsize + 3) {
+			if(!didAccuse) {
+				// The user chose to accuse the last player of forgetting to shout eins, so we handle that and let them choose a new menu option.
+				int bcc = countCards();
+				table.delay(1000);
+				accuseEins();
 				
-				do {
-					table.getIOHandler().println("\nChoose what to do:");
-					table.getIOHandler().println("Enter 1 to: Play the " + drawn + " you just picked up!");
-					table.getIOHandler().println("Enter 2 to: Shout EINS!");
-					// readInt will cause a flush here.
-					
-					try {
-						secondInput = table.getIOHandler().readInt();
-					} catch(InputMismatchException ime) {
-						table.getIOHandler().println("Only type in a number, nothing else!");
-						secondInput = -1;
-					} catch(NoSuchElementException nsee) {
-						table.getIOHandler().printErrorln("NSEE: " + nsee);
-						table.getIOHandler().printErrorln("userInput = " + secondInput);
-						secondInput = -1;
-					}
-					
-					if(secondInput == 1) {
-						break;
-					} else if(secondInput == 2) {
-						sayEins();
-					}
-					
-				} while(true);
+				if(countCards() > bcc) {
+					reprint = true;
+					table.delay(2500);
+				}
 				
-				//System.out.println(getName() + " plays the drawn " + drawn + "!");
-				playCard(drawn);
+				didAccuse = true;
 			} else {
-				playCard(null);
+				table.getIOHandler().println("You already accused others of not saying EINS this turn!");
 			}
+		} else if(userInput == lsize + 4) {
+			// The user wants to see a list of current players.
+			table.getIOHandler().print("\n");
+			table.printPlayers();
+			table.getIOHandler().print("\n");
+		} else if(userInput == lsize + 5) {
+			// Need to quit!
+			table.requestEnd();
+			state = TurnState.NONE;
+			return;
+		} else if(userInput != (lsize + 1)) {
+			// the user chose to play a card
+			play(legal.elementAt(userInput - 1));
+			return;
 		}
 		
+		showMenu();
+	}
+	
+	/**
+	 * Plays a card and ends the turn, first asking for a colour if it's BLACK; askForColour() then returns that colour when the table asks.
+	 * @param c The card to play.
+	 */
+	protected void play(Card c) {
+		if(c.getColour() == CardColour.BLACK) {
+			colourFor = c;
+			state = TurnState.COLOUR;
+			showMenu();
+		} else {
+			playCard(c);
+			endTurn();
+		}
+	}
+	
+	protected void endTurn() {
+		state = TurnState.NONE;
 		table.getIOHandler().println("~~~~~");
 	}
 	
 	/**
-	 * This implementation asks the user for a command-line input, and takes the first character of whatever they choose to input and checks if it matches a colour.
-	 * If so, it returns that colour. If not, it asks again.
-	 * For example, input "foo bar" will ask again, while "bar foo" will return CardColour.BLUE.
+	 * Takes the first character of the player's input and checks if it matches a colour. If so, that's the colour chosen, and the card it was
+	 * chosen for (if any) is played. If not, they're asked again.
+	 * For example, input "foo bar" will ask again, while "bar foo" will choose CardColour.BLUE.
+	 * @param ncol The player's input.
 	 */
-	@Override
-	public CardColour askForColour() {
-		String ncol = new String();
-		String first = new String();
+	protected void chooseColour(String ncol) {
+		CardColour choice = null;
 		
-		do {
-			table.getIOHandler().println("Input the colour you want to change to. Either (R)ed, (G)reen, (B)lue, or (Y)ellow. Only the first character of your input will be considered.");
-			// readString will cause a flush here
-			
-			try {
-				ncol = table.getIOHandler().readString();
-			} catch(InputMismatchException ime) {
-				ncol = "";
-			}
-			
-			if(ncol.length() != 0) {
-				first = Character.toString(ncol.charAt(0));
+		if(ncol.length() != 0) {
+			String first = Character.toString(ncol.charAt(0));
 			
-				if(first.compareToIgnoreCase("R") == 0 || first.compareToIgnoreCase("G") == 0 || first.compareToIgnoreCase("B") == 0 || first.compareToIgnoreCase("Y") == 0) break;
+			if(first.compareToIgnoreCase("R") == 0) {
+				choice = CardColour.RED;
+			} else if(first.compareToIgnoreCase("B") == 0) {
+				choice = CardColour.BLUE;
+			} else if(first.compareToIgnoreCase("G") == 0) {
+				choice = CardColour.GREEN;
+			} else if(first.compareToIgnoreCase("Y") == 0) {
+				choice = CardColour.YELLOW;
 			}
-		} while(true);
-		
-		CardColour choice = CardColour.BLACK; // if we actually return BLACK something has gone horifically wrong.
-		
-		if(first.compareToIgnoreCase("R") == 0) {
-			choice = CardColour.RED;
-		} else if(first.compareToIgnoreCase("B") == 0) {
-			choice = CardColour.BLUE;
-		} else if(first.compareToIgnoreCase("G") == 0) {
-			choice = CardColour.GREEN;
-		} else if(first.compareToIgnoreCase("Y") == 0) {
-			choice = CardColour.YELLOW;
 		}
 		
+		if(choice == null) {
+			showMenu();
+			return;
+		}
+		
+		chosenColour = choice;
+		
+		if(colourFor != null) {
+			Card c = colourFor;
+			colourFor = null;
+			playCard(c); // the table asks for the colour straight away.
+			endTurn();
+		} else {
+			state = TurnState.NONE;
+		}
+	}
+	
+	/**
+	 * Returns the colour the player chose along with the BLACK card they're playing, or the one chosen after startColourChoice().
+	 * Otherwise this implementation asks the user for a command-line input, and takes the first character of whatever they choose to input and
+	 * checks if it matches a colour. If so, it returns that colour. If not, it asks again.
+	 */
+	@Override
+	public CardColour askForColour() {
+		if(chosenColour == null) {
+			startColourChoice();
+			awaitInput();
+		}
+		
+		CardColour choice = chosenColour;
+		chosenColour = null;
 		return choice;
 	}
 	
@@ -0,0 +1,264 @@
+package com.sgtcodfish.eins;
+
+import java.util.Random;
+
+/**
+ * Chooses moves with information set Monte Carlo tree search (single observer ISMCTS, as described by Cowling, Powley and Whitehouse).
+ *
+ * Every iteration starts from a fresh guess at the cards the searching player can't see ({@link GameState#determinize(int, Random)}), walks down a
+ * single tree shared by all the guesses choosing moves with UCB1, adds one new move to the tree, then plays the rest of the game out at random
+ * ({@link GameState#playout(Random, int)}) and credits the result to each move on the way back up. Since a move that's in the tree might not be
+ * legal in every guess, a move is judged against the number of times it was available rather than the number of times its parent was visited.
+ *
+ * The search stops after a number of iterations or an amount of time, whichever comes first. All the game states it needs are created once,
+ * so the only allocation during a search is one node per iteration.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class MCTSSearch implements MoveSearch {
+	public static final int ITERATIONS_DEFAULT = 2000;
+	public static final long TIME_MILLIS_DEFAULT = 200L;
+	public static final double EXPLORATION_DEFAULT = 0.7d;
+	public static final int PLAYOUT_MOVES_MAX = 1000; /** Playouts longer than this are abandoned and scored as they stand. */
+	
+	/**
+	 * A move in the search tree, with the statistics of every iteration that made it.
+	 */
+	protected static class Node {
+		protected int move; /** The move that leads to this node from its parent. */
+		protected int player; /** The seat of the player who made move, whose point of view reward is from. */
+		protected Node parent;
+		protected Node[] children;
+		protected int childCount;
+		protected int visits; /** The number of iterations that made this move. */
+		protected int availability; /** The number of iterations in which this move was legal when its parent was reached. */
+		protected double reward; /** The total reward for player over every visit. */
+		
+		protected Node(Node nparent, int nmove, int nplayer) {
+			parent = nparent;
+			move = nmove;
+			player = nplayer;
+			children = new Node[4];
+			childCount = 0;
+		}
+		
+		protected Node findChild(int m) {
+			for(int i = 0; i < childCount; i++) {
+				if(children[i].move == m) {
+					return children[i];
+				}
+			}
+			
+			return null;
+		}
+		
+		protected Node addChild(int m, int p) {
+			if(childCount == children.length) {
+				Node[] nchildren = new Node[children.length * 2];
+				System.arraycopy(children, 0, nchildren, 0, childCount);
+				children = nchildren;
+			}
+			
+			Node child = new Node(this, m, p);
+			children[childCount++] = child;
+			return child;
+		}
+	}
+	
+	protected int iterations; /** The most iterations a search may run; 0 for no limit. */
+	protected long timeNanos; /** The longest a search may take; 0 for no limit. */
+	protected double exploration; /** The exploration constant in UCB1; higher values try weaker moves more often. */
+	protected Random random;
+	
+	protected GameState state; /** The scratch state each iteration is played in. */
+	protected int[] moves; /** The scratch list of legal moves. */
+	protected int[] untried; /** The scratch list of legal moves that aren't in the tree yet. */
+	
+	protected int lastIterations; /** The number of iterations run by the last search. */
+	protected long lastNanos; /** How long the last search took. */
+	
+	/**
+	 * Creates a search with the default budget.
+	 * @param nrandom The random number generator to use; not shared with any other thread.
+	 */
+	public MCTSSearch(Random nrandom) {
+		this(ITERATIONS_DEFAULT, TIME_MILLIS_DEFAULT, nrandom);
+	}
+	
+	/**
+	 * Creates a search with the given budget.
+	 * @param niterations The most iterations to run for each move, or 0 for no limit.
+	 * @param timeMillis The longest to search for each move, in milliseconds, or 0 for no limit.
+	 * @param nrandom The random number generator to use; not shared with any other thread.
+	 * @throws IllegalArgumentException If there's no limit at all, or a limit is negative.
+	 */
+	public MCTSSearch(int niterations, long timeMillis, Random nrandom) throws IllegalArgumentException {
+		setBudget(niterations, timeMillis);
+		exploration = EXPLORATION_DEFAULT;
+		random = nrandom;
+		moves = new int[GameState.MAX_MOVES];
+		untried = new int[GameState.MAX_MOVES];
+	}
+	
+	/**
+	 * Changes how long each search may run for. The search stops at whichever limit it reaches first.
+	 * @param niterations The most iterations to run for each move, or 0 for no limit.
+	 * @param timeMillis The longest to search for each move, in milliseconds, or 0 for no limit.
+	 * @throws IllegalArgumentException If there's no limit at all, or a limit is negative.
+	 */
+	@Override
+	public void setBudget(int niterations, long timeMillis) throws IllegalArgumentException {
+		if(niterations < 0 || timeMillis < 0L || (niterations == 0 && timeMillis == 0L)) {
+			throw new IllegalArgumentException("Invalid search budget of " + niterations + " iterations and " + timeMillis + "ms!");
+		}
+		
+		iterations = niterations;
+		timeNanos = timeMillis * 1000000L;
+	}
+	
+	/**
+	 * @param nexploration The exploration constant used in UCB1; must not be negative.
+	 * @throws IllegalArgumentException
+	 */
+	public void setExploration(double nexploration) throws IllegalArgumentException {
+		if(nexploration < 0.0d) {
+			throw new IllegalArgumentException("Exploration constant must not be negative, was " + nexploration);
+		}
+		
+		exploration = nexploration;
+	}
+	
+	/**
+	 * Searches for the best move for the current player of a state, who is taken to know only what they could see at a real table.
+	 * @param root The state to search from; not changed.
+	 * @return The move to make.
+	 * @throws IllegalArgumentException If the game in root is already over.
+	 */
+	@Override
+	public int search(GameState root) throws IllegalArgumentException {
+		long start = System.nanoTime();
+		int observer = root.getCurrentPlayer();
+		
+		if(state == null || state.getPlayerCount() != root.getPlayerCount()) {
+			state = new GameState(root.getPlayerCount());
+		}
+		
+		int rootMoves = root.legalMoves(moves);
+		
+		if(rootMoves == 0) {
+			throw new IllegalArgumentException("Trying to search a finished game!");
+		} else if(rootMoves == 1) {
+			// nothing to think about.
+			lastIterations = 0;
+			lastNanos = System.nanoTime() - start;
+			return moves[0];
+		}
+		
+		Node rootNode = new Node(null, -1, -1);
+		int i = 0;
+		
+		while(iterations == 0 || i < iterations) {
+			// reading the clock costs more than an iteration's bookkeeping, so only check it every so often; always run at least one iteration.
+			if(timeNanos != 0L && i > 0 && (i & 15) == 0 && System.nanoTime() - start >= timeNanos) {
+				break;
+			}
+			
+			iterate(root, rootNode, observer);
+			i++;
+		}
+		
+		lastIterations = i;
+		lastNanos = System.nanoTime() - start;
+		
+		Node best = null;
+		
+		for(int c = 0; c < rootNode.childCount; c++) {
+			if(best == null || rootNode.children[c].visits > best.visits) {
+				best = rootNode.children[c];
+			}
+		}
+		
+		return best.move;
+	}
+	
+	/**
+	 * Runs one iteration: determinize, select, expand, play out and back-propagate.
+	 */
+	protected void iterate(GameState root, Node rootNode, int observer) {
+		state.copyFrom(root);
+		state.determinize(observer, random);
+		Node node = rootNode;
+		
+		while(!state.isFinished()) {
+			int count = state.legalMoves(moves);
+			int untriedCount = 0;
+			
+			for(int m = 0; m < count; m++) {
+				Node child = node.findChild(moves[m]);
+				
+				if(child == null) {
+					untried[untriedCount++] = moves[m];
+				} else {
+					child.availability++;
+				}
+			}
+			
+			if(untriedCount > 0) {
+				// expand one move we've never tried from here, then play out from it.
+				int move = untried[random.nextInt(untriedCount)];
+				int player = state.getCurrentPlayer();
+				state.apply(move, random);
+				node = node.addChild(move, player);
+				node.availability++;
+				break;
+			}
+			
+			node = select(node, count);
+			state.apply(node.move, random);
+		}
+		
+		state.playout(random, PLAYOUT_MOVES_MAX);
+		
+		for(; node != rootNode; node = node.parent) {
+			node.visits++;
+			node.reward += state.getReward(node.player);
+		}
+		
+		rootNode.visits++;
+	}
+	
+	/**
+	 * Picks the child of node with the highest UCB1 score among those whose moves are in the first count elements of moves.
+	 */
+	protected Node select(Node node, int count) {
+		Node best = null;
+		double bestScore = Double.NEGATIVE_INFINITY;
+		
+		for(int m = 0; m < count; m++) {
+			Node child = node.findChild(moves[m]);
+			double score = (child.reward / child.visits) + exploration * Math.sqrt(Math.log(child.availability) / child.visits);
+			
+			if(score > bestScore) {
+				best = child;
+				bestScore = score;
+			}
+		}
+		
+		return best;
+	}
+	
+	/**
+	 * @return The number of iterations run by the last search.
+	 */
+	@Override
+	public int getLastIterations() {
+		return lastIterations;
+	}
+	
+	/**
+	 * @return How long the last search took, in nanoseconds.
+	 */
+	@Override
+	public long getLastNanos() {
+		return lastNanos;
+	}
+}
@@ -0,0 +1,323 @@
+package com.sgtcodfish.eins;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Vector;
+
+/**
+ * Reads the records of a game log (see {@link GameLog}) straight out of a memory-mapped file, for scanning large numbers of games quickly.
+ *
+ * Unlike {@link GameRecord}, nothing is copied or allocated per record: next() moves on to the next record and the getters read from the mapped file,
+ * so the reader is only valid for the record it's on. A reader covers one segment of a file; {@link #split(FileChannel, int)} divides a file into
+ * segments that start on record boundaries so that several threads can read it at once, each with its own reader.
+ *
+ * The format has no index or markers, so split() finds each boundary by looking for the first offset after where it wants to cut at which a chain
+ * of valid records starts. Only the records next to each cut are read, rather than following every record length from the start of the file, so
+ * the threads reading the segments are the first to touch the rest of it. A cut in the wrong place can't go unnoticed: the records of the segment
+ * before it wouldn't end exactly at the cut, which next() reports as an invalid length.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class MappedGameLogReader {
+	public static final long SEGMENT_SIZE_MAX = 1L << 30; /** The largest segment split() makes; a mapping can't be bigger than 2GB. */
+	protected static final int SYNC_WINDOW_SIZE = 1 << 20; /** How far past each place it wants to cut split() looks for a record; bigger than any record. */
+	protected static final int SYNC_CHAIN = 4; /** The number of valid records in a row that split() wants to see before it trusts a boundary. */
+	
+	protected MappedByteBuffer buf; /** The segment being read. */
+	protected long base; /** The offset in the file of the start of buf. */
+	protected int next; /** The index in buf of the next record's length. */
+	
+	// indexes in buf of the parts of the current record.
+	protected int recordStart; /** The first byte of the record, after its length. */
+	protected int recordEnd;
+	protected int playerCount;
+	protected int seatsStart;
+	protected int dealStart;
+	protected int movesStart;
+	protected int movesEnd; /** The index of END. */
+	
+	/**
+	 * Maps a segment of a game log.
+	 * @param channel The log file, open for reading.
+	 * @param start The offset of the first record in the segment.
+	 * @param end The offset just after the last record in the segment; at most SEGMENT_SIZE_MAX after start.
+	 * @throws IOException
+	 * @throws IllegalArgumentException If the segment is too big or outside the file.
+	 */
+	public MappedGameLogReader(FileChannel channel, long start, long end) throws IOException, IllegalArgumentException {
+		if(start < 0L || end < start || end > channel.size() || end - start > SEGMENT_SIZE_MAX) {
+			throw new IllegalArgumentException("Invalid game log segment " + start + " to " + end + " in a file of " + channel.size() + " bytes");
+		}
+		
+		buf = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+		base = start;
+		next = 0;
+		recordStart = recordEnd = -1;
+	}
+	
+	/**
+	 * Moves on to the next record in the segment.
+	 * @return true if there was another record, false at the end of the segment.
+	 * @throws IllegalArgumentException If the next record is truncated or isn't a valid record.
+	 */
+	public boolean next() throws IllegalArgumentException {
+		int limit = buf.limit();
+		
+		if(next == limit) {
+			return false;
+		} else if(limit - next < 4) {
+			throw new IllegalArgumentException("Truncated game log: no room for a record length at " + (base + next));
+		}
+		
+		int length = buf.getInt(next);
+		
+		if(length < 12 || length > limit - next - 4) { // 12 bytes is the version, seed, player count, first card and END with the winner.
+			throw new IllegalArgumentException("Game log record at " + (base + next) + " has an invalid length of " + length);
+		}
+		
+		recordStart = next + 4;
+		recordEnd = recordStart + length;
+		next = recordEnd;
+		
+		if(buf.get(recordStart) != GameLog.FORMAT_VERSION) {
+			throw new IllegalArgumentException("Game log record at " + (base + recordStart - 4) + " has unknown version " + buf.get(recordStart));
+		}
+		
+		playerCount = buf.get(recordStart + 9) & 0xFF;
+		seatsStart = recordStart + 10;
+		dealStart = seatsStart + playerCount + 1;
+		movesEnd = recordEnd - 2;
+		int p = dealStart;
+		
+		for(int i = 0; i < playerCount && p < movesEnd; i++) {
+			p += 1 + (buf.get(p) & 0xFF);
+		}
+		
+		movesStart = p;
+		
+		if(movesStart > movesEnd || (buf.get(movesEnd) & 0xFF) != GameLog.END || getWinner() >= playerCount) {
+			throw new IllegalArgumentException("Game log record at " + (base + recordStart - 4) + " is corrupt");
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * @return The offset in the file of the current record.
+	 */
+	public long getRecordOffset() {
+		return base + recordStart - 4;
+	}
+	
+	/**
+	 * @return The size of the current record, including its length.
+	 */
+	public int getRecordSize() {
+		return recordEnd - recordStart + 4;
+	}
+	
+	public long getSeed() {
+		return buf.getLong(recordStart + 1);
+	}
+	
+	public int getPlayerCount() {
+		return playerCount;
+	}
+	
+	/**
+	 * @return The kind of player in a seat; see GameLog.seatKind.
+	 */
+	public int getSeatKind(int seat) {
+		return buf.get(seatsStart + seat) & 0xFF;
+	}
+	
+	public int getFirstCard() {
+		return buf.get(dealStart - 1) & 0xFF;
+	}
+	
+	/**
+	 * @return The number of cards dealt to a seat.
+	 */
+	public int getDealSize(int seat) {
+		return buf.get(dealIndex(seat)) & 0xFF;
+	}
+	
+	/**
+	 * @return The code of the i-th card dealt to a seat; the cards are in ascending order.
+	 */
+	public int getDealCard(int seat, int i) {
+		return buf.get(dealIndex(seat) + 1 + i) & 0xFF;
+	}
+	
+	protected int dealIndex(int seat) {
+		int p = dealStart;
+		
+		for(int i = 0; i < seat; i++) {
+			p += 1 + (buf.get(p) & 0xFF);
+		}
+		
+		return p;
+	}
+	
+	/**
+	 * @return The number of moves in the current record, not including END.
+	 */
+	public int getMoveCount() {
+		return movesEnd - movesStart;
+	}
+	
+	/**
+	 * @return The i-th move of the current record; see {@link GameLog}.
+	 */
+	public int getMove(int i) {
+		return buf.get(movesStart + i) & 0xFF;
+	}
+	
+	public int getWinner() {
+		return buf.get(movesEnd + 1) & 0xFF;
+	}
+	
+	/**
+	 * Divides a game log into segments of about the same size which each start at a record, so that each can be read by its own reader.
+	 * Each boundary is found near the offset where the file would be cut evenly, reading no more than SYNC_WINDOW_SIZE bytes; see the class documentation.
+	 * @param channel The log file, open for reading.
+	 * @param parts The number of segments wanted; there may be fewer if the file is small or more if it's bigger than parts * SEGMENT_SIZE_MAX / 2.
+	 * @return The offsets of the start of each segment followed by the size of the file, so segment i runs from element i to element i+1.
+	 * @throws IOException
+	 * @throws IllegalArgumentException If parts isn't positive, or no record can be found near a cut, e.g. because the file isn't a valid game log.
+	 */
+	public static long[] split(FileChannel channel, int parts) throws IOException, IllegalArgumentException {
+		if(parts < 1) {
+			throw new IllegalArgumentException("Can't split a game log into " + parts + " parts!");
+		}
+		
+		long size = channel.size();
+		long target = Math.min(Math.max(size / parts, 1L), SEGMENT_SIZE_MAX / 2);
+		Vector<Long> starts = new Vector<Long>();
+		starts.add(0L);
+		
+		for(long cut = target; cut < size; cut += target) {
+			long start = findRecordStart(channel, cut, size);
+			
+			if(start >= size) {
+				break;
+			} else if(start > starts.lastElement()) {
+				starts.add(start);
+			}
+		}
+		
+		long[] ret = new long[starts.size() + 1];
+		
+		for(int i = 0; i < starts.size(); i++) {
+			ret[i] = starts.elementAt(i);
+		}
+		
+		ret[starts.size()] = size;
+		return ret;
+	}
+	
+	/**
+	 * Finds the first offset at or after from where SYNC_CHAIN valid records in a row start (or fewer, if the file ends first).
+	 * @param channel The log file, open for reading.
+	 * @param from Where to start looking.
+	 * @param size The size of the file.
+	 * @return The offset of the first record, or size if the window reaches the end of the file without finding one.
+	 * @throws IOException
+	 * @throws IllegalArgumentException If there's no record in the SYNC_WINDOW_SIZE bytes after from.
+	 */
+	protected static long findRecordStart(FileChannel channel, long from, long size) throws IOException, IllegalArgumentException {
+		int length = (int)Math.min(size - from, (long)SYNC_WINDOW_SIZE);
+		MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, from, length);
+		boolean windowReachesEnd = (from + length == size);
+		
+		for(int p = 0; p < length; p++) {
+			int q = p;
+			int records = 0;
+			
+			while(records < SYNC_CHAIN && q < length) {
+				int end = recordEnd(window, q, length);
+				
+				if(end < 0) {
+					break;
+				}
+				
+				q = end;
+				records++;
+			}
+			
+			// a chain that's cut short by the end of the window (or the file) is still good, as long as it has at least one record.
+			if(records == SYNC_CHAIN || (records > 0 && recordEnd(window, q, length) == -2)) {
+				return from + p;
+			}
+		}
+		
+		if(windowReachesEnd) {
+			return size;
+		}
+		
+		throw new IllegalArgumentException("No game log record found between " + from + " and " + (from + length));
+	}
+	
+	/**
+	 * Checks whether a valid record starts at an index in buf, including that every move is a valid token.
+	 * @param buf Part of a game log.
+	 * @param p The index of the record's length.
+	 * @param limit The index just after the last byte of buf that can be looked at.
+	 * @return The index just after the record, -1 if it isn't a valid record, or -2 if it might be but runs past limit.
+	 */
+	protected static int recordEnd(ByteBuffer buf, int p, int limit) {
+		if(limit - p < 4) {
+			return -2;
+		}
+		
+		int length = buf.getInt(p);
+		
+		if(length < 12) {
+			return -1;
+		} else if(length > limit - p - 4) {
+			return -2;
+		}
+		
+		int start = p + 4;
+		int end = start + length;
+		int players = buf.get(start + 9) & 0xFF;
+		int q = start + 10 + players;
+		
+		if(buf.get(start) != GameLog.FORMAT_VERSION || players == 0 || q >= end - 2 || (buf.get(q) & 0xFF) >= CardCode.KIND_COUNT) {
+			return -1;
+		}
+		
+		q++;
+		
+		for(int i = 0; i < players; i++) {
+			int dealt = buf.get(q) & 0xFF;
+			
+			if(q + 1 + dealt > end - 2) {
+				return -1;
+			}
+			
+			for(int j = q + 1; j <= q + dealt; j++) {
+				if((buf.get(j) & 0xFF) >= CardCode.KIND_COUNT) {
+					return -1;
+				}
+			}
+			
+			q += 1 + dealt;
+		}
+		
+		for(; q < end - 2; q++) {
+			int token = buf.get(q) & 0xFF;
+			
+			if(!GameLog.isCard(token) && !GameLog.isColour(token) && (token < GameLog.DRAW || token > GameLog.RESEED)) {
+				return -1;
+			}
+		}
+		
+		if((buf.get(end - 2) & 0xFF) != GameLog.END || (buf.get(end - 1) & 0xFF) >= players) {
+			return -1;
+		}
+		
+		return end;
+	}
+}
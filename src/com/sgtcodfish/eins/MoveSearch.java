@@ -0,0 +1,34 @@
+package com.sgtcodfish.eins;
+
+/**
+ * Something that chooses a move for the current player of a {@link GameState}, used by the AIs that search ahead rather than following fixed rules.
+ * Implementations only use what the current player could see at a real table, and stop at whichever of their limits they reach first.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public interface MoveSearch {
+	/**
+	 * Searches for the best move for the current player of a state.
+	 * @param root The state to search from; not changed.
+	 * @return The move to make, one of those given by {@link GameState#legalMoves(int[])}.
+	 * @throws IllegalArgumentException If the game in root is already over.
+	 */
+	public int search(GameState root) throws IllegalArgumentException;
+	
+	/**
+	 * Changes how long each search may run for.
+	 * @param niterations The most playouts to run for each move, or 0 for no limit.
+	 * @param timeMillis The longest to search for each move, in milliseconds, or 0 for no limit.
+	 * @throws IllegalArgumentException If there's no limit at all, or a limit is negative.
+	 */
+	public void setBudget(int niterations, long timeMillis) throws IllegalArgumentException;
+	
+	/**
+	 * @return The number of playouts run by the last search.
+	 */
+	public int getLastIterations();
+	
+	/**
+	 * @return How long the last search took, in nanoseconds.
+	 */
+	public long getLastNanos();
+}
@@ -0,0 +1,52 @@
+package com.sgtcodfish.eins;
+
+/**
+ * An implementation of {@link EINSIOHandler} which discards all output, used for headless games where nobody is watching (e.g. {@link Simulation}).
+ * Since there's nobody to ask, trying to read input is an error; only use this handler for tables with no {@link HumanPlayer}s.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class NullIOHandler implements EINSIOHandler {
+	@Override
+	public boolean isOutputEnabled() {
+		return false;
+	}
+	
+	@Override
+	public void println(String str) {
+	}
+	
+	@Override
+	public void print(String str) {
+	}
+	
+	@Override
+	public void printErrorln(String err) {
+	}
+	
+	@Override
+	public void printError(String err) {
+	}
+	
+	@Override
+	public void flush() {
+	}
+	
+	@Override
+	public String readString() {
+		return readString(false);
+	}
+	
+	@Override
+	public String readString(boolean wsOK) throws IllegalStateException {
+		throw new IllegalStateException("Trying to read a string from a NullIOHandler!");
+	}
+	
+	@Override
+	public int readInt() throws IllegalStateException {
+		throw new IllegalStateException("Trying to read an integer from a NullIOHandler!");
+	}
+	
+	@Override
+	public void doDelay(int delay) {
+	}
+}
@@ -0,0 +1,19 @@
+package com.sgtcodfish.eins;
+
+/**
+ * An implementation of {@link Pacer} which skips every pause, for games where nobody is watching (e.g. {@link Simulation}).
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class NullPacer implements Pacer {
+	public static final NullPacer INSTANCE = new NullPacer(); /** Has no state, so every table can share it. */
+	
+	@Override
+	public long scale(long millis) {
+		return 0L;
+	}
+	
+	@Override
+	public boolean pause(long millis) {
+		return !Thread.currentThread().isInterrupted();
+	}
+}
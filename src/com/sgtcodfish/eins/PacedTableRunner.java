@@ -0,0 +1,250 @@
+package com.sgtcodfish.eins;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs many paced tables at once on a few threads. Rather than sleeping through the pauses in a game like {@link Table#mainLoop(ScoreList)} does,
+ * each table plays one turn at a time with {@link Table#playTurn()} and its next turn is scheduled for when the pauses asked for during the turn
+ * and the pause between turns (both scaled by the table's {@link Pacer}) are over, so no thread is held while a table is waiting.
+ *
+ * Tables with {@link HumanPlayer}s can be run too if they're submitted with an InputSource: the table is made suspendable, and whenever it's
+ * suspended waiting for a player, the game is parked (holding no thread) until the source passes their answer to {@link PacedGame#resume(String)}.
+ * Otherwise only tables whose players never block waiting for something, such as AIs, should be run; a HumanPlayer reading from the console
+ * would hold one of the runner's threads for as long as they take to answer. A table must not be run by anything else while the runner has it.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class PacedTableRunner {
+	public static final int THREAD_COUNT_DEFAULT = 2;
+	
+	protected ScheduledExecutorService scheduler;
+	protected AtomicInteger running; /** The number of games submitted and not yet finished. */
+	
+	/**
+	 * Gets the players' answers for suspended games.
+	 */
+	public interface InputSource {
+		/**
+		 * Called when a game is suspended waiting for its player, on one of the runner's threads, so it mustn't block. Once the player answers,
+		 * the source should pass the line to game.resume(), or call game.abort() if they never will (e.g. they've disconnected).
+		 * @param game The suspended game; {@link Table#getWaitingPlayer()} says who it's waiting for.
+		 */
+		public void requestInput(PacedGame game);
+	}
+	
+	/**
+	 * A game being run, which can be waited for.
+	 */
+	public class PacedGame implements Runnable {
+		protected Table table;
+		protected ScoreList slist;
+		protected Runnable onFinished;
+		protected InputSource source;
+		protected CountDownLatch done;
+		protected volatile boolean aborted;
+		protected String input; /** The player's answer to resume the game with on the next run, or null to play a turn. */
+		
+		protected PacedGame(Table ntable, ScoreList nslist, InputSource nsource, Runnable nonFinished) {
+			table = ntable;
+			slist = nslist;
+			source = nsource;
+			onFinished = nonFinished;
+			done = new CountDownLatch(1);
+			aborted = false;
+			input = null;
+		}
+		
+		/**
+		 * Plays one turn of the game, or resumes it with the player's answer, then either schedules the next turn, asks for input or finishes.
+		 */
+		@Override
+		public void run() {
+			String line = input;
+			input = null;
+			
+			try {
+				if(line != null ? table.resume(line) : table.playTurn()) {
+					// scores are added as in mainLoop, even if a player ended the game early.
+					synchronized(slist) {
+						slist.addScores(table.players);
+					}
+					
+					finish(table.endRequested);
+				} else if(table.isSuspended()) {
+					source.requestInput(this);
+				} else {
+					scheduler.schedule(this, table.takePendingDelay() + table.getPacer().scale(Table.TURN_DELAY_DEFAULT), TimeUnit.MILLISECONDS);
+				}
+			} catch(IllegalArgumentException iae) {
+				table.getIOHandler().printErrorln("Programming error! " + iae);
+				finish(true);
+			} catch(IllegalStateException ise) {
+				table.getIOHandler().printErrorln("Something weird happened! " + ise);
+				finish(true);
+			} catch(RejectedExecutionException ree) {
+				// the runner was shut down.
+				finish(true);
+			} catch(Exception e) {
+				table.getIOHandler().printErrorln("Error!\nException: " + e);
+				finish(true);
+			}
+		}
+		
+		/**
+		 * Resumes the suspended game with the player's answer, as soon as a thread is free.
+		 * @param line The line the player sent.
+		 */
+		public void resume(String line) {
+			input = line;
+			
+			try {
+				scheduler.execute(this);
+			} catch(RejectedExecutionException ree) {
+				finish(true);
+			}
+		}
+		
+		/**
+		 * Ends the suspended game early, e.g. because its player has disconnected. The scores aren't added to the ScoreList.
+		 */
+		public void abort() {
+			finish(true);
+		}
+		
+		protected synchronized void finish(boolean naborted) {
+			if(done.getCount() == 0L) {
+				return;
+			}
+			
+			aborted = naborted;
+			table.setDeferDelays(false);
+			running.decrementAndGet();
+			done.countDown();
+			
+			if(onFinished != null) {
+				onFinished.run();
+			}
+		}
+		
+		/**
+		 * Waits for the game to finish.
+		 * @throws InterruptedException
+		 */
+		public void await() throws InterruptedException {
+			done.await();
+		}
+		
+		/**
+		 * Waits for the game to finish, for at most timeoutMillis.
+		 * @return true if the game has finished.
+		 * @throws InterruptedException
+		 */
+		public boolean await(long timeoutMillis) throws InterruptedException {
+			return done.await(timeoutMillis, TimeUnit.MILLISECONDS);
+		}
+		
+		public boolean isDone() {
+			return done.getCount() == 0L;
+		}
+		
+		/**
+		 * @return true if the game ended early, either because a player requested it or because of an error, like {@link Table#mainLoop(ScoreList)}.
+		 */
+		public boolean isAborted() {
+			return aborted;
+		}
+		
+		public Table getTable() {
+			return table;
+		}
+	}
+	
+	/**
+	 * Creates a runner with THREAD_COUNT_DEFAULT threads.
+	 */
+	public PacedTableRunner() {
+		this(THREAD_COUNT_DEFAULT);
+	}
+	
+	/**
+	 * @param threads The number of threads shared by every table; tables only use one while they're playing a turn.
+	 * @throws IllegalArgumentException
+	 */
+	public PacedTableRunner(int threads) throws IllegalArgumentException {
+		if(threads < 1) {
+			throw new IllegalArgumentException("Trying to create a table runner with too few (" + threads + ") threads!");
+		}
+		
+		scheduler = Executors.newScheduledThreadPool(threads, new ThreadFactory() {
+			private final AtomicInteger threadCount = new AtomicInteger();
+			
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "PacedTableRunner-" + threadCount.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		
+		running = new AtomicInteger();
+	}
+	
+	/**
+	 * Starts running a game, with its first turn as soon as a thread is free.
+	 * @param table The table to play on, which hasn't been played on yet.
+	 * @param slist The list to add the scores to when the game is over; may be shared between games, which add to it one at a time.
+	 * @param onFinished If non-null, run on one of the runner's threads once the game is over.
+	 * @return The game, to wait for it.
+	 * @throws IllegalArgumentException If the table has already been played on.
+	 */
+	public PacedGame submit(Table table, ScoreList slist, Runnable onFinished) throws IllegalArgumentException {
+		return submit(table, slist, null, onFinished);
+	}
+	
+	/**
+	 * Starts running a game, with its first turn as soon as a thread is free.
+	 * @param table The table to play on, which hasn't been played on yet.
+	 * @param slist The list to add the scores to when the game is over; may be shared between games, which add to it one at a time.
+	 * @param source If non-null, the table is made suspendable and the source is asked for its human players' input; see {@link InputSource}.
+	 * @param onFinished If non-null, run once the game is over, on one of the runner's threads or the thread that aborted it.
+	 * @return The game, to wait for it.
+	 * @throws IllegalArgumentException If the table has already been played on.
+	 */
+	public PacedGame submit(Table table, ScoreList slist, InputSource source, Runnable onFinished) throws IllegalArgumentException {
+		if(table.started) {
+			throw new IllegalArgumentException("Trying to run a table that has already been played on!");
+		}
+		
+		PacedGame game = new PacedGame(table, slist, source, onFinished);
+		table.setSuspendable(source != null);
+		table.setDeferDelays(true);
+		running.incrementAndGet();
+		
+		try {
+			scheduler.execute(game);
+		} catch(RejectedExecutionException ree) {
+			game.finish(true);
+		}
+		
+		return game;
+	}
+	
+	/**
+	 * @return The number of games submitted and not yet finished.
+	 */
+	public int getRunningCount() {
+		return running.get();
+	}
+	
+	/**
+	 * Stops the runner; games that haven't finished play the turn they're waiting for, then count as aborted.
+	 */
+	public void shutdown() {
+		scheduler.shutdown();
+	}
+}
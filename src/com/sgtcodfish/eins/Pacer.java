@@ -0,0 +1,24 @@
+package com.sgtcodfish.eins;
+
+/**
+ * Decides how long the pauses in a game really last, e.g. between turns or while an AI pretends to think, so the same game can be played at
+ * a pace a person can follow, faster, or with no pauses at all for simulations. Each {@link Table} has one; see {@link Table#setPacer(Pacer)}.
+ * Pauses can either be waited out on the calling thread with {@link #pause(long)}, or left to a {@link PacedTableRunner} which schedules
+ * the next turn instead of holding a thread while nothing happens.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public interface Pacer {
+	/**
+	 * @param millis The length of a pause at normal speed, in milliseconds.
+	 * @return How long the pause should really last, in milliseconds; 0 if it should be skipped.
+	 */
+	public long scale(long millis);
+	
+	/**
+	 * Waits on the calling thread for as long as a pause of millis should last.
+	 * If the thread is interrupted the pause ends early, and the thread is left interrupted.
+	 * @param millis The length of the pause at normal speed, in milliseconds.
+	 * @return true if the whole pause was waited, false if it was interrupted.
+	 */
+	public boolean pause(long millis);
+}
@@ -0,0 +1,478 @@
+package com.sgtcodfish.eins;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Vector;
+import java.util.zip.CRC32;
+
+/**
+ * A {@link ScoreList} which is kept on disk as it changes, so that a long series of games can carry on after the program stops or crashes.
+ *
+ * The list is stored in two files next to each other: base.snap, a snapshot of every score at some point, and base.wal, a write-ahead log of the
+ * changes made since then. Each game's scores are added to the log as an entry holding the change in each player's score; entries are collected
+ * in memory and written in batches, and every so often a fresh snapshot is written and the log is emptied. Opening a list reads the snapshot
+ * and then every complete entry in the log, so a crash loses at most the entries that hadn't been written yet (see SyncPolicy).
+ *
+ * Every entry and the snapshot carry a CRC32, so an entry that was only partly written when the program died is noticed and dropped.
+ * Snapshots are written to a temporary file which is then renamed over the old snapshot, so there's always one complete snapshot, and every entry
+ * carries the number of games the list had counted before it, so entries that a snapshot already includes are skipped.
+ *
+ * A list can be given a description of what its scores are, e.g. which series of games they belong to. It's kept in the snapshot, and a list
+ * that's opened with a different description refuses to load, so one series is never carried on (or deleted) as if it were another.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class PersistentScoreList extends ScoreList implements Closeable {
+	public static final int BATCH_GAMES_DEFAULT = 256;
+	public static final int SNAPSHOT_INTERVAL_DEFAULT = 10000;
+	public static final String SNAPSHOT_SUFFIX = ".snap";
+	public static final String LOG_SUFFIX = ".wal";
+	
+	protected static final int SNAPSHOT_MAGIC = 0x45494E53; // "EINS"
+	protected static final int FORMAT_VERSION = 2; /** Version 1 snapshots had no description. */
+	protected static final int ENTRY_HEADER_SIZE = 8; /** The length and CRC before each entry. */
+	protected static final Charset UTF8 = Charset.forName("UTF-8");
+	
+	/**
+	 * When the log is forced out to the disk, rather than left for the operating system to write when it likes.
+	 * Whatever the policy, a crash of just the program (rather than the whole machine) only loses entries that haven't been written yet.
+	 */
+	public enum SyncPolicy {
+		NEVER, /** Batches are written but never forced; fastest, but a power cut can lose anything since the last snapshot. */
+		BATCH, /** Each batch is forced to the disk as it's written. */
+		EVERY_GAME; /** Every game is written and forced on its own; slowest, but nothing is ever lost. */
+	}
+	
+	protected Path snapshotPath;
+	protected Path logPath;
+	protected FileChannel log; /** The write-ahead log, open for appending. */
+	protected SyncPolicy policy;
+	protected String description; /** What the scores are of; "" if no description was given, or the files are from before descriptions were kept. */
+	protected int batchGames; /** The number of games to collect before writing them to the log. */
+	protected int snapshotInterval; /** The number of games between snapshots; 0 to only snapshot when closed. */
+	
+	protected ByteBuffer batch; /** Entries waiting to be written. */
+	protected int batchedGames; /** The number of games in batch. */
+	protected int gamesSinceSnapshot;
+	protected CRC32 crc;
+	protected byte[][] keyBytes; /** The UTF-8 encoding of each player's key, indexed by ID, so they're only encoded once. */
+	
+	/**
+	 * Opens (or creates) a list stored at base, with the default policy and intervals.
+	 * @param base The path of the files without their suffixes.
+	 * @throws IOException If the files can't be read or created, or are corrupt.
+	 */
+	public PersistentScoreList(String base) throws IOException {
+		this(base, null, SyncPolicy.BATCH, BATCH_GAMES_DEFAULT, SNAPSHOT_INTERVAL_DEFAULT);
+	}
+	
+	/**
+	 * Opens (or creates) a list stored at base, whatever its description. Any scores already stored there are loaded, including the ones in the log.
+	 * @param base The path of the files without their suffixes.
+	 * @param npolicy When to force the log to the disk.
+	 * @param nbatchGames The number of games to collect before writing them to the log; must be at least 1. Ignored for EVERY_GAME.
+	 * @param nsnapshotInterval The number of games between snapshots, or 0 to only snapshot when the list is closed.
+	 * @throws IOException If the files can't be read or created, or are corrupt.
+	 * @throws IllegalArgumentException If an interval is invalid.
+	 */
+	public PersistentScoreList(String base, SyncPolicy npolicy, int nbatchGames, int nsnapshotInterval) throws IOException, IllegalArgumentException {
+		this(base, null, npolicy, nbatchGames, nsnapshotInterval);
+	}
+	
+	/**
+	 * Opens (or creates) a list stored at base. Any scores already stored there are loaded, including the ones in the log.
+	 * @param base The path of the files without their suffixes.
+	 * @param ndescription What the scores are of. If the files already hold scores with a different description they aren't loaded; new files are
+	 *        given this description straight away. null to open the files whatever their description.
+	 * @param npolicy When to force the log to the disk.
+	 * @param nbatchGames The number of games to collect before writing them to the log; must be at least 1. Ignored for EVERY_GAME.
+	 * @param nsnapshotInterval The number of games between snapshots, or 0 to only snapshot when the list is closed.
+	 * @throws IOException If the files can't be read or created, are corrupt, or hold scores with a different description.
+	 * @throws IllegalArgumentException If an interval is invalid.
+	 */
+	public PersistentScoreList(String base, String ndescription, SyncPolicy npolicy, int nbatchGames, int nsnapshotInterval) throws IOException, IllegalArgumentException {
+		super();
+		
+		if(nbatchGames < 1 || nsnapshotInterval < 0) {
+			throw new IllegalArgumentException("Invalid batch size (" + nbatchGames + ") or snapshot interval (" + nsnapshotInterval + ")!");
+		}
+		
+		snapshotPath = Paths.get(base + SNAPSHOT_SUFFIX);
+		logPath = Paths.get(base + LOG_SUFFIX);
+		policy = npolicy;
+		batchGames = (policy == SyncPolicy.EVERY_GAME ? 1 : nbatchGames);
+		snapshotInterval = nsnapshotInterval;
+		batch = ByteBuffer.allocate(1 << 16);
+		batchedGames = 0;
+		gamesSinceSnapshot = 0;
+		crc = new CRC32();
+		keyBytes = new byte[8][];
+		description = "";
+		
+		boolean stored = loadSnapshot();
+		log = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		
+		try {
+			recoverLog();
+			
+			if(ndescription == null) {
+				// take whatever's there.
+			} else if(stored || datasetCount > 0) {
+				if(!description.equals(ndescription)) {
+					throw new IOException("Score files " + base + " hold the scores of " + (description.isEmpty() ? "an unknown series" : "\"" + description + "\"") +
+							", not of \"" + ndescription + "\".");
+				}
+			} else {
+				description = ndescription;
+				snapshot(); // so the description is on the disk before the first game is.
+			}
+		} catch(IOException ioe) {
+			log.close();
+			throw ioe;
+		}
+	}
+	
+	/**
+	 * Adds the scores of a finished game, and logs the change.
+	 * @throws IllegalArgumentException If players isn't the same list of players as every other game.
+	 * @throws IllegalStateException If the log can't be written to.
+	 */
+	@Override
+	public void addScores(Vector<CardEntity> players) throws IllegalArgumentException, IllegalStateException {
+		super.addScores(players);
+		int start = beginEntry(1, players.size());
+		
+		for(int i = 0; i < players.size(); i++) {
+			putDelta(lastIds[i], players.elementAt(i).tallyValues());
+		}
+		
+		endEntry(start, 1);
+	}
+	
+	/**
+	 * Adds all the scores in other to this list, and logs them as a single change.
+	 * @throws IllegalArgumentException If other has different players.
+	 * @throws IllegalStateException If the log can't be written to.
+	 */
+	@Override
+	public void merge(ScoreList other) throws IllegalArgumentException, IllegalStateException {
+		super.merge(other);
+		
+		if(other.datasetCount == 0) {
+			return;
+		}
+		
+		int start = beginEntry(other.datasetCount, other.playerCount);
+		
+		for(int id = 0; id < other.playerCount; id++) {
+			putDelta(find("", other.keys[id]), other.scores[id]);
+		}
+		
+		endEntry(start, other.datasetCount);
+	}
+	
+	/**
+	 * Starts an entry in the batch: [length][crc][games counted before the entry][games in the entry][number of deltas], then the deltas.
+	 * Called after the games have been counted.
+	 * @return The position of the start of the entry.
+	 */
+	protected int beginEntry(int games, int deltas) {
+		ensureBatchSpace(ENTRY_HEADER_SIZE + 14);
+		int start = batch.position();
+		batch.position(start + ENTRY_HEADER_SIZE);
+		batch.putLong(datasetCount - games).putInt(games).putShort((short)deltas);
+		return start;
+	}
+	
+	protected void putDelta(int id, int delta) {
+		if(id >= keyBytes.length) {
+			byte[][] nkeyBytes = new byte[Math.max(keyBytes.length * 2, id + 1)][];
+			System.arraycopy(keyBytes, 0, nkeyBytes, 0, keyBytes.length);
+			keyBytes = nkeyBytes;
+		}
+		
+		byte[] bytes = keyBytes[id];
+		
+		if(bytes == null) {
+			bytes = keys[id].getBytes(UTF8);
+			keyBytes[id] = bytes;
+		}
+		
+		ensureBatchSpace(6 + bytes.length);
+		batch.putShort((short)bytes.length).put(bytes).putInt(delta);
+	}
+	
+	/**
+	 * Fills in the length and CRC of the entry started at start, and writes the batch if it's full.
+	 * @throws IllegalStateException If the log can't be written to.
+	 */
+	protected void endEntry(int start, int games) throws IllegalStateException {
+		int bodyStart = start + ENTRY_HEADER_SIZE;
+		int length = batch.position() - bodyStart;
+		crc.reset();
+		crc.update(batch.array(), batch.arrayOffset() + bodyStart, length);
+		batch.putInt(start, length);
+		batch.putInt(start + 4, (int)crc.getValue());
+		
+		batchedGames++;
+		gamesSinceSnapshot += games;
+		
+		try {
+			if(snapshotInterval != 0 && gamesSinceSnapshot >= snapshotInterval) {
+				snapshot(); // includes everything in the batch.
+			} else if(batchedGames >= batchGames) {
+				flush(policy != SyncPolicy.NEVER);
+			}
+		} catch(IOException ioe) {
+			IllegalStateException ise = new IllegalStateException("Couldn't write to the score log " + logPath + ": " + ioe);
+			ise.initCause(ioe);
+			throw ise;
+		}
+	}
+	
+	/**
+	 * Makes sure the batch has room for count more bytes, growing it if an entry is bigger than the whole batch.
+	 * Only called while an entry is being built, so the batch is never written here; an entry is always written in one piece.
+	 */
+	protected void ensureBatchSpace(int count) {
+		if(batch.remaining() < count) {
+			ByteBuffer nbatch = ByteBuffer.allocate(Math.max(batch.capacity() * 2, batch.position() + count));
+			batch.flip();
+			nbatch.put(batch);
+			batch = nbatch;
+		}
+	}
+	
+	/**
+	 * Writes every batched entry to the log.
+	 * @param force If true, the log is forced to the disk afterwards.
+	 * @throws IOException
+	 */
+	protected void flush(boolean force) throws IOException {
+		batch.flip();
+		
+		while(batch.hasRemaining()) {
+			log.write(batch);
+		}
+		
+		batch.clear();
+		batchedGames = 0;
+		
+		if(force) {
+			log.force(false);
+		}
+	}
+	
+	/**
+	 * Writes every batched entry to the log and forces it to the disk, whatever the policy.
+	 * @throws IOException
+	 */
+	public void sync() throws IOException {
+		flush(true);
+	}
+	
+	/**
+	 * Writes every score to a new snapshot and empties the log, which makes opening the list quicker. Any batched entries are included in the snapshot.
+	 * @throws IOException
+	 */
+	public void snapshot() throws IOException {
+		byte[] descriptionBytes = description.getBytes(UTF8);
+		ByteBuffer buf = ByteBuffer.allocate(26 + descriptionBytes.length + playerCount * 64);
+		buf.putInt(SNAPSHOT_MAGIC).putInt(FORMAT_VERSION).putLong(datasetCount);
+		buf.putShort((short)descriptionBytes.length).put(descriptionBytes).putInt(playerCount);
+		
+		for(int id = 0; id < playerCount; id++) {
+			byte[] bytes = keys[id].getBytes(UTF8);
+			
+			if(buf.remaining() < 10 + bytes.length) {
+				ByteBuffer nbuf = ByteBuffer.allocate(buf.capacity() * 2 + bytes.length);
+				buf.flip();
+				nbuf.put(buf);
+				buf = nbuf;
+			}
+			
+			buf.putShort((short)bytes.length).put(bytes).putInt(scores[id]);
+		}
+		
+		crc.reset();
+		crc.update(buf.array(), buf.arrayOffset(), buf.position());
+		buf.putInt((int)crc.getValue());
+		buf.flip();
+		
+		Path temp = Paths.get(snapshotPath + ".tmp");
+		FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		
+		try {
+			while(buf.hasRemaining()) {
+				out.write(buf);
+			}
+			
+			out.force(true);
+		} finally {
+			out.close();
+		}
+		
+		Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		
+		// the snapshot has everything now; if we crash before the log is emptied, its entries are skipped when it's read because they're too old.
+		batch.clear();
+		batchedGames = 0;
+		gamesSinceSnapshot = 0;
+		log.truncate(0L);
+		log.position(0L);
+		log.force(false);
+	}
+	
+	/**
+	 * Reads the snapshot, if there is one.
+	 * @return true if there was a snapshot.
+	 * @throws IOException If it can't be read or is corrupt.
+	 */
+	protected boolean loadSnapshot() throws IOException {
+		if(!Files.exists(snapshotPath)) {
+			return false;
+		}
+		
+		ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(snapshotPath));
+		
+		try {
+			int version = (buf.remaining() < 24 || buf.getInt() != SNAPSHOT_MAGIC ? -1 : buf.getInt());
+			
+			if(version != 1 && version != FORMAT_VERSION) {
+				throw new IOException("Score snapshot " + snapshotPath + " isn't a snapshot, or is from a different version.");
+			}
+			
+			crc.reset();
+			crc.update(buf.array(), 0, buf.limit() - 4);
+			
+			if(buf.getInt(buf.limit() - 4) != (int)crc.getValue()) {
+				throw new IOException("Score snapshot " + snapshotPath + " is corrupt.");
+			}
+			
+			datasetCount = (int)buf.getLong();
+			
+			if(version > 1) {
+				byte[] bytes = new byte[buf.getShort() & 0xFFFF];
+				buf.get(bytes);
+				description = new String(bytes, UTF8);
+			}
+			
+			int count = buf.getInt();
+			
+			for(int i = 0; i < count; i++) {
+				byte[] bytes = new byte[buf.getShort() & 0xFFFF];
+				buf.get(bytes);
+				addToScore(intern(new String(bytes, UTF8)), buf.getInt());
+			}
+		} catch(BufferUnderflowException bue) {
+			throw new IOException("Score snapshot " + snapshotPath + " is truncated.");
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Applies every complete entry in the log that the snapshot doesn't already include, and cuts off anything after the last complete entry
+	 * (which can only be an entry that was being written when the program died).
+	 * @throws IOException If the log can't be read, or is missing entries.
+	 */
+	protected void recoverLog() throws IOException {
+		long size = log.size();
+		
+		if(size > Integer.MAX_VALUE) {
+			throw new IOException("Score log " + logPath + " is too big to read.");
+		}
+		
+		ByteBuffer buf = ByteBuffer.allocate((int)size);
+		
+		while(buf.hasRemaining() && log.read(buf, buf.position()) >= 0) {
+		}
+		
+		buf.flip();
+		int good = 0;
+		
+		while(buf.remaining() >= ENTRY_HEADER_SIZE) {
+			int length = buf.getInt();
+			int sum = buf.getInt();
+			
+			if(length < 14 || length > buf.remaining()) {
+				break;
+			}
+			
+			crc.reset();
+			crc.update(buf.array(), buf.position(), length);
+			
+			if(sum != (int)crc.getValue()) {
+				break;
+			}
+			
+			int end = buf.position() + length;
+			long before = buf.getLong();
+			int games = buf.getInt();
+			int deltas = buf.getShort() & 0xFFFF;
+			
+			if(before > datasetCount) {
+				throw new IOException("Score log " + logPath + " is missing the games between " + datasetCount + " and " + before + ".");
+			} else if(before < datasetCount) {
+				// already in the snapshot.
+				buf.position(end);
+			} else {
+				for(int i = 0; i < deltas; i++) {
+					byte[] bytes = new byte[buf.getShort() & 0xFFFF];
+					buf.get(bytes);
+					addToScore(intern(new String(bytes, UTF8)), buf.getInt());
+				}
+				
+				datasetCount += games;
+				gamesSinceSnapshot += games;
+			}
+			
+			good = end;
+		}
+		
+		if(good != size) {
+			log.truncate(good);
+			log.force(false);
+		}
+		
+		log.position(good);
+	}
+	
+	/**
+	 * @return What the scores are of, as given when the files were created; "" if they weren't given a description.
+	 */
+	public String getDescription() {
+		return description;
+	}
+	
+	/**
+	 * Writes a final snapshot and closes the log.
+	 * @throws IOException
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			snapshot();
+		} finally {
+			log.close();
+		}
+	}
+	
+	/**
+	 * Closes the list and deletes its files, e.g. once a series of games is over.
+	 * @throws IOException
+	 */
+	public void delete() throws IOException {
+		log.close();
+		Files.deleteIfExists(logPath);
+		Files.deleteIfExists(snapshotPath);
+	}
+}
@@ -1,7 +1,5 @@
 package com.sgtcodfish.eins;
 
-import java.util.Stack;
-
 /**
  * The Pile of cards is specifically the "playing pile" of cards, which players place cards on.
  * Inverse to a deck, which starts with all the cards and only loses them, a pile starts with nothing and gains cards.
@@ -9,36 +7,37 @@ import java.util.Stack;
  *
  */
 public class Pile {
-	protected Stack<Card> cards; /** A stack of the cards comprising this Pile */
+	protected CardBuffer cards; /** The cards comprising this Pile, stored in the pile region of a buffer usually shared with the {@link Deck}. */
 	protected Table table; /** The table with which this Pile is associated */
 	
 	/**
-	 * Creates a pile with the first card being the top card of the specified {@link Deck}.
+	 * Creates a pile with the first card being the top card of the specified {@link Deck}. The pile shares the deck's {@link CardBuffer}.
 	 * Note that this constructor means you should make the Pile class after you have dealt the cards, to perfectly mimic the actual game, although mathematically this is irrelevant.
 	 * @param d The deck from which to "seed" the pile.
 	 */
 	public Pile(Deck d, Table t) {
-		cards = new Stack<Card>();
-		cards.add(d.takeCard());
+		cards = d.getBuffer();
 		table = t;
+		addCard(d.takeCard());
 	}
 	
 	/**
-	 * Creates a pile using c as the first card; used mainly to "recreate" the pile after the deck has been exhausted.
+	 * Creates a pile using c as the first card, with its own buffer rather than sharing one with a deck. Such a pile can't be used to reseed a deck.
 	 * @param c The card to start the pile with.
 	 */
 	public Pile(Card c, Table t) {
-		cards = new Stack<Card>();
-		cards.add(c);
+		cards = new CardBuffer();
+		cards.clear();
 		table = t;
+		addCard(c);
 	}
 	
 	/**
-	 * Adds a card to the pile, taking care to ensure the move is legal.
+	 * Adds a card to the pile. The caller is responsible for making sure the move is legal.
 	 * @param ncard
 	 */
 	public void addCard(Card ncard) {
-		cards.add(ncard);
+		cards.addToPile(ncard.getCode());
 	}
 	
 	/**
@@ -46,33 +45,29 @@ public class Pile {
 	 * @return The top card of the pile.
 	 */
 	public Card getTopCard() {
-		return cards.peek();
+		return CardCode.getCard(cards.peekPile());
+	}
+	
+	/**
+	 * @return The number of cards in the pile.
+	 */
+	public int countCards() {
+		return cards.getPileSize();
 	}
 	
 	/**
 	 * Used to recreate the deck d with the cards in the pile after the deck has been exhausted. Deck.reseed() should never be called by the user; use this method instead.
-	 * Keeps the top card of the pile as the first card of the new pile and adds all of the rest of the cards to d.
-	 * @param d The deck which we will reseed.
+	 * Keeps the top card of the pile as the first card of the new pile and turns the rest of the cards into d, which is then shuffled.
+	 * @param d The deck which we will reseed; must share this pile's buffer.
 	 * @throws IllegalArgumentException
-	 * @throws IllegalStateException
 	 */
-	public void reseed(Deck d) throws IllegalArgumentException,IllegalStateException {
+	public void reseed(Deck d) throws IllegalArgumentException {
 		if(d.countCards() != 0) {
 			throw new IllegalArgumentException("Trying to reseed with a non-empty deck!");
+		} else if(d.getBuffer() != cards) {
+			throw new IllegalArgumentException("Trying to reseed a deck which this pile wasn't dealt from!");
 		}
 		
-		Card top = cards.pop(); // keep the top card of the pile for later.
-		
-		d.reseed(cards);
-		
-		if(cards.size() != 0) {
-			for(Card c : cards) {
-				System.out.println(c);
-			}
-			
-			throw new IllegalStateException("deck.reseed(Stack<Card>) didn't empty the pile.");
-		}
-		
-		cards.add(top);
+		d.reseed();
 	}
 }
@@ -0,0 +1,126 @@
+package com.sgtcodfish.eins;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+/**
+ * The parts of an {@link EINSIOHandler} for a player connected over the network that don't depend on how the connection is handled; see
+ * {@link SocketIOHandler} and {@link SelectorIOHandler}. Everything is sent to the player, including errors, and regular output is buffered until
+ * flush() or an input method, like {@link ConsoleIOHandler}.
+ *
+ * The wire protocol is plain lines of UTF-8 text in both directions. Whenever the handler is about to wait for input, PROMPT is sent after the output
+ * so that scripted clients (see {@link EinsClient}) know when to answer; it's a control character, so people connecting with a plain terminal client
+ * won't see it. The player answers with one line: a number for a menu (readInt), or text such as a colour or their name (readString).
+ * If the player disconnects, or doesn't answer within the idle timeout, the input methods throw an IllegalStateException, which ends the game.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public abstract class RemoteIOHandler implements EINSIOHandler, Closeable {
+	public static final char PROMPT = '\u0005'; /** Sent when waiting for input (ASCII ENQ). */
+	public static final Charset CHARSET = Charset.forName("UTF-8");
+	
+	protected StringBuilder outputBuffer = new StringBuilder();
+	
+	@Override
+	public boolean isOutputEnabled() {
+		return true;
+	}
+	
+	@Override
+	public void println(String str) {
+		outputBuffer.append(str);
+		outputBuffer.append('\n');
+	}
+	
+	@Override
+	public void print(String str) {
+		outputBuffer.append(str);
+	}
+	
+	@Override
+	public void printErrorln(String err) {
+		println(err);
+		flushQuietly();
+	}
+	
+	@Override
+	public void printError(String err) {
+		print(err);
+		flushQuietly();
+	}
+	
+	/**
+	 * Sends everything printed so far.
+	 * @throws IllegalStateException If the player has disconnected.
+	 */
+	@Override
+	public abstract void flush() throws IllegalStateException;
+	
+	/**
+	 * Flushes, ignoring a disconnected player; used for errors, which are often about the player disconnecting.
+	 */
+	protected void flushQuietly() {
+		try {
+			flush();
+		} catch(IllegalStateException ise) {
+		}
+	}
+	
+	/**
+	 * Sends the output and the prompt, then waits for the next line from the player.
+	 * @return The line, without its line ending.
+	 * @throws IllegalStateException If the player has disconnected or timed out.
+	 */
+	protected abstract String readLine() throws IllegalStateException;
+	
+	@Override
+	public String readString() throws IllegalStateException {
+		return readString(false);
+	}
+	
+	@Override
+	public String readString(boolean wsOK) throws IllegalStateException {
+		String line = null;
+		
+		do {
+			line = readLine();
+		} while(!wsOK && line.trim().length() == 0);
+		
+		return line;
+	}
+	
+	/**
+	 * Flushes the output and waits; the pause is sent as a few dots, like {@link ConsoleIOHandler#doDelay(int)}.
+	 */
+	@Override
+	public void doDelay(int delay) {
+		flush();
+		
+		int shorterDelay = delay/5;
+		
+		for(int i = 0; i < 5; i++) {
+			try {
+				print(".");
+				flush();
+				Thread.sleep(shorterDelay);
+			} catch(InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		
+		println("");
+		flush();
+	}
+	
+	/**
+	 * @return true once the player has disconnected, timed out or the connection has been closed.
+	 */
+	public abstract boolean isClosed();
+	
+	/**
+	 * Sends anything left in the buffer and closes the connection.
+	 */
+	@Override
+	public abstract void close() throws IOException;
+}
@@ -0,0 +1,93 @@
+package com.sgtcodfish.eins;
+
+import com.sgtcodfish.eins.Card.CardColour;
+
+/**
+ * A player which makes the moves recorded in a game log instead of deciding for itself. All the ReplayPlayers at a table share one {@link GameReplay},
+ * which hands out the recorded moves in order to whoever's turn it is.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class ReplayPlayer extends CardEntity {
+	protected GameReplay replay; /** Where the recorded moves come from. */
+	protected int seatKind; /** The kind of player who sat here when the game was recorded; see GameLog.seatKind. */
+	
+	/**
+	 * @param nname The name for the player.
+	 * @param nseatKind The kind of player who made the moves being replayed.
+	 * @param nreplay The replay the moves come from.
+	 */
+	public ReplayPlayer(String nname, int nseatKind, GameReplay nreplay) {
+		super(nname);
+		seatKind = nseatKind;
+		replay = nreplay;
+	}
+	
+	/**
+	 * Makes recorded moves until one of them ends the turn: playing a card or passing.
+	 * @throws IllegalStateException If the log doesn't match the game, e.g. a card is played that isn't in the player's hand.
+	 */
+	@Override
+	public void doTurn() throws IllegalStateException {
+		while(true) {
+			int move = replay.nextMove();
+			
+			if(GameLog.isCard(move)) {
+				try {
+					playCard(CardCode.getCard(move));
+				} catch(IllegalArgumentException iae) {
+					throw new IllegalStateException("Replay doesn't match the game: " + iae.getMessage());
+				}
+				
+				return;
+			}
+			
+			switch(move) {
+			case GameLog.DRAW:
+				drawCard();
+				break;
+			
+			case GameLog.PASS:
+				playCard(null);
+				return;
+			
+			case GameLog.EINS:
+				sayEins();
+				break;
+			
+			case GameLog.ACCUSE:
+				accuseEins();
+				break;
+			
+			default:
+				throw new IllegalStateException("Replay doesn't match the game: " + getName() + " can't make move " + move + " at the start of a turn.");
+			}
+		}
+	}
+	
+	/**
+	 * @return The colour recorded as chosen.
+	 * @throws IllegalStateException If the next recorded move isn't a colour.
+	 */
+	@Override
+	public CardColour askForColour() throws IllegalStateException {
+		int move = replay.nextMove();
+		
+		if(!GameLog.isColour(move)) {
+			throw new IllegalStateException("Replay doesn't match the game: expected " + getName() + " to choose a colour but found move " + move);
+		}
+		
+		return CardColour.values()[move - GameLog.COLOUR];
+	}
+	
+	/**
+	 * @return The kind of player who sat here when the game was recorded; see GameLog.seatKind.
+	 */
+	public int getSeatKind() {
+		return seatKind;
+	}
+	
+	@Override
+	public String getSubclassIdentifier() {
+		return "[REPLAY]";
+	}
+}
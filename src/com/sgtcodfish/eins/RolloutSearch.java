@@ -0,0 +1,287 @@
+package com.sgtcodfish.eins;
+
+import java.util.Random;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chooses moves with flat Monte Carlo rollouts spread over several threads: every legal move is tried in many random playouts of the rest of the game,
+ * and the move with the best average result is chosen.
+ *
+ * Each worker has its own {@link GameState} and {@link FastRandom} and keeps its own totals, so the workers share nothing while they run apart from a
+ * counter of the playouts left; the totals are only added up once every worker has finished. Each playout starts from a fresh guess at the cards the
+ * searching player can't see ({@link GameState#determinize(int, Random)}), and workers take the moves in turn so that every move is tried about as
+ * often as every other.
+ *
+ * The workers run on a shared pool of at most one daemon thread per processor, which stops its threads again when they're idle, so creating lots
+ * of RolloutSearches (e.g. one per AI per game in a simulation) doesn't create lots of threads. Workers beyond that wait their turn; a worker that
+ * only starts once the budget is used up returns at once.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class RolloutSearch implements MoveSearch {
+	public static final int PLAYOUTS_DEFAULT = 4000;
+	public static final long TIME_MILLIS_DEFAULT = 200L;
+	
+	protected static ExecutorService sharedPool = null; /** The threads every RolloutSearch runs its workers on; created when first needed. */
+	protected static final long POOL_IDLE_SECONDS = 60L; /** How long a pool thread waits for work before it stops. */
+	
+	/**
+	 * One thread's share of a search.
+	 */
+	protected class Worker implements Callable<Worker> {
+		protected GameState state; /** The scratch state each playout is played in. */
+		protected FastRandom random;
+		protected double[] rewards; /** The total reward of each move's playouts, in the same order as moves. */
+		protected int[] playouts; /** The number of playouts of each move. */
+		protected int offset; /** The move this worker tries first, so that the workers don't all start with the same one. */
+		
+		protected Worker(long seed, int noffset) {
+			random = new FastRandom(seed);
+			rewards = new double[GameState.MAX_MOVES];
+			playouts = new int[GameState.MAX_MOVES];
+			offset = noffset;
+		}
+		
+		@Override
+		public Worker call() {
+			if(state == null || state.getPlayerCount() != root.getPlayerCount()) {
+				state = new GameState(root.getPlayerCount());
+			}
+			
+			for(int m = 0; m < moveCount; m++) {
+				rewards[m] = 0.0d;
+				playouts[m] = 0;
+			}
+			
+			int observer = root.getCurrentPlayer();
+			int m = offset % moveCount;
+			
+			while(remaining.decrementAndGet() >= 0) {
+				if(timeNanos != 0L && System.nanoTime() >= deadline) {
+					break;
+				}
+				
+				state.copyFrom(root);
+				state.determinize(observer, random);
+				state.apply(moves[m], random);
+				state.playout(random, MCTSSearch.PLAYOUT_MOVES_MAX);
+				rewards[m] += state.getReward(observer);
+				playouts[m]++;
+				
+				if(++m == moveCount) {
+					m = 0;
+				}
+			}
+			
+			return this;
+		}
+	}
+	
+	protected int workerCount; /** The number of playouts run at once. */
+	protected int iterations; /** The most playouts a search may run in total; 0 for no limit. */
+	protected long timeNanos; /** The longest a search may take; 0 for no limit. */
+	protected Random seedSource; /** Seeds each worker's random number generator. */
+	protected Worker[] workers;
+	
+	// the search in progress, read by every worker.
+	protected GameState root;
+	protected int[] moves;
+	protected int moveCount;
+	protected long deadline;
+	protected AtomicInteger remaining;
+	
+	protected int lastIterations; /** The number of playouts run by the last search. */
+	protected long lastNanos; /** How long the last search took. */
+	
+	/**
+	 * Creates a search with the default budget, using one worker for each processor.
+	 * @param nseedSource Seeds each worker's own random number generator.
+	 */
+	public RolloutSearch(Random nseedSource) {
+		this(Runtime.getRuntime().availableProcessors(), PLAYOUTS_DEFAULT, TIME_MILLIS_DEFAULT, nseedSource);
+	}
+	
+	/**
+	 * Creates a search with the given number of workers and budget.
+	 * @param nworkerCount The number of playouts to run at once; must be at least 1.
+	 * @param niterations The most playouts to run for each move, or 0 for no limit.
+	 * @param timeMillis The longest to search for each move, in milliseconds, or 0 for no limit.
+	 * @param nseedSource Seeds each worker's own random number generator.
+	 * @throws IllegalArgumentException If the worker count or budget is invalid.
+	 */
+	public RolloutSearch(int nworkerCount, int niterations, long timeMillis, Random nseedSource) throws IllegalArgumentException {
+		seedSource = nseedSource;
+		setWorkerCount(nworkerCount);
+		setBudget(niterations, timeMillis);
+		moves = new int[GameState.MAX_MOVES];
+		remaining = new AtomicInteger();
+	}
+	
+	/**
+	 * @param nworkerCount The number of playouts to run at once; must be at least 1.
+	 * @throws IllegalArgumentException
+	 */
+	public void setWorkerCount(int nworkerCount) throws IllegalArgumentException {
+		if(nworkerCount < 1) {
+			throw new IllegalArgumentException("A RolloutSearch needs at least 1 worker, not " + nworkerCount + "!");
+		}
+		
+		workerCount = nworkerCount;
+		workers = new Worker[workerCount];
+		
+		for(int i = 0; i < workerCount; i++) {
+			workers[i] = new Worker(seedSource.nextLong(), i);
+		}
+	}
+	
+	public int getWorkerCount() {
+		return workerCount;
+	}
+	
+	@Override
+	public void setBudget(int niterations, long timeMillis) throws IllegalArgumentException {
+		if(niterations < 0 || timeMillis < 0L || (niterations == 0 && timeMillis == 0L)) {
+			throw new IllegalArgumentException("Invalid search budget of " + niterations + " playouts and " + timeMillis + "ms!");
+		}
+		
+		iterations = niterations;
+		timeNanos = timeMillis * 1000000L;
+	}
+	
+	/**
+	 * @return The pool of daemon threads that every search's workers run on, one for each processor.
+	 */
+	protected static synchronized ExecutorService getSharedPool() {
+		if(sharedPool == null) {
+			int threads = Runtime.getRuntime().availableProcessors();
+			ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, POOL_IDLE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+					new ThreadFactory() {
+				private final AtomicInteger threadCount = new AtomicInteger();
+				
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "RolloutSearch-" + threadCount.incrementAndGet());
+					t.setDaemon(true); // never keep the game running just because a search might want these.
+					return t;
+				}
+			});
+			pool.allowCoreThreadTimeOut(true);
+			sharedPool = pool;
+		}
+		
+		return sharedPool;
+	}
+	
+	/**
+	 * Tries every legal move in random playouts and picks the one with the highest average reward for the current player.
+	 * With one worker, everything runs on the calling thread.
+	 * @param nroot The state to search from; not changed.
+	 * @return The move to make.
+	 * @throws IllegalArgumentException If the game in root is already over.
+	 * @throws IllegalStateException If a worker fails.
+	 */
+	@Override
+	public int search(GameState nroot) throws IllegalArgumentException, IllegalStateException {
+		long start = System.nanoTime();
+		moveCount = nroot.legalMoves(moves);
+		
+		if(moveCount == 0) {
+			throw new IllegalArgumentException("Trying to search a finished game!");
+		} else if(moveCount == 1) {
+			lastIterations = 0;
+			lastNanos = System.nanoTime() - start;
+			return moves[0];
+		}
+		
+		root = nroot;
+		deadline = start + timeNanos;
+		remaining.set(iterations == 0 ? Integer.MAX_VALUE : iterations);
+		
+		if(workerCount == 1) {
+			workers[0].call();
+		} else {
+			Vector<Future<Worker>> futures = new Vector<Future<Worker>>(workerCount);
+			
+			for(Worker w : workers) {
+				futures.add(getSharedPool().submit(w));
+			}
+			
+			try {
+				for(Future<Worker> f : futures) {
+					f.get();
+				}
+			} catch(InterruptedException ie) {
+				abandon(futures);
+				Thread.currentThread().interrupt();
+				IllegalStateException ise = new IllegalStateException("Interrupted while waiting for RolloutSearch workers!");
+				ise.initCause(ie);
+				throw ise;
+			} catch(ExecutionException ee) {
+				abandon(futures);
+				IllegalStateException ise = new IllegalStateException("A RolloutSearch worker failed: " + ee.getCause());
+				ise.initCause(ee.getCause());
+				throw ise;
+			}
+		}
+		
+		// add up every worker's totals and pick the best average.
+		int best = 0;
+		double bestAverage = -1.0d;
+		lastIterations = 0;
+		
+		for(int m = 0; m < moveCount; m++) {
+			double total = 0.0d;
+			int count = 0;
+			
+			for(Worker w : workers) {
+				total += w.rewards[m];
+				count += w.playouts[m];
+			}
+			
+			lastIterations += count;
+			
+			if(count > 0 && total / count > bestAverage) {
+				best = m;
+				bestAverage = total / count;
+			}
+		}
+		
+		root = null;
+		lastNanos = System.nanoTime() - start;
+		return moves[best];
+	}
+	
+	/**
+	 * Stops a failed search: cancels every worker that hasn't finished, and replaces the workers so that one still winding down can't change the
+	 * totals of the next search.
+	 * @param futures The workers of the failed search.
+	 */
+	protected void abandon(Vector<Future<Worker>> futures) {
+		remaining.set(0); // stop the workers that are already running as soon as possible.
+		
+		for(Future<Worker> f : futures) {
+			f.cancel(true);
+		}
+		
+		root = null;
+		setWorkerCount(workerCount);
+	}
+	
+	@Override
+	public int getLastIterations() {
+		return lastIterations;
+	}
+	
+	@Override
+	public long getLastNanos() {
+		return lastNanos;
+	}
+}
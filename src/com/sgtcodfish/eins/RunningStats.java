@@ -0,0 +1,143 @@
+package com.sgtcodfish.eins;
+
+/**
+ * The count, mean, variance, minimum and maximum of a stream of numbers, kept in constant memory in a single pass using Welford's method,
+ * which doesn't lose precision the way summing squares does over millions of values.
+ * Two sets of statistics over different values can be combined exactly with {@link #add(RunningStats)}, so each thread can keep its own.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class RunningStats {
+	public static final double Z_95 = 1.959963984540054d; /** The number of standard errors either side of the mean in a 95% confidence interval. */
+	
+	protected long count;
+	protected double mean;
+	protected double m2; /** The sum of the squared differences from the mean. */
+	protected double min;
+	protected double max;
+	
+	/**
+	 * Creates statistics of no values.
+	 */
+	public RunningStats() {
+		count = 0L;
+		mean = 0.0d;
+		m2 = 0.0d;
+		min = Double.POSITIVE_INFINITY;
+		max = Double.NEGATIVE_INFINITY;
+	}
+	
+	/**
+	 * Adds a value.
+	 */
+	public void add(double x) {
+		count++;
+		double delta = x - mean;
+		mean += delta / count;
+		m2 += delta * (x - mean);
+		min = Math.min(min, x);
+		max = Math.max(max, x);
+	}
+	
+	/**
+	 * Adds every value added to other, as if they'd been added here (Chan et al.'s parallel form of Welford's method).
+	 * @param other The statistics to add.
+	 */
+	public void add(RunningStats other) {
+		if(other.count == 0L) {
+			return;
+		} else if(count == 0L) {
+			count = other.count;
+			mean = other.mean;
+			m2 = other.m2;
+			min = other.min;
+			max = other.max;
+			return;
+		}
+		
+		long n = count + other.count;
+		double delta = other.mean - mean;
+		mean += delta * other.count / n;
+		m2 += other.m2 + delta * delta * ((double)count * other.count / n);
+		count = n;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+	
+	public long getCount() {
+		return count;
+	}
+	
+	/**
+	 * @return The mean, or 0 if there are no values.
+	 */
+	public double getMean() {
+		return mean;
+	}
+	
+	/**
+	 * @return The sample variance, or 0 if there are fewer than 2 values.
+	 */
+	public double getVariance() {
+		return (count < 2L ? 0.0d : m2 / (count - 1));
+	}
+	
+	public double getStandardDeviation() {
+		return Math.sqrt(getVariance());
+	}
+	
+	/**
+	 * @return The standard error of the mean, or 0 if there are fewer than 2 values.
+	 */
+	public double getStandardError() {
+		return (count < 2L ? 0.0d : Math.sqrt(getVariance() / count));
+	}
+	
+	/**
+	 * @return Half the width of the 95% confidence interval of the mean, using the normal approximation (which is fine for the large counts
+	 * simulations produce).
+	 */
+	public double getConfidence95() {
+		return Z_95 * getStandardError();
+	}
+	
+	/**
+	 * @return The smallest value, or 0 if there are no values.
+	 */
+	public double getMin() {
+		return (count == 0L ? 0.0d : min);
+	}
+	
+	/**
+	 * @return The largest value, or 0 if there are no values.
+	 */
+	public double getMax() {
+		return (count == 0L ? 0.0d : max);
+	}
+	
+	/**
+	 * @return The mean and its 95% confidence interval, e.g. "12.34 +- 0.56".
+	 */
+	@Override
+	public String toString() {
+		return String.format("%.2f +- %.2f", getMean(), getConfidence95());
+	}
+	
+	/**
+	 * @param successes The number of successes, e.g. games won.
+	 * @param trials The number of trials, e.g. games played.
+	 * @return The lower and upper ends of the 95% Wilson score interval of the success rate, which unlike the normal approximation stays
+	 * sensible for rates near 0 or 1.
+	 */
+	public static double[] wilsonInterval(long successes, long trials) {
+		if(trials == 0L) {
+			return new double[] {0.0d, 1.0d};
+		}
+		
+		double p = (double)successes / trials;
+		double z2 = Z_95 * Z_95;
+		double denominator = 1.0d + z2 / trials;
+		double centre = (p + z2 / (2.0d * trials)) / denominator;
+		double half = Z_95 * Math.sqrt(p * (1.0d - p) / trials + z2 / (4.0d * trials * trials)) / denominator;
+		return new double[] {Math.max(0.0d, centre - half), Math.min(1.0d, centre + half)};
+	}
+}
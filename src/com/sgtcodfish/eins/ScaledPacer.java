@@ -0,0 +1,50 @@
+package com.sgtcodfish.eins;
+
+/**
+ * An implementation of {@link Pacer} which makes every pause last a fixed multiple of its normal length, e.g. 0.25 to play four times as fast.
+ * {@link #REAL_TIME} plays at normal speed, the pace of a game with a human player.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class ScaledPacer implements Pacer {
+	public static final ScaledPacer REAL_TIME = new ScaledPacer(1.0d);
+	
+	protected double factor; /** What every pause is multiplied by. */
+	
+	/**
+	 * @param nfactor What every pause is multiplied by; must be positive and finite.
+	 * @throws IllegalArgumentException
+	 */
+	public ScaledPacer(double nfactor) throws IllegalArgumentException {
+		if(!(nfactor > 0.0d) || Double.isInfinite(nfactor)) {
+			throw new IllegalArgumentException("Trying to create a pacer with an invalid factor (" + nfactor + ")!");
+		}
+		
+		factor = nfactor;
+	}
+	
+	@Override
+	public long scale(long millis) {
+		return (millis <= 0L ? 0L : Math.round(millis * factor));
+	}
+	
+	@Override
+	public boolean pause(long millis) {
+		long scaled = scale(millis);
+		
+		if(scaled <= 0L) {
+			return !Thread.currentThread().isInterrupted();
+		}
+		
+		try {
+			Thread.sleep(scaled);
+			return true;
+		} catch(InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+	
+	public double getFactor() {
+		return factor;
+	}
+}
@@ -1,84 +1,449 @@
 package com.sgtcodfish.eins;
 
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.TreeMap;
 import java.util.Vector;
 
 /**
  * Defines a list of scores for a single game of EINS. Intended to be used to support multi-game "tournaments" with persistant scores.
- * 
- * Note that if there are two matching names in the list of players, one will be renamed.
+ *
+ * Each player is identified by a key made from their subclass identifier and their name, so a human can't share a score with a computer by naming
+ * themselves "Computer 1". Keys are interned to small int IDs the first time they're seen, and the scores are kept in plain arrays indexed by ID.
+ * Looking up a player's ID doesn't build their key, so adding a game's scores doesn't allocate anything.
+ *
+ * The players are also kept in a ranking which is updated as scores change, rather than sorted whenever it's printed: a treap ordered by score
+ * (lowest, i.e. best, first) and then by ID, where each node knows the size of its subtree. Finding a player's rank or the player at a rank takes
+ * O(log n) time, and listing the top k players takes O(k + log n).
  * @author Ashley Davis (SgtCoDFish)
  */
 public class ScoreList {
-	protected int playerCount;
+	protected static final int NONE = -1; /** The ID used for "no player", e.g. an empty subtree. */
+	
+	protected int playerCount; /** The number of distinct keys, and so the next ID to give out. */
 	protected int datasetCount;
-	protected HashMap<String, Integer> hash;
 	
-	// probably won't work but left in for curiosity's sake
-	// will order from lowest to highest
-	class HashComparator implements Comparator<String> {
-		Map<String, Integer> base;
+	protected String[] keys; /** The key of each player, indexed by ID. */
+	protected int[] scores; /** The score of each player, indexed by ID. */
+	protected int[] hashes; /** The hashCode() of each key, indexed by ID. */
+	protected int[] table; /** Open addressing hash table of ID + 1 for each key, 0 for an empty slot; its length is a power of 2. */
+	
+	// the ranking treap, each array indexed by ID.
+	protected int root; /** The ID at the root of the treap, or NONE. */
+	protected int[] left;
+	protected int[] right;
+	protected int[] size; /** The number of players in the subtree under each node, including the node. */
+	protected int[] priority; /** Random priorities which keep the treap balanced; a parent's is always at least its children's. */
+	protected int nextPriority; /** The state of the xorshift generator for priorities, so the same games always build the same treap. */
+	
+	protected int[] lastIds; /** The ID of each player in the last call to addScores, in the same order. */
+	
+	public ScoreList() {
+		playerCount = 0;
+		datasetCount = 0;
+		keys = new String[8];
+		scores = new int[8];
+		hashes = new int[8];
+		table = new int[16];
+		root = NONE;
+		left = new int[8];
+		right = new int[8];
+		size = new int[8];
+		priority = new int[8];
+		nextPriority = 0x2545F491;
+		lastIds = new int[8];
+	}
+	
+	/**
+	 * Adds the scores of a finished game, i.e. the value of the cards left in each player's hand.
+	 * The first game added decides the players in the list; every later game must have the same players.
+	 * @param players The players of the game.
+	 * @throws IllegalArgumentException If a player isn't in the list and the list already has games.
+	 */
+	public void addScores(Vector<CardEntity> players) throws IllegalArgumentException {
+		if(lastIds.length < players.size()) {
+			lastIds = new int[players.size()];
+		}
+		
+		// find everyone before changing anything, so that a bad list of players doesn't leave half a game added.
+		for(int i = 0; i < players.size(); i++) {
+			CardEntity ce = players.elementAt(i);
+			int id = find(ce.getSubclassIdentifier(), ce.getName());
+			
+			if(id == NONE) {
+				if(datasetCount != 0) {
+					throw new IllegalArgumentException("Trying to use a different player list in a constant ScoreList!");
+				}
+				
+				id = intern(ce.getSubclassIdentifier() + ce.getName());
+			}
+			
+			lastIds[i] = id;
+		}
 		
-		public HashComparator(Map<String, Integer> n) {
-			this.base = n;
+		for(int i = 0; i < players.size(); i++) {
+			addToScore(lastIds[i], players.elementAt(i).tallyValues());
 		}
 		
-		@Override
-		public int compare(String a, String b) {
-			if(base.get(a) >= base.get(b)) {
-				return 1;
-			} else {
-				return -1;
+		datasetCount++;
+	}
+	
+	/**
+	 * Adds all the scores in other to this list, as if every game added to other had been added here instead.
+	 * Used to combine the per-thread lists of a {@link Tournament} once all the games are finished.
+	 * @param other The list to merge into this one. Must have the same players as this list, unless one of the lists is empty.
+	 * @throws IllegalArgumentException
+	 */
+	public void merge(ScoreList other) throws IllegalArgumentException {
+		if(other.datasetCount == 0) {
+			return;
+		}
+		
+		if(datasetCount != 0) {
+			boolean same = (other.playerCount == playerCount);
+			
+			for(int id = 0; same && id < other.playerCount; id++) {
+				same = (find("", other.keys[id]) != NONE);
 			}
+			
+			if(!same) {
+				throw new IllegalArgumentException("Trying to merge a ScoreList with a different player list!");
+			}
+		}
+		
+		for(int id = 0; id < other.playerCount; id++) {
+			addToScore(intern(other.keys[id]), other.scores[id]);
 		}
+		
+		datasetCount += other.datasetCount;
 	}
 	
-	public ScoreList() {
-		playerCount = 0;
-		hash = new HashMap<String, Integer>();
+	/**
+	 * Adds delta to the score of a player and moves them to their new place in the ranking.
+	 */
+	protected void addToScore(int id, int delta) {
+		if(delta == 0) {
+			return;
+		}
+		
+		root = remove(root, id);
+		scores[id] += delta;
+		root = insert(root, id);
 	}
 	
 	/**
-	 * Adds a vector of players to the hashtable, using a unique ID for their names and storing their scores.
-	 * @param players
-	 * @throws IllegalArgumentException
+	 * Finds the ID of the key prefix + name, without building the key.
+	 * @return The ID, or NONE if the key isn't in the list.
 	 */
-	public void addScores(Vector<CardEntity> players) throws IllegalArgumentException {
-		// need to check to make sure there are no duplicate names in players
-		// this could happen if a player enters their name as "Computer 1" for example.
-		
-		for(CardEntity ce : players) { // iterate through each player, check for name conflicts, and then add to the hashtable.
-//			for(CardEntity in : players) {
-//				if(ce != in) {
-//					if(ce.getName().compareTo(in.getName()) == 0) {
-//						// we have a name conflict, change ce's name
-//						ce.setName(ce.getName() + " (")
-//					}
-//				}
-//			}
+	protected int find(String prefix, String name) {
+		// the same as (prefix + name).hashCode(), from the definition of String.hashCode().
+		int hash = prefix.hashCode();
+		
+		for(int i = name.length(); i > 0; i--) {
+			hash *= 31;
+		}
+		
+		hash += name.hashCode();
+		int length = prefix.length() + name.length();
+		int mask = table.length - 1;
+		
+		for(int slot = spread(hash) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+			int id = table[slot] - 1;
+			String key = keys[id];
+			
+			if(hashes[id] == hash && key.length() == length && key.startsWith(prefix) && key.regionMatches(prefix.length(), name, 0, name.length())) {
+				return id;
+			}
+		}
+		
+		return NONE;
+	}
+	
+	/**
+	 * @return The ID of key, giving it a new ID with a score of 0 if it isn't in the list yet.
+	 */
+	protected int intern(String key) {
+		int id = find("", key);
+		
+		if(id != NONE) {
+			return id;
+		}
+		
+		if(playerCount == keys.length) {
+			grow();
+		}
+		
+		id = playerCount++;
+		keys[id] = key;
+		hashes[id] = key.hashCode();
+		scores[id] = 0;
+		priority[id] = nextPriority();
+		
+		if(playerCount * 2 > table.length) {
+			rehash(table.length * 2);
+		} else {
+			putInTable(id);
+		}
+		
+		root = insert(root, id);
+		return id;
+	}
+	
+	protected void putInTable(int id) {
+		int mask = table.length - 1;
+		int slot = spread(hashes[id]) & mask;
+		
+		while(table[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		
+		table[slot] = id + 1;
+	}
+	
+	protected void rehash(int ncapacity) {
+		table = new int[ncapacity];
+		
+		for(int id = 0; id < playerCount; id++) {
+			putInTable(id);
+		}
+	}
+	
+	/**
+	 * Mixes the bits of a hash so that keys which only differ at the end (e.g. "Computer 1" and "Computer 2") don't fill neighbouring slots.
+	 */
+	protected static int spread(int hash) {
+		hash *= 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+	
+	protected void grow() {
+		int ncapacity = keys.length * 2;
+		String[] nkeys = new String[ncapacity];
+		System.arraycopy(keys, 0, nkeys, 0, playerCount);
+		keys = nkeys;
+		scores = growArray(scores, ncapacity);
+		hashes = growArray(hashes, ncapacity);
+		left = growArray(left, ncapacity);
+		right = growArray(right, ncapacity);
+		size = growArray(size, ncapacity);
+		priority = growArray(priority, ncapacity);
+	}
+	
+	protected int[] growArray(int[] a, int ncapacity) {
+		int[] na = new int[ncapacity];
+		System.arraycopy(a, 0, na, 0, playerCount);
+		return na;
+	}
+	
+	protected int nextPriority() {
+		nextPriority ^= nextPriority << 13;
+		nextPriority ^= nextPriority >>> 17;
+		nextPriority ^= nextPriority << 5;
+		return nextPriority;
+	}
+	
+	/**
+	 * @return true if player a ranks above player b: a has a lower score, or the same score and a lower ID.
+	 */
+	protected boolean ranksAbove(int a, int b) {
+		return scores[a] < scores[b] || (scores[a] == scores[b] && a < b);
+	}
+	
+	protected int sizeOf(int t) {
+		return (t == NONE ? 0 : size[t]);
+	}
+	
+	protected void updateSize(int t) {
+		size[t] = 1 + sizeOf(left[t]) + sizeOf(right[t]);
+	}
+	
+	/**
+	 * Inserts player id into the subtree t.
+	 * @return The new root of the subtree.
+	 */
+	protected int insert(int t, int id) {
+		if(t == NONE) {
+			left[id] = NONE;
+			right[id] = NONE;
+			size[id] = 1;
+			return id;
+		}
+		
+		if(ranksAbove(id, t)) {
+			left[t] = insert(left[t], id);
 			
-			// to avoid name conflicts, which could only be caused by human input, add [HUMAN] or [COMPUTER] depending on which derived class of CardEntity we're using.
+			if(priority[left[t]] > priority[t]) { // rotate right
+				int l = left[t];
+				left[t] = right[l];
+				right[l] = t;
+				updateSize(t);
+				updateSize(l);
+				return l;
+			}
+		} else {
+			right[t] = insert(right[t], id);
 			
-			String key = ce.getSubclassIdentifier() + ce.getName();
-			if(hash.containsKey(key) == true) {
-				int nscore = hash.get(key) + ce.tallyValues();
-				hash.put(key, nscore);
-			} else if(datasetCount == 0) {
-				hash.put(key, ce.tallyValues());
+			if(priority[right[t]] > priority[t]) { // rotate left
+				int r = right[t];
+				right[t] = left[r];
+				left[r] = t;
+				updateSize(t);
+				updateSize(r);
+				return r;
+			}
+		}
+		
+		updateSize(t);
+		return t;
+	}
+	
+	/**
+	 * Removes player id from the subtree t, which must contain it.
+	 * @return The new root of the subtree.
+	 */
+	protected int remove(int t, int id) {
+		if(t == id) {
+			return join(left[t], right[t]);
+		} else if(ranksAbove(id, t)) {
+			left[t] = remove(left[t], id);
+		} else {
+			right[t] = remove(right[t], id);
+		}
+		
+		updateSize(t);
+		return t;
+	}
+	
+	/**
+	 * Joins two subtrees where every player in a ranks above every player in b.
+	 * @return The root of the joined tree.
+	 */
+	protected int join(int a, int b) {
+		if(a == NONE) {
+			return b;
+		} else if(b == NONE) {
+			return a;
+		} else if(priority[a] > priority[b]) {
+			right[a] = join(right[a], b);
+			updateSize(a);
+			return a;
+		} else {
+			left[b] = join(a, left[b]);
+			updateSize(b);
+			return b;
+		}
+	}
+	
+	/**
+	 * @return The 0-based rank of player id, found by walking down from the root.
+	 */
+	protected int rankOf(int id) {
+		int rank = 0;
+		int t = root;
+		
+		while(t != id) {
+			if(ranksAbove(id, t)) {
+				t = left[t];
 			} else {
-				throw new IllegalArgumentException("Trying to use a different player list in a constant ScoreList!");
+				rank += sizeOf(left[t]) + 1;
+				t = right[t];
 			}
 		}
 		
-		playerCount = hash.size();
-		datasetCount++;
+		return rank + sizeOf(left[id]);
+	}
+	
+	/**
+	 * @return The ID of the player with the given 0-based rank.
+	 */
+	protected int idAt(int rank) {
+		int t = root;
+		
+		while(true) {
+			int l = sizeOf(left[t]);
+			
+			if(rank < l) {
+				t = left[t];
+			} else if(rank == l) {
+				return t;
+			} else {
+				rank -= l + 1;
+				t = right[t];
+			}
+		}
+	}
+	
+	/**
+	 * @param key A player's subclass identifier followed by their name, e.g. "[COMPUTER]Computer 1".
+	 * @return The player's position in the standings, where 1 is the lowest (best) score, or -1 if they aren't in the list.
+	 */
+	public int getRank(String key) {
+		int id = find("", key);
+		return (id == NONE ? -1 : rankOf(id) + 1);
+	}
+	
+	/**
+	 * @param key A player's subclass identifier followed by their name.
+	 * @return The player's score.
+	 * @throws IllegalArgumentException If the player isn't in the list.
+	 */
+	public int getScore(String key) throws IllegalArgumentException {
+		int id = find("", key);
+		
+		if(id == NONE) {
+			throw new IllegalArgumentException("No player " + key + " in the ScoreList!");
+		}
+		
+		return scores[id];
+	}
+	
+	/**
+	 * @param position A position in the standings, from 1 to getPlayerCount().
+	 * @return The key of the player in that position.
+	 * @throws IllegalArgumentException If position is out of range.
+	 */
+	public String getKeyAt(int position) throws IllegalArgumentException {
+		if(position < 1 || position > playerCount) {
+			throw new IllegalArgumentException("No position " + position + " in a ScoreList of " + playerCount + " players!");
+		}
+		
+		return keys[idAt(position - 1)];
 	}
 	
 	/**
-	 * Prints all the current scores
+	 * @param k The number of players wanted.
+	 * @return The keys of the best k players (or every player, if there are fewer than k), best first.
+	 */
+	public String[] getTop(int k) {
+		k = Math.max(0, Math.min(k, playerCount));
+		String[] top = new String[k];
+		int[] ids = new int[k];
+		fillInOrder(root, ids, 0);
+		
+		for(int i = 0; i < k; i++) {
+			top[i] = keys[ids[i]];
+		}
+		
+		return top;
+	}
+	
+	/**
+	 * Puts the IDs of subtree t in ranked order into ids from index at, stopping when ids is full.
+	 * @return The index after the last ID added.
+	 */
+	protected int fillInOrder(int t, int[] ids, int at) {
+		if(t == NONE || at == ids.length) {
+			return at;
+		}
+		
+		at = fillInOrder(left[t], ids, at);
+		
+		if(at < ids.length) {
+			ids[at++] = t;
+		}
+		
+		return fillInOrder(right[t], ids, at);
+	}
+	
+	/**
+	 * Prints all the current scores, in order of position.
 	 */
 	public void printScores(EINSIOHandler io) {
 		io.print("\n");
@@ -88,11 +453,12 @@ public class ScoreList {
 		}
 		
 		io.println("\nCurrent standings:");
-		int val = -1;
+		int[] ids = new int[playerCount];
+		fillInOrder(root, ids, 0);
 		
-		for(String key : hash.keySet()) {
-			val = hash.get(key);
-			io.println(key + " has " + val + (val == 1 ? " point!" : " points!"));
+		for(int id : ids) {
+			int val = scores[id];
+			io.println(keys[id] + " has " + val + (val == 1 ? " point!" : " points!"));
 		}
 		
 		for(int i = 0; i < 10; i++) {
@@ -103,19 +469,24 @@ public class ScoreList {
 	}
 	
 	/**
-	 * Prints the scores, ordered from highest value to lowest.
+	 * Prints the scores, ordered from the lowest (best) score to the highest.
 	 */
-	public void printScoresFinal(EINSIOHandler io) {		
-		TreeMap<String, Integer> sortedMap = new TreeMap<String, Integer>(new HashComparator(hash));
-		sortedMap.putAll(hash);
+	public void printScoresFinal(EINSIOHandler io) {
+		int[] ids = new int[playerCount];
+		fillInOrder(root, ids, 0);
 		
-		int lcount = 0;
-		for(String s : sortedMap.keySet()) {
-			lcount++;
-			io.println("In position " + lcount + " we have " + s + " with a score of: " + hash.get(s));
+		for(int i = 0; i < ids.length; i++) {
+			io.println("In position " + (i+1) + " we have " + keys[ids[i]] + " with a score of: " + scores[ids[i]]);
 		}
 	}
 	
+	/**
+	 * @return The number of distinct players in the list.
+	 */
+	public int getPlayerCount() {
+		return playerCount;
+	}
+	
 	/**
 	 * Returns the number of times addScores has been called
 	 */
@@ -0,0 +1,541 @@
+package com.sgtcodfish.eins;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.InputMismatchException;
+
+/**
+ * A {@link RemoteIOHandler} for a player connected to a {@link SelectorServer}, whose threads read the player's input into this handler and send
+ * whatever output the socket wouldn't take straight away. Whoever reads input (e.g. the table's thread) just waits to be told a line has arrived,
+ * or doesn't wait at all: with requestLine(), the next line is passed to a LineListener on the server's thread when it arrives.
+ *
+ * Input is kept as the bytes received, and readInt() parses the number straight out of them, so answering a menu allocates nothing.
+ * Output is encoded into a buffer that's reused for the whole connection. A player who sends more than INPUT_LIMIT bytes without it being read,
+ * or leaves more than OUTPUT_LIMIT bytes of output unread, is disconnected.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class SelectorIOHandler extends RemoteIOHandler {
+	public static final int INPUT_LIMIT = 1024;
+	public static final int OUTPUT_LIMIT = 1024 * 1024;
+	public static final int OUTPUT_SIZE_INITIAL = 4096;
+	
+	/**
+	 * Told about the line asked for with requestLine(). Called on one of the server's threads, or on the thread asking if the line has
+	 * already arrived, so it mustn't block.
+	 */
+	public interface LineListener {
+		/**
+		 * @param line The line the player sent, without its line ending.
+		 */
+		public void onLine(String line);
+		
+		/**
+		 * Called instead of onLine() if the player disconnects or times out first.
+		 */
+		public void onClosed();
+	}
+	
+	protected SocketChannel channel;
+	protected SelectorServer.Loop loop;
+	protected SelectionKey key; /** Only used by the loop's thread. */
+	protected int idleTimeoutMillis;
+	protected volatile boolean closed;
+	protected volatile boolean closing; /** true once close() has been called with output still to send; the loop closes the channel once it's sent. */
+	
+	// input received and not read yet; guarded by this.
+	protected byte[] input;
+	protected int inputLength;
+	protected boolean endOfInput; /** true once the player has closed their side of the connection. */
+	protected LineListener lineListener; /** Waiting for the next line, or null. */
+	protected long lineDeadline; /** When lineListener gives up on the player, from System.currentTimeMillis(), or 0 to wait forever. */
+	
+	// output encoded and not sent yet; guarded by outputLock.
+	protected final Object outputLock = new Object();
+	protected CharsetEncoder encoder;
+	protected CharBuffer chars; /** Holds the text being encoded; grows if needed. */
+	protected ByteBuffer output; /** Always ready to be filled; flipped to send and compacted afterwards. */
+	
+	/**
+	 * @param nchannel A connected, non-blocking channel; closed by close().
+	 * @param nloop The loop that selects on the channel.
+	 * @param nidleTimeoutMillis The longest to wait for a line of input before giving up on the player, or 0 to wait forever.
+	 */
+	protected SelectorIOHandler(SocketChannel nchannel, SelectorServer.Loop nloop, int nidleTimeoutMillis) {
+		channel = nchannel;
+		loop = nloop;
+		key = null;
+		idleTimeoutMillis = nidleTimeoutMillis;
+		closed = false;
+		closing = false;
+		input = new byte[INPUT_LIMIT];
+		inputLength = 0;
+		endOfInput = false;
+		lineListener = null;
+		lineDeadline = 0L;
+		encoder = CHARSET.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+		chars = CharBuffer.allocate(1024);
+		output = ByteBuffer.allocate(OUTPUT_SIZE_INITIAL);
+	}
+	
+	/**
+	 * Sends everything printed so far, or as much as the socket will take; the loop sends the rest when it can.
+	 * @throws IllegalStateException If the player has disconnected, or hasn't read OUTPUT_LIMIT bytes of earlier output.
+	 */
+	@Override
+	public void flush() throws IllegalStateException {
+		int length = outputBuffer.length();
+		
+		if(length == 0) {
+			return;
+		} else if(closed || closing) {
+			outputBuffer.setLength(0);
+			throw new IllegalStateException("The player has disconnected!");
+		}
+		
+		boolean waiting;
+		
+		synchronized(outputLock) {
+			if(chars.capacity() < length) {
+				chars = CharBuffer.allocate(Math.max(length, chars.capacity() * 2));
+			}
+			
+			chars.clear();
+			outputBuffer.getChars(0, length, chars.array(), 0);
+			chars.limit(length);
+			outputBuffer.setLength(0);
+			encoder.reset();
+			
+			while(encoder.encode(chars, output, true).isOverflow()) {
+				growOutput();
+			}
+			
+			while(encoder.flush(output).isOverflow()) {
+				growOutput();
+			}
+			
+			waiting = sendOutput();
+		}
+		
+		if(closed) {
+			throw new IllegalStateException("The player has disconnected!");
+		} else if(waiting) {
+			loop.requestChange(this);
+		}
+	}
+	
+	/**
+	 * Doubles the size of the output buffer, holding outputLock.
+	 * @throws IllegalStateException If it's already OUTPUT_LIMIT bytes, in which case the player is disconnected.
+	 */
+	protected void growOutput() throws IllegalStateException {
+		if(output.capacity() >= OUTPUT_LIMIT) {
+			closeQuietly();
+			throw new IllegalStateException("The player isn't reading their output!");
+		}
+		
+		ByteBuffer bigger = ByteBuffer.allocate(Math.min(output.capacity() * 2, OUTPUT_LIMIT));
+		output.flip();
+		bigger.put(output);
+		output = bigger;
+	}
+	
+	/**
+	 * Sends as much output as the socket will take, holding outputLock.
+	 * @return true if some is still waiting to be sent.
+	 */
+	protected boolean sendOutput() {
+		output.flip();
+		
+		try {
+			channel.write(output);
+		} catch(IOException ioe) {
+			closeQuietly();
+		} finally {
+			output.compact();
+		}
+		
+		return (!closed && output.position() > 0);
+	}
+	
+	/**
+	 * Reads the first number on the next line of input that isn't blank, parsing it straight out of the bytes received.
+	 * @throws InputMismatchException If the line doesn't start with a number.
+	 * @throws IllegalStateException If the player has disconnected or timed out.
+	 */
+	@Override
+	public int readInt() throws InputMismatchException, IllegalStateException {
+		while(true) {
+			prompt();
+			
+			synchronized(this) {
+				int end = awaitLine();
+				int i = 0;
+				
+				while(i < end && isSpace(input[i])) {
+					i++;
+				}
+				
+				if(i == end) {
+					// blank lines are skipped, like readString(false) does.
+					consumeLine(end);
+					continue;
+				}
+				
+				boolean negative = (input[i] == '-');
+				
+				if(negative) {
+					i++;
+				}
+				
+				int start = i;
+				long value = 0L;
+				
+				while(i < end && input[i] >= '0' && input[i] <= '9' && value <= Integer.MAX_VALUE) {
+					value = value * 10L + (input[i] - '0');
+					i++;
+				}
+				
+				if(i == start || (i < end && !isSpace(input[i])) || value > Integer.MAX_VALUE) {
+					String line = new String(input, 0, end, CHARSET).trim();
+					consumeLine(end);
+					throw new InputMismatchException("Not a number: " + line);
+				}
+				
+				consumeLine(end);
+				return (int)(negative ? -value : value);
+			}
+		}
+	}
+	
+	@Override
+	protected String readLine() throws IllegalStateException {
+		prompt();
+		
+		synchronized(this) {
+			return takeLine(awaitLine());
+		}
+	}
+	
+	/**
+	 * Sends the output and the prompt, then returns straight away; the next line from the player is passed to the listener when it arrives.
+	 * @param listener Told about the line, or that the player has gone.
+	 * @throws IllegalStateException If a line has already been requested and hasn't arrived yet.
+	 */
+	public void requestLine(LineListener listener) throws IllegalStateException {
+		try {
+			prompt();
+		} catch(IllegalStateException ise) {
+			// the listener is told below.
+		}
+		
+		String line = null;
+		boolean gone = false;
+		
+		synchronized(this) {
+			if(lineListener != null) {
+				throw new IllegalStateException("Trying to request a line while waiting for another!");
+			}
+			
+			int end = findLine();
+			
+			if(end >= 0) {
+				line = takeLine(end);
+			} else if(closed || endOfInput) {
+				gone = true;
+			} else {
+				lineListener = listener;
+				lineDeadline = (idleTimeoutMillis > 0 ? System.currentTimeMillis() + idleTimeoutMillis : 0L);
+			}
+		}
+		
+		if(line != null) {
+			listener.onLine(line);
+		} else if(gone) {
+			listener.onClosed();
+		} else if(idleTimeoutMillis > 0) {
+			loop.requestChange(this); // so the loop checks for the timeout.
+		}
+	}
+	
+	protected void prompt() throws IllegalStateException {
+		outputBuffer.append(PROMPT);
+		flush();
+	}
+	
+	protected static boolean isSpace(byte b) {
+		return (b == ' ' || b == '\t' || b == '\r');
+	}
+	
+	/**
+	 * Waits, holding this, until a whole line has been received.
+	 * @return The index of the line's '\n' in input.
+	 * @throws IllegalStateException If the player disconnects or times out first, or the thread is interrupted.
+	 */
+	protected int awaitLine() throws IllegalStateException {
+		long deadline = (idleTimeoutMillis > 0 ? System.currentTimeMillis() + idleTimeoutMillis : 0L);
+		
+		while(true) {
+			int end = findLine();
+			
+			if(end >= 0) {
+				return end;
+			} else if(closed || endOfInput) {
+				throw new IllegalStateException("The player has disconnected!");
+			}
+			
+			long wait = 0L;
+			
+			if(deadline != 0L) {
+				wait = deadline - System.currentTimeMillis();
+				
+				if(wait <= 0L) {
+					println("\nYou took too long to answer, so the game is over.");
+					flushQuietly();
+					closeQuietly();
+					throw new IllegalStateException("The player timed out!");
+				}
+			}
+			
+			try {
+				wait(wait);
+			} catch(InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for the player!");
+			}
+		}
+	}
+	
+	/**
+	 * @return The index of the first '\n' in input, or -1 if a whole line hasn't been received; call holding this.
+	 */
+	protected int findLine() {
+		for(int i = 0; i < inputLength; i++) {
+			if(input[i] == '\n') {
+				return i;
+			}
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Decodes a line and removes it from the input, holding this.
+	 * @param end The index of the line's '\n'.
+	 * @return The line, without its line ending.
+	 */
+	protected String takeLine(int end) {
+		int length = (end > 0 && input[end - 1] == '\r' ? end - 1 : end);
+		String line = new String(input, 0, length, CHARSET);
+		consumeLine(end);
+		return line;
+	}
+	
+	/**
+	 * Removes a line from the input, holding this.
+	 * @param end The index of the line's '\n'.
+	 */
+	protected void consumeLine(int end) {
+		inputLength -= end + 1;
+		System.arraycopy(input, end + 1, input, 0, inputLength);
+	}
+	
+	/**
+	 * Called by the loop's thread when the channel has input.
+	 * @param buffer The loop's read buffer.
+	 */
+	protected void onReadable(ByteBuffer buffer) {
+		buffer.clear();
+		int read;
+		
+		try {
+			read = channel.read(buffer);
+		} catch(IOException ioe) {
+			read = -1;
+		}
+		
+		LineListener listener = null;
+		String line = null;
+		boolean overflow = false;
+		
+		synchronized(this) {
+			if(read < 0) {
+				// the player may only have closed their side, so output can still be sent.
+				endOfInput = true;
+				setInterestOps(SelectionKey.OP_READ, false);
+			} else if(inputLength + read > INPUT_LIMIT) {
+				overflow = true;
+			} else {
+				buffer.flip();
+				buffer.get(input, inputLength, read);
+				inputLength += read;
+			}
+			
+			notifyAll();
+			
+			if(lineListener != null) {
+				int end = findLine();
+				
+				if(end >= 0 || endOfInput) {
+					listener = lineListener;
+					lineListener = null;
+					line = (end >= 0 ? takeLine(end) : null);
+				}
+			}
+		}
+		
+		if(overflow) {
+			closeQuietly(); // tells the listener.
+		} else if(listener == null) {
+			return;
+		} else if(line != null) {
+			listener.onLine(line);
+		} else {
+			listener.onClosed();
+		}
+	}
+	
+	/**
+	 * Called by the loop's thread from time to time while a line has been requested with a timeout; times the player out if it's passed.
+	 * @param now The time, from System.currentTimeMillis().
+	 * @return true if the loop needn't check this handler again until another line is requested.
+	 */
+	protected boolean checkTimeout(long now) {
+		synchronized(this) {
+			if(lineListener == null) {
+				return true;
+			} else if(lineDeadline == 0L || now < lineDeadline) {
+				return false;
+			}
+		}
+		
+		// nothing else prints while a line has been requested.
+		println("\nYou took too long to answer, so the game is over.");
+		flushQuietly();
+		closeQuietly(); // tells the listener.
+		return true;
+	}
+	
+	/**
+	 * Called by the loop's thread when the channel can take more output.
+	 */
+	protected void onWritable() {
+		boolean waiting;
+		
+		synchronized(outputLock) {
+			waiting = sendOutput();
+		}
+		
+		if(!waiting && closing) {
+			closeQuietly();
+		} else {
+			setInterestOps(SelectionKey.OP_WRITE, waiting);
+		}
+	}
+	
+	/**
+	 * Changes what the loop waits for on the channel, unless another thread has closed it in the meantime.
+	 * @param op The operation to wait for or stop waiting for.
+	 * @param wanted Whether to wait for it.
+	 */
+	protected void setInterestOps(int op, boolean wanted) {
+		try {
+			key.interestOps(wanted ? key.interestOps() | op : key.interestOps() & ~op);
+		} catch(CancelledKeyException cke) {
+			// the listener, if any, has been told by closeQuietly().
+		}
+	}
+	
+	/**
+	 * Called by the loop's thread to register the channel, or bring what it's waiting for up to date.
+	 */
+	protected void updateRegistration(Selector selector) {
+		if(closed) {
+			return;
+		}
+		
+		try {
+			if(key == null) {
+				key = channel.register(selector, SelectionKey.OP_READ, this);
+			}
+			
+			boolean waiting;
+			
+			synchronized(outputLock) {
+				waiting = output.position() > 0;
+			}
+			
+			if(waiting) {
+				setInterestOps(SelectionKey.OP_WRITE, true);
+			}
+			
+			synchronized(this) {
+				if(lineListener != null && lineDeadline != 0L) {
+					loop.timed.add(this);
+				}
+			}
+		} catch(IOException ioe) { // includes ClosedChannelException
+			closeQuietly();
+		}
+	}
+	
+	@Override
+	public boolean isClosed() {
+		return (closed || closing);
+	}
+	
+	/**
+	 * Sends anything left in the buffer and closes the connection; if the socket won't take all the output straight away, the loop closes it
+	 * once the rest has been sent.
+	 */
+	@Override
+	public void close() throws IOException {
+		if(closed || closing) {
+			return;
+		}
+		
+		flushQuietly();
+		
+		synchronized(outputLock) {
+			if(!closed && output.position() > 0) {
+				closing = true;
+			}
+		}
+		
+		if(closing) {
+			loop.requestChange(this);
+		} else {
+			closeQuietly();
+		}
+	}
+	
+	/**
+	 * Closes the channel, dropping anything that hasn't been sent, and wakes anyone waiting for input.
+	 */
+	protected void closeQuietly() {
+		closed = true;
+		
+		try {
+			channel.close(); // also cancels the key.
+		} catch(IOException ioe) {
+		}
+		
+		LineListener listener = null;
+		
+		synchronized(this) {
+			notifyAll();
+			listener = lineListener;
+			lineListener = null;
+		}
+		
+		if(listener != null) {
+			listener.onClosed();
+		}
+	}
+}
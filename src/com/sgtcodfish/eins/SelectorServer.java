@@ -0,0 +1,257 @@
+package com.sgtcodfish.eins;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Accepts connections and does all the reading and writing for any number of remote players on a few threads, each running a Selector over its
+ * share of the connections, so no thread is ever tied to one connection. Every connection gets a {@link SelectorIOHandler}, which is handed to the
+ * ConnectionListener; the handler's reader (e.g. a table) is told when a line of input arrives and never touches the socket itself, except to send
+ * output straight away when the socket will take it.
+ *
+ * The first thread also accepts new connections and hands them out to the threads in turn.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class SelectorServer implements Closeable {
+	public static final int READ_BUFFER_SIZE = 4096;
+	public static final long TIMEOUT_CHECK_MILLIS = 1000L; /** How often each loop checks whether lines requested with a timeout have timed out. */
+	
+	/**
+	 * Told about every new connection.
+	 */
+	public interface ConnectionListener {
+		/**
+		 * Called on one of the server's threads for each new connection, so it mustn't block.
+		 * @param io The new connection's handler.
+		 */
+		public void onConnected(SelectorIOHandler io);
+	}
+	
+	protected ServerSocketChannel serverChannel;
+	protected Loop[] loops;
+	protected ConnectionListener listener;
+	protected int idleTimeoutMillis;
+	protected volatile boolean closed;
+	protected int nextLoop; /** The loop the next connection is given to; only used by the first loop's thread. */
+	
+	/**
+	 * One thread and its selector.
+	 */
+	protected class Loop implements Runnable {
+		protected Selector selector;
+		protected ConcurrentLinkedQueue<SelectorIOHandler> changes; /** Handlers that need to be registered, or to have what they're waiting for changed. */
+		protected ByteBuffer readBuffer; /** Shared by every connection on this loop; input is copied out of it straight away. */
+		protected HashSet<SelectorIOHandler> timed; /** Handlers that have requested a line with a timeout; only used by the loop's thread. */
+		protected Thread thread;
+		
+		protected Loop(int number) throws IOException {
+			selector = Selector.open();
+			changes = new ConcurrentLinkedQueue<SelectorIOHandler>();
+			readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+			timed = new HashSet<SelectorIOHandler>();
+			thread = new Thread(this, "SelectorServer-" + number);
+		}
+		
+		/**
+		 * Asks the loop to bring io's registration up to date, e.g. because it has output waiting to be sent.
+		 */
+		protected void requestChange(SelectorIOHandler io) {
+			changes.add(io);
+			selector.wakeup();
+		}
+		
+		@Override
+		public void run() {
+			long nextCheck = System.currentTimeMillis() + TIMEOUT_CHECK_MILLIS;
+			
+			while(!closed) {
+				try {
+					if(timed.isEmpty()) {
+						selector.select();
+					} else {
+						selector.select(Math.max(1L, nextCheck - System.currentTimeMillis()));
+					}
+				} catch(IOException ioe) {
+					break;
+				}
+				
+				SelectorIOHandler changed;
+				
+				while((changed = changes.poll()) != null) {
+					try {
+						changed.updateRegistration(selector);
+					} catch(RuntimeException re) {
+						changed.closeQuietly(); // drop just this connection and carry on with the rest.
+					}
+				}
+				
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				
+				while(keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					
+					if(!key.isValid()) {
+						continue;
+					} else if(key.isAcceptable()) {
+						accept();
+						continue;
+					}
+					
+					SelectorIOHandler io = (SelectorIOHandler)key.attachment();
+					
+					try {
+						if(key.isReadable()) {
+							io.onReadable(readBuffer);
+						}
+						
+						if(key.isValid() && key.isWritable()) {
+							io.onWritable();
+						}
+					} catch(RuntimeException re) {
+						io.closeQuietly(); // a bug in one connection shouldn't take down everyone else on this thread.
+					}
+				}
+				
+				long now = System.currentTimeMillis();
+				
+				if(now >= nextCheck) {
+					Iterator<SelectorIOHandler> it = timed.iterator();
+					
+					while(it.hasNext()) {
+						SelectorIOHandler io = it.next();
+						
+						try {
+							if(io.checkTimeout(now)) {
+								it.remove();
+							}
+						} catch(RuntimeException re) {
+							it.remove();
+							io.closeQuietly();
+						}
+					}
+					
+					nextCheck = now + TIMEOUT_CHECK_MILLIS;
+				}
+			}
+			
+			try {
+				selector.close();
+			} catch(IOException ioe) {
+			}
+		}
+	}
+	
+	/**
+	 * Opens the server socket; call {@link #start()} to start accepting connections.
+	 * @param address The address to listen on; port 0 picks any free port (see {@link #getPort()}).
+	 * @param threads The number of threads, at least 1.
+	 * @param nidleTimeoutMillis The longest each handler waits for a line of input, or 0 to wait forever.
+	 * @param nlistener Told about every new connection.
+	 * @throws IOException If the address can't be listened on.
+	 * @throws IllegalArgumentException
+	 */
+	public SelectorServer(InetSocketAddress address, int threads, int nidleTimeoutMillis, ConnectionListener nlistener) throws IOException, IllegalArgumentException {
+		if(threads < 1) {
+			throw new IllegalArgumentException("Trying to create a selector server with too few (" + threads + ") threads!");
+		}
+		
+		listener = nlistener;
+		idleTimeoutMillis = nidleTimeoutMillis;
+		closed = false;
+		nextLoop = 0;
+		loops = new Loop[threads];
+		
+		for(int i = 0; i < threads; i++) {
+			loops[i] = new Loop(i + 1);
+		}
+		
+		serverChannel = ServerSocketChannel.open();
+		serverChannel.bind(address, 256);
+		serverChannel.configureBlocking(false);
+		serverChannel.register(loops[0].selector, SelectionKey.OP_ACCEPT);
+	}
+	
+	/**
+	 * Starts the threads.
+	 */
+	public void start() {
+		for(Loop loop : loops) {
+			loop.thread.start();
+		}
+	}
+	
+	/**
+	 * Waits until the server has been closed and its threads have finished.
+	 * @throws InterruptedException
+	 */
+	public void join() throws InterruptedException {
+		for(Loop loop : loops) {
+			loop.thread.join();
+		}
+	}
+	
+	/**
+	 * Accepts every connection waiting, on the first loop's thread.
+	 */
+	protected void accept() {
+		while(true) {
+			SocketChannel channel = null;
+			
+			try {
+				channel = serverChannel.accept();
+				
+				if(channel == null) {
+					return;
+				}
+				
+				channel.configureBlocking(false);
+				channel.socket().setTcpNoDelay(true); // output is already sent in whole menus and messages.
+			} catch(IOException ioe) {
+				if(channel != null) {
+					try {
+						channel.close();
+					} catch(IOException ioe2) {
+					}
+				}
+				
+				return;
+			}
+			
+			Loop loop = loops[nextLoop];
+			nextLoop = (nextLoop + 1) % loops.length;
+			SelectorIOHandler io = new SelectorIOHandler(channel, loop, idleTimeoutMillis);
+			loop.requestChange(io); // registers it.
+			listener.onConnected(io);
+		}
+	}
+	
+	/**
+	 * @return The port the server is listening on.
+	 */
+	public int getPort() {
+		return serverChannel.socket().getLocalPort();
+	}
+	
+	/**
+	 * Stops accepting connections and stops the threads. Connections already open stay open, but no more input is read from them.
+	 */
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		serverChannel.close();
+		
+		for(Loop loop : loops) {
+			loop.selector.wakeup();
+		}
+	}
+}
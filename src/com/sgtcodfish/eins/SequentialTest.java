@@ -0,0 +1,170 @@
+package com.sgtcodfish.eins;
+
+/**
+ * Decides whether the player in one seat wins more often than their fair share, using Wald's sequential probability ratio test (SPRT) on their
+ * win rate, so an evaluation can stop as soon as the games played settle the question rather than after a fixed number of games.
+ *
+ * The test weighs H0, that the seat wins with probability p0 (e.g. 1 in 6 at a table of 6, no better than anyone else), against H1, that it wins
+ * with probability p1 > p0. After each game the log likelihood ratio of the results so far is updated; once it rises above log((1-beta)/alpha)
+ * the seat is judged BETTER, and once it falls below log(beta/(1-alpha)) it's judged NOT_BETTER. alpha is the chance of calling a seat BETTER
+ * when it isn't and beta is the chance of missing one that is at least p1. The expected number of games is usually far fewer than a fixed-size
+ * test with the same error rates would need, especially when the difference is large.
+ *
+ * Listens to tables to find out who won each game, or results can be added directly with {@link #addGame(boolean)}.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class SequentialTest extends GameEventAdapter {
+	public static final double ALPHA_DEFAULT = 0.05d;
+	public static final double BETA_DEFAULT = 0.05d;
+	public static final double DELTA_DEFAULT = 0.02d; /** The default difference between p1 and p0. */
+	
+	/**
+	 * The outcome of the test so far.
+	 */
+	public enum Result {
+		UNDECIDED,
+		BETTER, /** H1 accepted: the seat wins more often than p0. */
+		NOT_BETTER; /** H0 accepted: the seat doesn't win as often as p1. */
+	}
+	
+	protected int seat; /** The seat being tested. */
+	protected double p0;
+	protected double p1;
+	protected double lowerBound; /** H0 is accepted when the log likelihood ratio falls to this. */
+	protected double upperBound; /** H1 is accepted when the log likelihood ratio rises to this. */
+	protected double winStep; /** The change in the log likelihood ratio for a win. */
+	protected double lossStep; /** The change for a loss. */
+	
+	protected double llr; /** The log likelihood ratio of H1 to H0 given the results so far. */
+	protected long games;
+	protected long wins;
+	protected Result result;
+	protected Table table; /** The table of the game in progress. */
+	
+	/**
+	 * Creates a test of whether seat wins at least DELTA_DEFAULT more often than a fair share at a table of players, with the default error rates.
+	 * @param nseat The seat to test, from 0.
+	 * @param players The number of players at the table.
+	 * @throws IllegalArgumentException
+	 */
+	public SequentialTest(int nseat, int players) throws IllegalArgumentException {
+		this(nseat, 1.0d / players, 1.0d / players + DELTA_DEFAULT, ALPHA_DEFAULT, BETA_DEFAULT);
+	}
+	
+	/**
+	 * @param nseat The seat to test, from 0.
+	 * @param np0 The win rate under H0.
+	 * @param np1 The win rate under H1; must be greater than np0.
+	 * @param alpha The chance of accepting H1 when H0 is true.
+	 * @param beta The chance of accepting H0 when H1 is true.
+	 * @throws IllegalArgumentException If the rates or error rates aren't between 0 and 1, or np1 isn't greater than np0.
+	 */
+	public SequentialTest(int nseat, double np0, double np1, double alpha, double beta) throws IllegalArgumentException {
+		if(!(np0 > 0.0d && np0 < np1 && np1 < 1.0d)) {
+			throw new IllegalArgumentException("Invalid win rates for a sequential test: p0 = " + np0 + ", p1 = " + np1);
+		} else if(!(alpha > 0.0d && alpha < 0.5d && beta > 0.0d && beta < 0.5d)) {
+			throw new IllegalArgumentException("Invalid error rates for a sequential test: alpha = " + alpha + ", beta = " + beta);
+		}
+		
+		seat = nseat;
+		p0 = np0;
+		p1 = np1;
+		lowerBound = Math.log(beta / (1.0d - alpha));
+		upperBound = Math.log((1.0d - beta) / alpha);
+		winStep = Math.log(p1 / p0);
+		lossStep = Math.log((1.0d - p1) / (1.0d - p0));
+		llr = 0.0d;
+		games = 0L;
+		wins = 0L;
+		result = Result.UNDECIDED;
+	}
+	
+	/**
+	 * Adds the result of a game, unless the test has already been decided.
+	 * @param won true if the seat won the game.
+	 * @return The outcome of the test so far.
+	 */
+	public Result addGame(boolean won) {
+		if(result != Result.UNDECIDED) {
+			return result;
+		}
+		
+		games++;
+		
+		if(won) {
+			wins++;
+			llr += winStep;
+		} else {
+			llr += lossStep;
+		}
+		
+		if(llr >= upperBound) {
+			result = Result.BETTER;
+		} else if(llr <= lowerBound) {
+			result = Result.NOT_BETTER;
+		}
+		
+		return result;
+	}
+	
+	@Override
+	public void onGameStarted(Table t) {
+		table = t;
+	}
+	
+	@Override
+	public void onGameWon(CardEntity winner) {
+		if(table != null) {
+			addGame(table.players.indexOf(winner) == seat);
+			table = null;
+		}
+	}
+	
+	public Result getResult() {
+		return result;
+	}
+	
+	public boolean isDecided() {
+		return result != Result.UNDECIDED;
+	}
+	
+	/**
+	 * @return The number of games counted, up to and including the one that decided the test.
+	 */
+	public long getGames() {
+		return games;
+	}
+	
+	public long getWins() {
+		return wins;
+	}
+	
+	public double getLogLikelihoodRatio() {
+		return llr;
+	}
+	
+	/**
+	 * @return A description of the test and its outcome so far.
+	 */
+	@Override
+	public String toString() {
+		String outcome;
+		
+		switch(result) {
+		case BETTER:
+			outcome = "wins more than " + String.format("%.2f%%", 100.0d * p0) + " of games";
+			break;
+		
+		case NOT_BETTER:
+			outcome = "doesn't win " + String.format("%.2f%%", 100.0d * p1) + " of games";
+			break;
+		
+		default:
+			outcome = "undecided";
+			break;
+		}
+		
+		return "Seat " + (seat+1) + " won " + wins + " of " + games + " games: " + outcome + " (log likelihood ratio " + String.format("%.3f", llr) +
+				", bounds " + String.format("%.3f", lowerBound) + " and " + String.format("%.3f", upperBound) + ")";
+	}
+}
@@ -0,0 +1,368 @@
+package com.sgtcodfish.eins;
+
+import java.io.IOException;
+import java.util.Vector;
+
+import com.sgtcodfish.eins.AIPlayer.AIDifficulty;
+
+/**
+ * Runs a large number of AI-only games back to back with no output and no sleeping, for tuning AI strategies.
+ * Each game is played on a fresh {@link Table} using a {@link NullIOHandler}, and the scores are collected in a single {@link ScoreList}.
+ *
+ * Usage: Simulation [-seed seed] [-log file] [-scores file] [-sprt delta] [games] [difficulty of each seat...]
+ * For example "Simulation 1000000 BEST REGULAR REGULAR REGULAR REGULAR REGULAR" will play a million games of the hidden game mode.
+ * Every game gets its own seed from a sequence started by the simulation's seed, so running a seeded simulation again plays exactly the same games.
+ * With -log, every game is appended to a binary game log which can be replayed with {@link GameReplay}.
+ * With -scores, the scores are kept in a {@link PersistentScoreList}; if it already holds some games, the simulation carries on after them,
+ * skipping their seeds, so a seeded simulation that was interrupted finishes with the same scores as one that wasn't.
+ * With -sprt, the simulation stops as soon as a {@link SequentialTest} has decided whether the first seat wins at least delta more often than
+ * a fair share of games (e.g. "-sprt 0.02" at a table of 6 tests 16.67% against 18.67%), and games is only the most that will be played.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class Simulation {
+	public static final int GAME_COUNT_DEFAULT = 1000000;
+	public static final int REPORT_INTERVAL_DEFAULT = 100000;
+	
+	protected AIDifficulty[] seats; /** The difficulty of the AI sitting in each seat, in order of play. */
+	protected EINSIOHandler tableOutput; /** The IO handler given to each table; discards everything. */
+	protected GameEventCounter counter; /** Listens to every table, counting what happens in all the games. */
+	protected TournamentStats stats; /** Listens to every table, collecting each player's wins and scores. */
+	protected long seed; /** The seed the simulation was created with. */
+	protected FastRandom seeds; /** Gives each game its seed. */
+	protected GameLogWriter log; /** If non-null, every game is written here. */
+	
+	protected int gamesPlayed; /** The number of games played to completion so far. */
+	protected int gamesAborted; /** The number of games which ended with an error. */
+	protected long elapsedNanos; /** The total time spent playing games. */
+	
+	/**
+	 * Creates a simulation with the default seating of the hidden game mode: 1 BEST AI and 5 REGULAR AIs.
+	 */
+	public Simulation() {
+		this(getDefaultSeats());
+	}
+	
+	/**
+	 * @return The seating of the hidden game mode: 1 BEST AI followed by 5 REGULAR AIs.
+	 */
+	public static AIDifficulty[] getDefaultSeats() {
+		return new AIDifficulty[] {AIDifficulty.BEST, AIDifficulty.REGULAR, AIDifficulty.REGULAR, AIDifficulty.REGULAR, AIDifficulty.REGULAR, AIDifficulty.REGULAR};
+	}
+	
+	/**
+	 * Creates a simulation with one AI for each element of nseats, and a random seed.
+	 * @param nseats The difficulty of the AI in each seat. Must contain at least 2 seats.
+	 * @throws IllegalArgumentException
+	 */
+	public Simulation(AIDifficulty[] nseats) throws IllegalArgumentException {
+		this(nseats, new FastRandom().nextLong());
+	}
+	
+	/**
+	 * Creates a simulation with one AI for each element of nseats, whose games are all decided by nseed.
+	 * @param nseats The difficulty of the AI in each seat. Must contain at least 2 seats.
+	 * @param nseed The seed for the sequence of seeds given to each game.
+	 * @throws IllegalArgumentException
+	 */
+	public Simulation(AIDifficulty[] nseats, long nseed) throws IllegalArgumentException {
+		if(nseats == null || nseats.length < 2) {
+			throw new IllegalArgumentException("Trying to run a simulation with too few seats!");
+		}
+		
+		seats = nseats.clone();
+		tableOutput = new NullIOHandler();
+		counter = new GameEventCounter();
+		stats = new TournamentStats();
+		seed = nseed;
+		seeds = new FastRandom(seed);
+		log = null;
+		gamesPlayed = 0;
+		gamesAborted = 0;
+		elapsedNanos = 0L;
+	}
+	
+	/**
+	 * Creates the players for a single game. Names depend only on the seat so that every game uses the same player list in a {@link ScoreList}.
+	 * @return A new list of AI players, one for each seat.
+	 */
+	protected Vector<CardEntity> createPlayers() {
+		Vector<CardEntity> players = new Vector<CardEntity>(seats.length);
+		
+		for(int i = 0; i < seats.length; i++) {
+			players.add(new AIPlayer("Computer " + (i+1) + " (" + seats[i] + ")", seats[i]));
+		}
+		
+		return players;
+	}
+	
+	/**
+	 * Plays a single game, adding its scores to slist.
+	 * @param slist The list to add the scores to.
+	 * @return true if the game was played to completion, false if it ended with an error.
+	 */
+	public boolean playGame(ScoreList slist) {
+		return playGame(slist, null);
+	}
+	
+	/**
+	 * Plays a single game, adding its scores to slist and telling listener everything that happens in it.
+	 * @param slist The list to add the scores to.
+	 * @param listener If non-null, an extra listener for this game only.
+	 * @return true if the game was played to completion, false if it ended with an error.
+	 */
+	public boolean playGame(ScoreList slist, GameEventListener listener) {
+		Table table = new Table(tableOutput, createPlayers(), seeds.nextLong());
+		table.addGameEventListener(counter);
+		table.addGameEventListener(stats);
+		
+		if(log != null) {
+			table.addGameEventListener(log);
+		}
+		
+		if(listener != null) {
+			table.addGameEventListener(listener);
+		}
+		
+		// mainLoop only returns true for AI games if something went wrong.
+		if(table.mainLoop(slist)) {
+			gamesAborted++;
+			return false;
+		} else {
+			gamesPlayed++;
+			return true;
+		}
+	}
+	
+	/**
+	 * Plays games games, adding all their scores to slist.
+	 * @param games The number of games to play.
+	 * @param slist The list to add the scores to.
+	 * @param progress If non-null, a progress report is printed here every REPORT_INTERVAL_DEFAULT games.
+	 */
+	public void run(int games, ScoreList slist, EINSIOHandler progress) {
+		run(games, slist, progress, null);
+	}
+	
+	/**
+	 * Plays up to games games, adding all their scores to slist, stopping early once test has been decided.
+	 * @param games The most games to play.
+	 * @param slist The list to add the scores to.
+	 * @param progress If non-null, a progress report is printed here every REPORT_INTERVAL_DEFAULT games.
+	 * @param test If non-null, listens to every game and the simulation stops as soon as it's decided.
+	 */
+	public void run(int games, ScoreList slist, EINSIOHandler progress, SequentialTest test) {
+		long start = System.nanoTime();
+		
+		for(int i = 1; i <= games; i++) {
+			if(test != null) {
+				playGame(slist, test);
+				
+				if(test.isDecided()) {
+					break;
+				}
+			} else {
+				playGame(slist);
+			}
+			
+			if(progress != null && i % REPORT_INTERVAL_DEFAULT == 0) {
+				progress.println(i + " games played (" + (long)gamesPerSecond(i, System.nanoTime() - start) + " games/second)");
+				progress.flush();
+			}
+		}
+		
+		elapsedNanos += System.nanoTime() - start;
+	}
+	
+	/**
+	 * Moves the sequence of seeds on as if count games had been played, e.g. to carry on a simulation that was interrupted.
+	 * @param count The number of games to skip.
+	 */
+	public void skipGames(int count) {
+		for(int i = 0; i < count; i++) {
+			seeds.nextLong();
+		}
+	}
+	
+	/**
+	 * @param nlog If non-null, every game played from now on is written to this log; the simulation doesn't close it.
+	 */
+	public void setGameLog(GameLogWriter nlog) {
+		log = nlog;
+	}
+	
+	/**
+	 * @return The number of games played to completion so far.
+	 */
+	public int getGamesPlayed() {
+		return gamesPlayed;
+	}
+	
+	/**
+	 * @return The number of games that ended with an error so far.
+	 */
+	public int getGamesAborted() {
+		return gamesAborted;
+	}
+	
+	/**
+	 * @return The seed the simulation was created with.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+	
+	/**
+	 * @return The counts of everything that happened in all the games played so far.
+	 */
+	public GameEventCounter getEventCounter() {
+		return counter;
+	}
+	
+	/**
+	 * @return The statistics of each player over all the games played so far.
+	 */
+	public TournamentStats getStats() {
+		return stats;
+	}
+	
+	/**
+	 * @return The total time spent in run(), in nanoseconds.
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+	
+	/**
+	 * @return The average number of games (completed or aborted) played per second in run().
+	 */
+	public double getGamesPerSecond() {
+		return gamesPerSecond(gamesPlayed + gamesAborted, elapsedNanos);
+	}
+	
+	protected static double gamesPerSecond(long games, long nanos) {
+		return (nanos == 0L ? 0.0d : games / (nanos / 1000000000.0d));
+	}
+	
+	/**
+	 * Parses the command line arguments described in the class documentation, runs the simulation and reports the results.
+	 */
+	public static void main(String[] args) {
+		ConsoleIOHandler io = new ConsoleIOHandler();
+		int games = GAME_COUNT_DEFAULT;
+		Simulation sim = null;
+		SequentialTest test = null;
+		Long seed = null;
+		String logFile = null;
+		String scoreFile = null;
+		Double sprtDelta = null;
+		
+		try {
+			while(args.length > 1 && (args[0].equals("-seed") || args[0].equals("-log") || args[0].equals("-scores") || args[0].equals("-sprt"))) {
+				if(args[0].equals("-seed")) {
+					seed = Long.parseLong(args[1]);
+				} else if(args[0].equals("-log")) {
+					logFile = args[1];
+				} else if(args[0].equals("-sprt")) {
+					sprtDelta = Double.parseDouble(args[1]);
+				} else {
+					scoreFile = args[1];
+				}
+				
+				String[] rest = new String[args.length - 2];
+				System.arraycopy(args, 2, rest, 0, rest.length);
+				args = rest;
+			}
+			
+			if(args.length > 0) {
+				games = Integer.parseInt(args[0]);
+			}
+			
+			if(args.length > 1) {
+				AIDifficulty[] nseats = new AIDifficulty[args.length - 1];
+				
+				for(int i = 1; i < args.length; i++) {
+					nseats[i-1] = AIDifficulty.valueOf(args[i].toUpperCase());
+				}
+				
+				sim = (seed == null ? new Simulation(nseats) : new Simulation(nseats, seed));
+			} else {
+				sim = (seed == null ? new Simulation() : new Simulation(getDefaultSeats(), seed));
+			}
+			
+			if(sprtDelta != null) {
+				double p0 = 1.0d / sim.seats.length;
+				test = new SequentialTest(0, p0, p0 + sprtDelta, SequentialTest.ALPHA_DEFAULT, SequentialTest.BETA_DEFAULT);
+			}
+		} catch(IllegalArgumentException iae) { // includes NumberFormatException
+			io.printErrorln("Invalid arguments: " + iae.getMessage());
+			io.printErrorln("Usage: Simulation [-seed seed] [-log file] [-scores file] [-sprt delta] [games] [difficulty of each seat...]");
+			return;
+		}
+		
+		GameLogWriter log = null;
+		
+		if(logFile != null) {
+			try {
+				log = new GameLogWriter(logFile);
+				sim.setGameLog(log);
+			} catch(IOException ioe) {
+				io.printErrorln("Couldn't open game log " + logFile + ": " + ioe);
+				return;
+			}
+		}
+		
+		ScoreList slist = null;
+		
+		if(scoreFile != null) {
+			try {
+				slist = new PersistentScoreList(scoreFile);
+			} catch(IOException ioe) {
+				io.printErrorln("Couldn't open scores " + scoreFile + ": " + ioe);
+				return;
+			}
+			
+			if(slist.getDatasetCount() > 0) {
+				io.println("Carrying on after the " + slist.getDatasetCount() + " games already in " + scoreFile + ".");
+				sim.skipGames(slist.getDatasetCount());
+				games = Math.max(0, games - slist.getDatasetCount());
+			}
+		} else {
+			slist = new ScoreList();
+		}
+		
+		io.println("Simulating " + (test != null ? "up to " : "") + games + " games with seed " + sim.getSeed() + "...");
+		io.flush();
+		
+		sim.run(games, slist, io, test);
+		
+		if(slist instanceof PersistentScoreList) {
+			try {
+				((PersistentScoreList)slist).close();
+			} catch(IOException ioe) {
+				io.printErrorln("Couldn't save scores to " + scoreFile + ": " + ioe);
+			}
+		}
+		
+		if(log != null) {
+			try {
+				log.close();
+				io.println("Wrote " + log.getGamesWritten() + " games to " + logFile + ".");
+			} catch(IOException ioe) {
+				io.printErrorln("Couldn't finish writing game log " + logFile + ": " + ioe);
+			}
+		}
+		
+		io.println("Played " + sim.getGamesPlayed() + " games (" + sim.getGamesAborted() + " aborted) in " +
+				(sim.getElapsedNanos() / 1000000L) + "ms, " + (long)sim.getGamesPerSecond() + " games/second.");
+		sim.getEventCounter().printSummary(io);
+		sim.getStats().printSummary(io);
+		
+		if(test != null) {
+			io.println((test.isDecided() ? "Stopped after " + test.getGames() + " games. " : "Played every game without deciding. ") + test);
+		}
+		
+		io.println("Final Scores:\n");
+		slist.printScoresFinal(io);
+		io.flush();
+	}
+}
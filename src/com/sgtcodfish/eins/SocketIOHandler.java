@@ -0,0 +1,108 @@
+package com.sgtcodfish.eins;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.InputMismatchException;
+
+/**
+ * A {@link RemoteIOHandler} for a player connected over a blocking socket, e.g. to an {@link EinsServer}, read and written by the table's own thread.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class SocketIOHandler extends RemoteIOHandler {
+	protected Socket socket;
+	protected BufferedReader input;
+	protected OutputStream output;
+	protected boolean closed; /** true once the socket has failed or been closed; everything printed after that is discarded. */
+	
+	/**
+	 * @param nsocket A connected socket; closed by close().
+	 * @param idleTimeoutMillis The longest to wait for a line of input before giving up on the player, or 0 to wait forever.
+	 * @throws IOException If the socket's streams can't be opened.
+	 */
+	public SocketIOHandler(Socket nsocket, int idleTimeoutMillis) throws IOException {
+		socket = nsocket;
+		socket.setSoTimeout(idleTimeoutMillis);
+		socket.setTcpNoDelay(true); // output is already sent in whole menus and messages.
+		input = new BufferedReader(new InputStreamReader(socket.getInputStream(), CHARSET), 512);
+		output = socket.getOutputStream();
+		closed = false;
+	}
+	
+	@Override
+	public void flush() throws IllegalStateException {
+		if(outputBuffer.length() == 0) {
+			return;
+		} else if(closed) {
+			outputBuffer.setLength(0);
+			throw new IllegalStateException("The player has disconnected!");
+		}
+		
+		try {
+			output.write(outputBuffer.toString().getBytes(CHARSET));
+			output.flush();
+		} catch(IOException ioe) {
+			closed = true;
+			throw new IllegalStateException("The player has disconnected! (" + ioe + ")");
+		} finally {
+			outputBuffer.setLength(0);
+		}
+	}
+	
+	/**
+	 * Reads the first number on the next line of input that isn't blank.
+	 * @throws InputMismatchException If the line doesn't start with a number.
+	 * @throws IllegalStateException If the player has disconnected or timed out.
+	 */
+	@Override
+	public int readInt() throws InputMismatchException, IllegalStateException {
+		String line = readString(false).trim();
+		int end = line.indexOf(' ');
+		
+		try {
+			return Integer.parseInt(end < 0 ? line : line.substring(0, end));
+		} catch(NumberFormatException nfe) {
+			throw new InputMismatchException("Not a number: " + line);
+		}
+	}
+	
+	@Override
+	protected String readLine() throws IllegalStateException {
+		outputBuffer.append(PROMPT);
+		flush();
+		
+		try {
+			String line = input.readLine();
+			
+			if(line == null) {
+				closed = true;
+				throw new IllegalStateException("The player has disconnected!");
+			}
+			
+			return line;
+		} catch(SocketTimeoutException ste) {
+			println("\nYou took too long to answer, so the game is over.");
+			flushQuietly();
+			closed = true;
+			throw new IllegalStateException("The player timed out!");
+		} catch(IOException ioe) {
+			closed = true;
+			throw new IllegalStateException("The player has disconnected! (" + ioe + ")");
+		}
+	}
+	
+	@Override
+	public boolean isClosed() {
+		return closed;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		flushQuietly();
+		closed = true;
+		socket.close();
+	}
+}
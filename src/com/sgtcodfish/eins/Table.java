@@ -13,6 +13,7 @@ import com.sgtcodfish.eins.Card.CardType;
 public class Table {
 	public static final int HAND_SIZE_DEFAULT = 7;
 	public static final AIDifficulty AI_DIFFICULTY_DEFAULT = AIDifficulty.REGULAR;
+	public static final int TURN_DELAY_DEFAULT = 1000; /** The pause between turns at normal speed, in milliseconds; makes the pace a little more reasonable. */
 	
 	protected Vector<CardEntity> players;
 	protected Deck deck;
@@ -26,35 +27,113 @@ public class Table {
 	protected boolean endRequested; // true if a player wants the game to end.
 	
 	protected EINSIOHandler output;
+	protected GameEventMulticaster events; /** Every event in the game is sent here, and passed on to the listeners added with addGameEventListener. */
+	protected boolean started; /** true once the cards have been dealt. */
+	protected long seed; /** The seed the table's random number generators were created from; the same seed and the same players give the same game. */
+	protected FastRandom deckRandom; /** Only used to shuffle the deck, so the order of the cards depends on the seed and the cards played but not on the players' decisions. */
+	protected FastRandom random; // the random number generator used for the players' decisions at this table; never shared with other tables.
 	
-	protected boolean nosleep; // used if the user chose to have just AI battling to speed up.
+	protected boolean finished; /** true once someone has won. */
+	protected Pacer pacer; /** Decides how long every pause in the game lasts. */
+	protected boolean deferDelays; /** If true, pauses are added up in pendingDelay for a {@link PacedTableRunner} rather than waited out. */
+	protected long pendingDelay; /** The pauses asked for since the runner last checked, in real milliseconds. */
+	protected boolean suspendable; /** If true, the game is suspended while a HumanPlayer is asked for something, rather than waiting for them. */
+	protected HumanPlayer waitingFor; /** The player the game is suspended for, or null if it isn't suspended. */
+	protected boolean choosingFirstColour; /** true if waitingFor is choosing the colour for the first card on the pile rather than taking a turn. */
 	
 	/**
 	 * Creates a new table of players with 1 human player using the specified name and numplayers computer players.
+	 * If playerName is null, a special AI only game is created instead, with "Special Computer" taking the place of the human.
 	 * @param numplayers The number of AI players at the table, must be a positive integer.
 	 */
 	public Table(EINSIOHandler nout, String playerName, int numplayers, AIDifficulty diff) throws IllegalArgumentException {
+		this(nout, createPlayers(playerName, numplayers, diff));
+	}
+	
+	/**
+	 * Creates a new table using an already created list of players, for example a set of AIPlayers for a headless simulation, with a random seed.
+	 * If there are no human players at the table, the game has no pauses; see {@link #setPacer(Pacer)}.
+	 * @param nout The IO handler to use for all output.
+	 * @param nplayers The players sitting at the table, in order of play. Must contain at least 2 players.
+	 * @throws IllegalArgumentException
+	 */
+	public Table(EINSIOHandler nout, Vector<CardEntity> nplayers) throws IllegalArgumentException {
+		this(nout, nplayers, new FastRandom().nextLong());
+	}
+	
+	/**
+	 * Creates a new table using an already created list of players, with every random number used at the table coming from the given seed.
+	 * Two tables with the same seed and the same kinds of players play exactly the same game, as long as the players' decisions only depend on
+	 * the game and getRandom() (e.g. not on how much time a search had).
+	 * @param nout The IO handler to use for all output.
+	 * @param nplayers The players sitting at the table, in order of play. Must contain at least 2 players.
+	 * @param nseed The seed for the table's random number generators.
+	 * @throws IllegalArgumentException
+	 */
+	public Table(EINSIOHandler nout, Vector<CardEntity> nplayers, long nseed) throws IllegalArgumentException {
 		output = nout;
-		deck = new Deck(this);
+		seed = nseed;
+		deckRandom = new FastRandom(seed);
+		random = deckRandom.split();
+		deck = new Deck(this, deckRandom);
 		deck.shuffle();
+		
+		if(nplayers == null || nplayers.size() < 2) {
+			throw new IllegalArgumentException("Trying to start a game with too few (" + (nplayers == null ? 0 : nplayers.size()) + ") players!");
+		} else if((nplayers.size() * HAND_SIZE_DEFAULT) >= (int)(0.8d * deck.countCards())) { // ensure we have 20% of the size of the deck left to play with after we deal out hands.
+			throw new IllegalArgumentException("Trying to start a game with too many (" + nplayers.size() + ") players, leaving too few cards in the deck!");
+		}
+		
 		pile = new Pile(deck, this);
-		players = new Vector<CardEntity>();
+		players = nplayers;
 		currentPlayer = 1; // we start to the left of the first player.
 		lastPlayer = 0;
 		currentColour = pile.getTopCard().getColour();
 		reversed = false;
 		endRequested = false;
+		finished = false;
+		pacer = NullPacer.INSTANCE;
+		deferDelays = false;
+		pendingDelay = 0L;
+		suspendable = false;
+		waitingFor = null;
+		choosingFirstColour = false;
+		
+		for(CardEntity ce : players) {
+			if(ce instanceof HumanPlayer) {
+				// only pause if there's someone watching.
+				pacer = ScaledPacer.REAL_TIME;
+			}
+			
+			ce.setTable(this);
+		}
+		
+		events = new GameEventMulticaster();
+		started = false;
+		
+		if(output.isOutputEnabled()) {
+			addGameEventListener(new GameEventPrinter(this));
+		}
+	}
+	
+	/**
+	 * Creates the list of players used by {@link #Table(EINSIOHandler, String, int, AIDifficulty)}.
+	 * @param playerName The name of the human player, or null for a special AI only game.
+	 * @param numplayers The number of AI players to create, must be greater than 1.
+	 * @param diff The difficulty of the AI players.
+	 * @return The list of players, human (or "Special Computer") first.
+	 * @throws IllegalArgumentException
+	 */
+	protected static Vector<CardEntity> createPlayers(String playerName, int numplayers, AIDifficulty diff) throws IllegalArgumentException {
+		Vector<CardEntity> nplayers = new Vector<CardEntity>();
 		if(diff == null) { diff = AI_DIFFICULTY_DEFAULT; }
 		
 		if(numplayers <= 1) { // can't have 1 or less players 
 			throw new IllegalArgumentException("Trying to start a game with too few (" + numplayers + ") players!");
-		} else if((numplayers * HAND_SIZE_DEFAULT) >= (int)(0.8d * deck.countCards())) { // ensure we have 20% of the size of the deck left to play with after we deal out hands.
-			throw new IllegalArgumentException("Trying to start a game with too many (" + numplayers + ") players, leaving too few cards in the deck!");
 		}
 		
 		if(playerName != null) {
-			players.add(new HumanPlayer(playerName));
-			nosleep = false;
+			nplayers.add(new HumanPlayer(playerName));
 		} else {
 			// if playerName == null, we do a special AI only game.
 			AIDifficulty otherDiff = null;
@@ -63,70 +142,65 @@ public class Table {
 			} else {
 				otherDiff = AIDifficulty.BEST;
 			}
-			players.add(new AIPlayer("Special Computer", otherDiff));
-			nosleep = true;
+			nplayers.add(new AIPlayer("Special Computer", otherDiff));
 		}
 		
 		for(int i = 0; i < numplayers; i++) {
-			players.add(new AIPlayer("Computer " + (i+1), diff));
-		}
-		
-		for(CardEntity ce : players) {
-			ce.setTable(this);
+			nplayers.add(new AIPlayer("Computer " + (i+1), diff));
 		}
 		
+		return nplayers;
+	}
+	
+	/**
+	 * Deals the cards, tells the listeners that the game has started and then applies the effects of the first card.
+	 * Called by mainLoop before the first turn rather than by the constructor, so that listeners added after the table is created see the whole game.
+	 */
+	protected void startGame() {
+		started = true;
 		dealCards();
 //		System.out.println("Cards after dealing:");
 //		deck.printDeck();
 		
-		if(pile.getTopCard().getType() != CardType.NUMBER) {
+		Card first = pile.getTopCard();
+		events.onGameStarted(this);
+		
+		if(first.getType() != CardType.NUMBER) {
 			// if the first card isn't a number card, we have some fun.
-			switch(pile.getTopCard().getType()) {
+			switch(first.getType()) {
 			case SKIP:
 				// if the first card is a STOP the player who would start misses their turn.
-				getIOHandler().println(players.elementAt(currentPlayer).getName() + " misses their turn since the first card was a " + pile.getTopCard().getType() + "!");
+				events.onTurnSkipped(getCurrentPlayer(), first);
 				advanceCurrentPlayer();
 				break;
 				
 			case PICKTWO:
 				// make the starting player draw two cards and miss their go
-				for(int i = 0; i < 2; i++) {
-					getCurrentPlayer().takeCard(deck);
-				}
-				
-				getIOHandler().println(players.elementAt(currentPlayer).getName() +
-						" misses their turn and draws two cards since the first card was a " + pile.getTopCard().getType() + "!");
+				forceDraw(getCurrentPlayer(), 2);
+				events.onTurnSkipped(getCurrentPlayer(), first);
 				advanceCurrentPlayer();
 				break;
 				
 			case REVERSE:
 				// if the first card is a REVERSE, the order of play is reversed and we start on the "dealer" (i.e. player 0)
 				reversed = !reversed;
-				getIOHandler().println(players.elementAt(currentPlayer).getName() + " misses their turn since the first card was a " + pile.getTopCard().getType() + "!");
-				getIOHandler().println("The direction of play has also been reversed!");
+				events.onTurnSkipped(getCurrentPlayer(), first);
+				events.onDirectionReversed(reversed);
 				advanceCurrentPlayer();
 				break;
 				
 			case CHANGECOL:
 				// starting with CHANGECOL means the first player gets to choose the starting colour.
-				getIOHandler().println("The first card is " + pile.getTopCard().getType() + " so " + players.elementAt(currentPlayer) + " chooses the starting colour!");
-				currentColour = getCurrentPlayer().askForColour();
-				getIOHandler().println(players.elementAt(currentPlayer).getName() + " chose " + currentColour + " as the starting colour!");
+				chooseFirstColour();
 				break;
 				
 			case CHANGECOLFOUR:
 				// starting with CHANGECOLFOUR means the first player picks up 4 cards and misses their turn, and the next player chooses the colour to start with.
-				for(int i = 0; i < 3; i++) {
-					getCurrentPlayer().takeCard(deck);
-				}
-				getIOHandler().println("The first card is " + pile.getTopCard().getType() +
-						" so " + players.elementAt(currentPlayer).getName() + " misses their turn and draws four cards!");
-				
+				forceDraw(getCurrentPlayer(), 3);
+				events.onTurnSkipped(getCurrentPlayer(), first);
 				advanceCurrentPlayer();
 				
-				getIOHandler().println(getCurrentPlayer().getName() + " gets to choose the starting colour!");
-				currentColour = getCurrentPlayer().askForColour();
-				getIOHandler().println(players.elementAt(currentPlayer).getName() + " chose " + currentColour + " as the starting colour!");
+				chooseFirstColour();
 				break;
 			case NUMBER:
 				break;
@@ -135,42 +209,45 @@ public class Table {
 			}
 		}
 		
-		getIOHandler().print("\n");
+		if(waitingFor == null) {
+			getIOHandler().print("\n");
+		}
+		
 		getIOHandler().flush();
 	}
 	
+	/**
+	 * Asks the current player for the colour of the first card on the pile; if the table is suspendable and they're human, the game is
+	 * suspended until they've chosen.
+	 */
+	protected void chooseFirstColour() {
+		CardEntity ce = getCurrentPlayer();
+		
+		if(suspendable && ce instanceof HumanPlayer) {
+			waitingFor = (HumanPlayer)ce;
+			choosingFirstColour = true;
+			waitingFor.startColourChoice();
+		} else {
+			currentColour = ce.askForColour();
+			events.onColourChosen(ce, currentColour);
+		}
+	}
+	
 	/**
 	 * The main loop; ended by a player choosing to call requestEnd() or by the game ending (i.e. a player reaching 0 cards)
+	 * Waits out the pacer's pause between turns on the calling thread; see {@link PacedTableRunner} for running tables without doing so.
+	 * Suspendable tables can't be played this way, since nothing would resume them.
 	 */
 	public boolean mainLoop(ScoreList slist) {
 		try {
-			//System.out.println("Top card: " + pile.getTopCard() + (pile.getTopCard().getColour() == CardColour.BLACK ? "[Clr: " + getCurrentColour() + "]!" : "!"));
-			while(!endRequested) {
-				getIOHandler().println("-----");
-				
-				getIOHandler().println("Top card: " + pile.getTopCard() + (pile.getTopCard().getColour() == CardColour.BLACK ? "[Clr: " + getCurrentColour() + "]!" : "!"));
-				lastPlayer = currentPlayer;
-				getCurrentPlayer().doTurn();
-				
-				getIOHandler().println("-----");
-				
-				getIOHandler().print("\n");
-				
-				boolean won = false;
-				
-				for(CardEntity ce : players) {
-					if(ce.countCards() == 0) {
-						// we have a winner!
-						getIOHandler().println(ce.getName() + " has won this game!");
-						won = true;
-					}
+			if(!started) {
+				startGame();
+			}
+			
+			while(!playTurn()) {
+				if(!pacer.pause(TURN_DELAY_DEFAULT)) {
+					throw new InterruptedException("Interrupted between turns.");
 				}
-				
-				getIOHandler().flush();
-				
-				if(won) break;
-				
-				if(!nosleep) Thread.sleep(1000); // makes the pace a little more reasonable
 			}
 			
 //			System.out.println("Score tallies for this game:");
@@ -191,6 +268,103 @@ public class Table {
 		return true;
 	}
 	
+	/**
+	 * Plays the next turn, starting the game first if it hasn't been started, and doesn't pause afterwards.
+	 * Lets the caller decide how to wait between turns, e.g. {@link PacedTableRunner} schedules the next turn instead of sleeping.
+	 * The scores aren't added to any ScoreList; that's left to the caller once this returns true.
+	 * If the table is suspendable, this returns false with the game suspended if a human player is asked for something; see {@link #resume(String)}.
+	 * @return true if the game is over, either because someone won or because a player called requestEnd().
+	 * @throws IllegalArgumentException
+	 * @throws IllegalStateException If the game is suspended.
+	 */
+	public boolean playTurn() throws IllegalArgumentException, IllegalStateException {
+		if(waitingFor != null) {
+			throw new IllegalStateException("Trying to play a turn while waiting for " + waitingFor.getName() + "!");
+		}
+		
+		if(!started) {
+			startGame();
+			
+			if(waitingFor != null) {
+				return false;
+			}
+		}
+		
+		if(finished || endRequested) {
+			return true;
+		}
+		
+		//System.out.println("Top card: " + pile.getTopCard() + (pile.getTopCard().getColour() == CardColour.BLACK ? "[Clr: " + getCurrentColour() + "]!" : "!"));
+		CardEntity turnPlayer = getCurrentPlayer();
+		events.onTurnStarted(turnPlayer);
+		
+		lastPlayer = currentPlayer;
+		
+		if(suspendable && turnPlayer instanceof HumanPlayer) {
+			waitingFor = (HumanPlayer)turnPlayer;
+			waitingFor.startTurn();
+			getIOHandler().flush();
+			return false;
+		}
+		
+		turnPlayer.doTurn();
+		return endTurn(turnPlayer);
+	}
+	
+	/**
+	 * Resumes a suspended game with the next line of input from the player it's waiting for. If that finishes what they were asked for, their
+	 * turn (if it was one) ends and the game carries on from playTurn(); otherwise it stays suspended.
+	 * @param line The line the player sent.
+	 * @return true if the game is over, as for playTurn().
+	 * @throws IllegalArgumentException
+	 * @throws IllegalStateException If the game isn't suspended.
+	 */
+	public boolean resume(String line) throws IllegalArgumentException, IllegalStateException {
+		if(waitingFor == null) {
+			throw new IllegalStateException("Trying to resume a game that isn't waiting for anyone!");
+		}
+		
+		HumanPlayer player = waitingFor;
+		player.onInput(line);
+		
+		if(player.isWaiting()) {
+			getIOHandler().flush();
+			return false;
+		}
+		
+		waitingFor = null;
+		
+		if(choosingFirstColour) {
+			choosingFirstColour = false;
+			currentColour = player.askForColour();
+			events.onColourChosen(player, currentColour);
+			getIOHandler().print("\n");
+			getIOHandler().flush();
+			return false;
+		}
+		
+		return endTurn(player);
+	}
+	
+	/**
+	 * Finishes a turn, checking whether the player won.
+	 * @return true if the game is over.
+	 */
+	protected boolean endTurn(CardEntity turnPlayer) {
+		events.onTurnEnded(turnPlayer);
+		
+		for(CardEntity ce : players) {
+			if(ce.countCards() == 0) {
+				// we have a winner!
+				events.onGameWon(ce);
+				finished = true;
+			}
+		}
+		
+		getIOHandler().flush();
+		return (finished || endRequested);
+	}
+	
 	/**
 	 * Used to deal out a hand of HAND_SIZE_DEFAULT cards to each player.
 	 */
@@ -218,6 +392,7 @@ public class Table {
 		
 		if(ncard == null) {
 			// the player is reporting that no card was playable; proceed.
+			events.onPass(ent);
 			advanceCurrentPlayer();
 			return;
 		}
@@ -225,17 +400,14 @@ public class Table {
 		// Check if it's a legal move.
 		if(ncard.getColour() == CardColour.BLACK) {
 			// for both cards, the player that played them gets to choose the colour.
-			getIOHandler().println(players.elementAt(currentPlayer).getName() + " played a " + ncard.getType() + "!");
+			events.onCardPlayed(ent, ncard, false);
 			currentColour = ent.askForColour();
-			getIOHandler().println(players.elementAt(currentPlayer).getName() + " chose " + currentColour + " as the new colour!");
+			events.onColourChosen(ent, currentColour);
 			advanceCurrentPlayer();
 			
 			if(ncard.getType() == CardType.CHANGECOLFOUR) { // now make the next player draw 4 cards and miss their go if that's the card that was played
-				for(int i = 0; i < 3; i++) {
-					getCurrentPlayer().takeCard(deck);
-				}
-				
-				getIOHandler().println(players.elementAt(currentPlayer).getName() + " misses their turn and draws four cards!");
+				forceDraw(getCurrentPlayer(), 3);
+				events.onTurnSkipped(getCurrentPlayer(), ncard);
 				advanceCurrentPlayer();
 			}
 			
@@ -245,9 +417,9 @@ public class Table {
 			
 			if(ncard.getType() == pType && ncard.getValue() == peeked.getValue()) { // while legal, we need to chance the currentColour if we're changing because of a type match
 				currentColour = ncard.getColour();
-				getIOHandler().println(players.elementAt(currentPlayer).getName() + " played " + ncard + ", changing the colour to " + ncard.getColour() + "!");
+				events.onCardPlayed(ent, ncard, true);
 			} else {
-				getIOHandler().println(players.elementAt(currentPlayer).getName() + " played " + ncard + "!");
+				events.onCardPlayed(ent, ncard, false);
 			}
 			
 			// if ncard isn't a number card, we have additional actions to take
@@ -255,21 +427,18 @@ public class Table {
 				switch (ncard.getType()) {
 				case SKIP:
 					advanceCurrentPlayer();
-					getIOHandler().println(players.elementAt(currentPlayer).getName() + " misses their turn!");
+					events.onTurnSkipped(getCurrentPlayer(), ncard);
 					break;
 					
 				case REVERSE:
 					reversed = !reversed;
-					getIOHandler().println("The order of play is reversed! Direction of play is now " + (reversed ? "counter-clockwise" : "clockwise") + "!");
+					events.onDirectionReversed(reversed);
 					break;
 					
 				case PICKTWO:
 					advanceCurrentPlayer();
-					for(int i = 0; i < 2; i++) {
-						getCurrentPlayer().takeCard(deck);
-					}
-					
-					getIOHandler().println(players.elementAt(currentPlayer).getName() + " misses their turn and draws two cards!");
+					forceDraw(getCurrentPlayer(), 2);
+					events.onTurnSkipped(getCurrentPlayer(), ncard);
 				case CHANGECOL:
 					break;
 				case CHANGECOLFOUR:
@@ -295,32 +464,23 @@ public class Table {
 	 * @return true if the card is legal, false otherwise.
 	 */
 	public boolean isLegal(Card c) {
-		Card topCard = pile.getTopCard();
-		//System.out.println("Checking legality of " + c + ", top card: " + topCard + "[" + getCurrentColour() + "].");
-		
-		if(c.getColour() == CardColour.BLACK) { // always legal to play a black card if it's your turn
-			//System.out.println(c + " is a black card!");
-			return true;
-		}
-		
-		if(c.getColour() == getCurrentColour()) { // always legal to play a same-colour card of any type.
-			//System.out.println(c + " has the same colour as " + topCard + "!");
-			return true;
-		}
-		
-		if(c.getType() == topCard.getType()) { // not always legal to play cards of the same type; if type == NUMBER, we have to check the values are equal.
-			if(topCard.getType() == CardType.NUMBER) { // if we have a number, check the values
-				if(topCard.getValue() == c.getValue()) { // values are the same, so return true
-					//System.out.println(c + " has the same type as " + topCard + "!");
-					return true;
-				}
-			} else { // else the types are REVERSE, PICKTWO or SKIP and can be played.
-				//System.out.println(c + " has the same type as " + topCard + "!");
-				return true;
-			}
-		}
-		
-		return false;
+		return CardCode.isLegal(c.getCode(), pile.getTopCard().getCode(), getCurrentColour().ordinal());
+	}
+	
+	/**
+	 * @return A bitmask of every kind of card that is legal to play right now; bit n is set if {@link #isLegal(Card)} is true for a card with code n.
+	 */
+	public long getLegalMask() {
+		return CardCode.legalMask(pile.getTopCard().getCode(), getCurrentColour().ordinal());
+	}
+	
+	/**
+	 * Copies the game as it is now into a flat {@link GameState}, which can be copied, searched and played on without affecting this table.
+	 * Takes O(number of cards) time and doesn't share anything with the table.
+	 * @return A new snapshot of the game.
+	 */
+	public GameState snapshot() {
+		return new GameState(this);
 	}
 	
 	/**
@@ -328,23 +488,32 @@ public class Table {
 	 * If there is not at least one player who forgot to say EINS, the accusor draws two cards.
 	 */
 	public void accuseEins(CardEntity accusor) {
-		getIOHandler().println(accusor.getName() + " accuses all players of forgetting to say EINS!");
+		boolean correct = checkEins();
+		events.onEinsAccusation(accusor, correct);
 		
-		if(checkEins()) {
+		if(correct) {
 			for(CardEntity ce : players) {
 				if(ce != accusor) { // let's not make the accusor accuse themselves.
 					if(ce.countCards() == 1 && !ce.hasSaidEins()) {
 						// this entity forgot to say eins and has one card so is punished by drawing two cards
-						getIOHandler().println(ce.getName() + " has only one card and has forgotten to say EINS! They draw two cards as punishment.");
-						ce.takeCard(deck);
-						ce.takeCard(deck);
+						events.onEinsForgotten(ce);
+						forceDraw(ce, 2);
 					}
 				}
 			}
 		} else {
-			getIOHandler().println(accusor.getName() + "\'s accusation was incorrect and so draws two cards as punishment.");
-			accusor.takeCard(deck);
-			accusor.takeCard(deck);
+			forceDraw(accusor, 2);
+		}
+	}
+	
+	/**
+	 * Makes a player draw cards from the deck because of a card or a punishment rather than by choice, reporting each one with onDraw.
+	 * @param ce The player who has to draw.
+	 * @param count The number of cards to draw.
+	 */
+	protected void forceDraw(CardEntity ce, int count) {
+		for(int i = 0; i < count; i++) {
+			events.onDraw(ce, ce.takeCard(deck), true);
 		}
 	}
 	
@@ -393,6 +562,55 @@ public class Table {
 		return output;
 	}
 	
+	/**
+	 * Adds a listener which will be told about everything that happens in the game from now on.
+	 * Listeners added before mainLoop is first called see the whole game, including the first card.
+	 * @param l The listener to add.
+	 * @throws IllegalArgumentException If l is null.
+	 */
+	public void addGameEventListener(GameEventListener l) throws IllegalArgumentException {
+		events.add(l);
+	}
+	
+	/**
+	 * Stops a listener from being told about the game.
+	 * @param l The listener to remove.
+	 * @return true if the listener was removed, false if it wasn't listening.
+	 */
+	public boolean removeGameEventListener(GameEventListener l) {
+		return events.remove(l);
+	}
+	
+	/**
+	 * @return The listener that every event in the game is sent to; players and the deck use this to report their own events.
+	 */
+	protected GameEventListener getEventListener() {
+		return events;
+	}
+	
+	/**
+	 * @return The random number generator for the players' decisions at this table. Anything at the table that needs randomness should use this
+	 * (or a generator split from it) rather than creating its own, so that tables running on different threads never share state and seeded games
+	 * can be replayed. The deck is shuffled with a separate generator; see getDeckRandom().
+	 */
+	public FastRandom getRandom() {
+		return random;
+	}
+	
+	/**
+	 * @return The random number generator used to shuffle this table's deck, when the game starts and whenever the pile is turned over.
+	 */
+	public FastRandom getDeckRandom() {
+		return deckRandom;
+	}
+	
+	/**
+	 * @return The seed this table's random number generators were created from.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+	
 	/**
 	 * @return The next player who will play after this one, assuming no SKIP, DRAWTWO, REVERSE or CHANGECOLFOUR cards are played.
 	 */
@@ -468,9 +686,91 @@ public class Table {
 	}
 	
 	/**
-	 * @return false if nosleep is true. Used by AI to work out if they should simulate "thinking time" in their turn.
+	 * Pauses the game for millis at normal speed, scaled by the table's pacer. Used to simulate an AI's "thinking time" and to give a human time to read.
+	 * When the table is being run by a {@link PacedTableRunner}, the pause is added to the wait before the next turn instead of holding the thread.
+	 * @param millis The length of the pause at normal speed, in milliseconds.
+	 */
+	public void delay(int millis) {
+		long scaled = pacer.scale(millis);
+		
+		if(scaled <= 0L) {
+			return;
+		} else if(deferDelays) {
+			getIOHandler().flush();
+			pendingDelay += scaled;
+		} else {
+			getIOHandler().doDelay((int)Math.min(scaled, Integer.MAX_VALUE));
+		}
+	}
+	
+	/**
+	 * @param npacer Decides how long every pause in the game lasts from now on, e.g. {@link NullPacer#INSTANCE} to play as fast as possible.
+	 * By default, tables with a {@link HumanPlayer} play in real time and others have no pauses.
+	 * @throws IllegalArgumentException If npacer is null.
+	 */
+	public void setPacer(Pacer npacer) throws IllegalArgumentException {
+		if(npacer == null) {
+			throw new IllegalArgumentException("Trying to set a null pacer on a table!");
+		}
+		
+		pacer = npacer;
+	}
+	
+	public Pacer getPacer() {
+		return pacer;
+	}
+	
+	/**
+	 * @return true once someone has won the game.
+	 */
+	public boolean isFinished() {
+		return finished;
+	}
+	
+	/**
+	 * @param nsuspendable If true, the game is suspended whenever a {@link HumanPlayer} at the table is asked for something, and carries on
+	 * when their input is passed to {@link #resume(String)}, so no thread waits for them. Only tables played with playTurn() can be suspendable.
+	 * @throws IllegalStateException If the game is suspended.
+	 */
+	public void setSuspendable(boolean nsuspendable) throws IllegalStateException {
+		if(waitingFor != null) {
+			throw new IllegalStateException("Trying to change whether a suspended game is suspendable!");
+		}
+		
+		suspendable = nsuspendable;
+	}
+	
+	public boolean isSuspendable() {
+		return suspendable;
+	}
+	
+	/**
+	 * @return true if the game is waiting for a player's input; see {@link #resume(String)}.
+	 */
+	public boolean isSuspended() {
+		return (waitingFor != null);
+	}
+	
+	/**
+	 * @return The player the game is suspended for, or null if it isn't suspended.
+	 */
+	public HumanPlayer getWaitingPlayer() {
+		return waitingFor;
+	}
+	
+	/**
+	 * @param defer If true, pauses asked for with delay() are added up for {@link #takePendingDelay()} rather than waited out.
+	 */
+	protected void setDeferDelays(boolean defer) {
+		deferDelays = defer;
+	}
+	
+	/**
+	 * @return The real milliseconds of pauses asked for since this was last called, while delays are deferred.
 	 */
-	public boolean shouldSleep() {
-		return (!nosleep);
+	protected long takePendingDelay() {
+		long delay = pendingDelay;
+		pendingDelay = 0L;
+		return delay;
 	}
 }
@@ -0,0 +1,214 @@
+package com.sgtcodfish.eins;
+
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.sgtcodfish.eins.AIPlayer.AIDifficulty;
+
+/**
+ * Runs a large AI-only tournament by splitting the games between several threads, each of which runs its own {@link Simulation}.
+ * Every thread keeps its own {@link ScoreList} and the lists are only merged once all the games are finished, so the threads never contend.
+ *
+ * Usage: Tournament [-seed seed] [games] [threads] [difficulty of each seat...]
+ * The number of threads defaults to the number of available processors. Each thread's simulation gets its own seed from the tournament's seed,
+ * so a seeded tournament with the same number of threads plays the same games every time.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class Tournament {
+	protected AIDifficulty[] seats; /** The difficulty of the AI sitting in each seat, in order of play. */
+	protected int threadCount; /** The number of threads to play games on. */
+	protected long seed; /** The seed each thread's seed comes from. */
+	
+	protected int gamesPlayed; /** The number of games played to completion in the last run. */
+	protected int gamesAborted; /** The number of games that ended with an error in the last run. */
+	protected long elapsedNanos; /** The wall-clock time taken by the last run. */
+	protected TournamentStats stats; /** The statistics of each player in the last run, merged from every thread. */
+	
+	/**
+	 * Creates a tournament with the given seats, played on nthreads threads, with a random seed.
+	 * @param nseats The difficulty of the AI in each seat. Must contain at least 2 seats.
+	 * @param nthreads The number of threads to use. Must be positive.
+	 * @throws IllegalArgumentException
+	 */
+	public Tournament(AIDifficulty[] nseats, int nthreads) throws IllegalArgumentException {
+		this(nseats, nthreads, new FastRandom().nextLong());
+	}
+	
+	/**
+	 * Creates a tournament with the given seats, played on nthreads threads, whose games are all decided by nseed.
+	 * @param nseats The difficulty of the AI in each seat. Must contain at least 2 seats.
+	 * @param nthreads The number of threads to use. Must be positive.
+	 * @param nseed The seed for the tournament.
+	 * @throws IllegalArgumentException
+	 */
+	public Tournament(AIDifficulty[] nseats, int nthreads, long nseed) throws IllegalArgumentException {
+		if(nseats == null || nseats.length < 2) {
+			throw new IllegalArgumentException("Trying to run a tournament with too few seats!");
+		} else if(nthreads < 1) {
+			throw new IllegalArgumentException("Trying to run a tournament with " + nthreads + " threads!");
+		}
+		
+		seats = nseats.clone();
+		threadCount = nthreads;
+		seed = nseed;
+	}
+	
+	/**
+	 * Plays games games split as evenly as possible between the threads, and returns the merged scores.
+	 * @param games The total number of games to play.
+	 * @return The scores of every completed game.
+	 * @throws IllegalStateException If a thread is interrupted or fails.
+	 */
+	public ScoreList run(int games) throws IllegalStateException {
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		Vector<Future<Simulation>> futures = new Vector<Future<Simulation>>(threadCount);
+		ScoreList[] lists = new ScoreList[threadCount];
+		ScoreList result = new ScoreList();
+		FastRandom seeds = new FastRandom(seed);
+		
+		gamesPlayed = 0;
+		gamesAborted = 0;
+		stats = new TournamentStats();
+		long start = System.nanoTime();
+		
+		try {
+			for(int i = 0; i < threadCount; i++) {
+				// the first (games % threadCount) threads play one extra game each.
+				final int share = (games / threadCount) + (i < (games % threadCount) ? 1 : 0);
+				final ScoreList slist = new ScoreList();
+				final long threadSeed = seeds.nextLong(); // taken here rather than in the thread, so each thread's seed doesn't depend on timing.
+				lists[i] = slist;
+				
+				futures.add(executor.submit(new Callable<Simulation>() {
+					@Override
+					public Simulation call() {
+						Simulation sim = new Simulation(seats, threadSeed);
+						sim.run(share, slist, null);
+						return sim;
+					}
+				}));
+			}
+			
+			for(int i = 0; i < threadCount; i++) {
+				Simulation sim = futures.elementAt(i).get();
+				gamesPlayed += sim.getGamesPlayed();
+				gamesAborted += sim.getGamesAborted();
+				stats.add(sim.getStats());
+				result.merge(lists[i]);
+			}
+		} catch(InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the tournament to finish.");
+		} catch(ExecutionException ee) {
+			IllegalStateException ise = new IllegalStateException("A tournament thread failed: " + ee.getCause());
+			ise.initCause(ee.getCause());
+			throw ise;
+		} finally {
+			executor.shutdownNow();
+		}
+		
+		elapsedNanos = System.nanoTime() - start;
+		return result;
+	}
+	
+	/**
+	 * @return The seed the tournament was created with.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+	
+	/**
+	 * @return The number of games played to completion in the last run.
+	 */
+	public int getGamesPlayed() {
+		return gamesPlayed;
+	}
+	
+	/**
+	 * @return The number of games that ended with an error in the last run.
+	 */
+	public int getGamesAborted() {
+		return gamesAborted;
+	}
+	
+	/**
+	 * @return The statistics of each player in the last run, or null if there hasn't been one.
+	 */
+	public TournamentStats getStats() {
+		return stats;
+	}
+	
+	/**
+	 * @return The wall-clock time taken by the last run, in nanoseconds.
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+	
+	/**
+	 * @return The number of games (completed or aborted) played per second of wall-clock time in the last run.
+	 */
+	public double getGamesPerSecond() {
+		return Simulation.gamesPerSecond(gamesPlayed + gamesAborted, elapsedNanos);
+	}
+	
+	/**
+	 * Parses the command line arguments described in the class documentation, runs the tournament and reports the results.
+	 */
+	public static void main(String[] args) {
+		ConsoleIOHandler io = new ConsoleIOHandler();
+		int games = Simulation.GAME_COUNT_DEFAULT;
+		int threads = Runtime.getRuntime().availableProcessors();
+		AIDifficulty[] nseats = Simulation.getDefaultSeats();
+		Tournament tournament = null;
+		Long seed = null;
+		
+		try {
+			if(args.length > 1 && args[0].equals("-seed")) {
+				seed = Long.parseLong(args[1]);
+				String[] rest = new String[args.length - 2];
+				System.arraycopy(args, 2, rest, 0, rest.length);
+				args = rest;
+			}
+			
+			if(args.length > 0) {
+				games = Integer.parseInt(args[0]);
+			}
+			
+			if(args.length > 1) {
+				threads = Integer.parseInt(args[1]);
+			}
+			
+			if(args.length > 2) {
+				nseats = new AIDifficulty[args.length - 2];
+				
+				for(int i = 2; i < args.length; i++) {
+					nseats[i-2] = AIDifficulty.valueOf(args[i].toUpperCase());
+				}
+			}
+			
+			tournament = (seed == null ? new Tournament(nseats, threads) : new Tournament(nseats, threads, seed));
+		} catch(IllegalArgumentException iae) { // includes NumberFormatException
+			io.printErrorln("Invalid arguments: " + iae.getMessage());
+			io.printErrorln("Usage: Tournament [-seed seed] [games] [threads] [difficulty of each seat...]");
+			return;
+		}
+		
+		io.println("Playing " + games + " games on " + threads + " threads with seed " + tournament.getSeed() + "...");
+		io.flush();
+		
+		ScoreList slist = tournament.run(games);
+		
+		io.println("Played " + tournament.getGamesPlayed() + " games (" + tournament.getGamesAborted() + " aborted) in " +
+				(tournament.getElapsedNanos() / 1000000L) + "ms, " + (long)tournament.getGamesPerSecond() + " games/second.");
+		tournament.getStats().printSummary(io);
+		io.println("Final Scores:\n");
+		slist.printScoresFinal(io);
+		io.flush();
+	}
+}
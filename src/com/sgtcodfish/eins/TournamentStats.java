@@ -0,0 +1,236 @@
+package com.sgtcodfish.eins;
+
+import java.util.Vector;
+
+/**
+ * Collects statistics for comparing players over many games, in a single pass and in constant memory however many games are played:
+ * each player's wins and the mean and variance of their score (the value of the cards left in their hand), and the length of the games
+ * with a histogram. Confidence intervals are given for the win rates and mean scores.
+ *
+ * Listens to tables like {@link GameEventCounter}: one can listen to many tables in turn but not to tables on different threads at the same time,
+ * so give each thread its own and combine them with {@link #add(TournamentStats)} afterwards. Players are told apart by the same keys as in a
+ * {@link ScoreList}, their subclass identifier followed by their name.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class TournamentStats extends GameEventAdapter {
+	public static final int LENGTH_BUCKET_WIDTH = 10; /** The number of turns covered by each bucket of the game length histogram. */
+	public static final int LENGTH_BUCKETS = 40; /** The number of buckets; the last one holds every game at least as long as it starts. */
+	
+	/**
+	 * The statistics of one player.
+	 */
+	public static class PlayerStats {
+		protected String key;
+		protected long wins;
+		protected RunningStats score;
+		
+		protected PlayerStats(String nkey) {
+			key = nkey;
+			wins = 0L;
+			score = new RunningStats();
+		}
+		
+		public String getKey() {
+			return key;
+		}
+		
+		public long getGames() {
+			return score.getCount();
+		}
+		
+		public long getWins() {
+			return wins;
+		}
+		
+		public double getWinRate() {
+			return (score.getCount() == 0L ? 0.0d : (double)wins / score.getCount());
+		}
+		
+		/**
+		 * @return The 95% confidence interval of the win rate; see {@link RunningStats#wilsonInterval(long, long)}.
+		 */
+		public double[] getWinRateInterval() {
+			return RunningStats.wilsonInterval(wins, score.getCount());
+		}
+		
+		/**
+		 * @return The statistics of the player's score at the end of each game.
+		 */
+		public RunningStats getScore() {
+			return score;
+		}
+	}
+	
+	protected Vector<PlayerStats> players; /** Every player seen, in the order they were first seen. */
+	protected RunningStats gameLength; /** The number of turns in each game. */
+	protected long[] lengthHistogram;
+	
+	// the game in progress.
+	protected Table table;
+	protected int turns;
+	protected PlayerStats[] seats; /** The statistics of the player in each seat of the last game, so they don't have to be looked up every game. */
+	
+	/**
+	 * Creates statistics of no games.
+	 */
+	public TournamentStats() {
+		players = new Vector<PlayerStats>();
+		gameLength = new RunningStats();
+		lengthHistogram = new long[LENGTH_BUCKETS];
+		seats = new PlayerStats[0];
+	}
+	
+	@Override
+	public void onGameStarted(Table t) {
+		table = t;
+		turns = 0;
+		
+		if(seats.length != t.players.size()) {
+			seats = new PlayerStats[t.players.size()];
+		}
+		
+		for(int i = 0; i < seats.length; i++) {
+			CardEntity ce = t.players.elementAt(i);
+			String prefix = ce.getSubclassIdentifier();
+			String name = ce.getName();
+			
+			// usually the same player as last game, which can be checked without building their key.
+			if(seats[i] == null || seats[i].key.length() != prefix.length() + name.length() || !seats[i].key.startsWith(prefix) || !seats[i].key.endsWith(name)) {
+				seats[i] = getPlayer(prefix + name, true);
+			}
+		}
+	}
+	
+	@Override
+	public void onTurnEnded(CardEntity player) {
+		turns++;
+	}
+	
+	@Override
+	public void onGameWon(CardEntity winner) {
+		if(table == null) {
+			return;
+		}
+		
+		for(int i = 0; i < seats.length; i++) {
+			CardEntity ce = table.players.elementAt(i);
+			seats[i].score.add(ce.tallyValues());
+			
+			if(ce == winner) {
+				seats[i].wins++;
+			}
+		}
+		
+		gameLength.add(turns);
+		lengthHistogram[Math.min(turns / LENGTH_BUCKET_WIDTH, LENGTH_BUCKETS - 1)]++;
+		table = null;
+	}
+	
+	/**
+	 * @param key A player's subclass identifier followed by their name.
+	 * @param create If true, the player is added if they haven't been seen yet.
+	 * @return The player's statistics, or null if they haven't been seen and create is false.
+	 */
+	public PlayerStats getPlayer(String key, boolean create) {
+		for(PlayerStats ps : players) {
+			if(ps.key.equals(key)) {
+				return ps;
+			}
+		}
+		
+		if(!create) {
+			return null;
+		}
+		
+		PlayerStats ps = new PlayerStats(key);
+		players.add(ps);
+		return ps;
+	}
+	
+	/**
+	 * Adds all the statistics from another set to these, as if every game it saw had been seen here.
+	 * @param other The statistics to add.
+	 */
+	public void add(TournamentStats other) {
+		for(PlayerStats ops : other.players) {
+			PlayerStats ps = getPlayer(ops.key, true);
+			ps.wins += ops.wins;
+			ps.score.add(ops.score);
+		}
+		
+		gameLength.add(other.gameLength);
+		
+		for(int i = 0; i < LENGTH_BUCKETS; i++) {
+			lengthHistogram[i] += other.lengthHistogram[i];
+		}
+	}
+	
+	/**
+	 * @return Every player seen, in the order they were first seen.
+	 */
+	public Vector<PlayerStats> getPlayers() {
+		return players;
+	}
+	
+	/**
+	 * @return The number of games finished.
+	 */
+	public long getGames() {
+		return gameLength.getCount();
+	}
+	
+	/**
+	 * @return The statistics of the number of turns in each game.
+	 */
+	public RunningStats getGameLength() {
+		return gameLength;
+	}
+	
+	/**
+	 * @param bucket A bucket, from 0 to LENGTH_BUCKETS - 1.
+	 * @return The number of games with between bucket * LENGTH_BUCKET_WIDTH and (bucket + 1) * LENGTH_BUCKET_WIDTH - 1 turns (or more, for the last bucket).
+	 */
+	public long getLengthCount(int bucket) {
+		return lengthHistogram[bucket];
+	}
+	
+	/**
+	 * Prints every player's win rate and mean score with their 95% confidence intervals, and the game lengths.
+	 * @param io The IO handler to print to.
+	 */
+	public void printSummary(EINSIOHandler io) {
+		io.println("Statistics over " + getGames() + " games (with 95% confidence intervals):");
+		
+		for(PlayerStats ps : players) {
+			double[] interval = ps.getWinRateInterval();
+			io.println(ps.key + ": won " + ps.wins + " (" + String.format("%.2f%% [%.2f%%, %.2f%%]", 100.0d * ps.getWinRate(), 100.0d * interval[0], 100.0d * interval[1]) +
+					"), score per game " + ps.score + " (sd " + String.format("%.2f", ps.score.getStandardDeviation()) + ")");
+		}
+		
+		io.println("Turns per game: " + gameLength + " (sd " + String.format("%.2f", gameLength.getStandardDeviation()) + ", shortest " + (long)gameLength.getMin() +
+				", longest " + (long)gameLength.getMax() + ")");
+		
+		long most = 1L;
+		
+		for(long count : lengthHistogram) {
+			most = Math.max(most, count);
+		}
+		
+		int last = LENGTH_BUCKETS - 1;
+		
+		while(last > 0 && lengthHistogram[last] == 0L) {
+			last--;
+		}
+		
+		for(int i = 0; i <= last; i++) {
+			StringBuilder bar = new StringBuilder();
+			
+			for(long j = lengthHistogram[i] * 50L / most; j > 0L; j--) {
+				bar.append('#');
+			}
+			
+			String range = (i == LENGTH_BUCKETS - 1 ? (i * LENGTH_BUCKET_WIDTH) + "+" : (i * LENGTH_BUCKET_WIDTH) + "-" + ((i + 1) * LENGTH_BUCKET_WIDTH - 1));
+			io.println(String.format("%8s %9d %s", range, lengthHistogram[i], bar));
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package com.sgtcodfish.eins;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.sgtcodfish.eins.Card.CardColour;
+import com.sgtcodfish.eins.Card.CardType;
+
+/**
+ * Checks that the precomputed tables in {@link CardCode} follow the rules of the original Table.isLegal(Card), which are written out again here
+ * on {@link Card}s so that a mistake in building the tables can't also end up in what they're checked against.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class CardCodeTest {
+	/**
+	 * The rules of Table.isLegal(Card) before cards were encoded.
+	 * @param c The card whose legality we want to check.
+	 * @param topCard The top card of the pile.
+	 * @param currentColour The current colour in play.
+	 * @return true if c is legal to play.
+	 */
+	protected static boolean isLegal(Card c, Card topCard, CardColour currentColour) {
+		if(c.getColour() == CardColour.BLACK) { // always legal to play a black card if it's your turn
+			return true;
+		}
+		
+		if(c.getColour() == currentColour) { // always legal to play a same-colour card of any type.
+			return true;
+		}
+		
+		if(c.getType() == topCard.getType()) { // NUMBERs also need the same value; REVERSE, PICKTWO and SKIP don't.
+			if(topCard.getType() == CardType.NUMBER) {
+				return topCard.getValue() == c.getValue();
+			} else {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	@Test
+	public void legalityMatchesTable() {
+		CardColour[] colours = CardColour.values();
+		assertEquals(CardCode.COLOUR_COUNT, colours.length);
+		
+		for(int top = 0; top < CardCode.KIND_COUNT; top++) {
+			Card topCard = CardCode.toCard(top);
+			
+			for(int colour = 0; colour < colours.length; colour++) {
+				long mask = CardCode.legalMask(top, colour);
+				
+				for(int code = 0; code < CardCode.KIND_COUNT; code++) {
+					boolean expected = isLegal(CardCode.toCard(code), topCard, colours[colour]);
+					String state = CardCode.toString(code) + " on " + CardCode.toString(top) + " [" + colours[colour] + "]";
+					
+					assertEquals("isLegal: " + state, expected, CardCode.isLegal(code, top, colour));
+					assertEquals("legalMask: " + state, expected, ((mask >>> code) & 1L) != 0L);
+				}
+				
+				assertEquals("legalMask has bits beyond the last code", 0L, mask >>> CardCode.KIND_COUNT);
+			}
+		}
+	}
+}
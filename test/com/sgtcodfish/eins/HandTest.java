@@ -0,0 +1,61 @@
+package com.sgtcodfish.eins;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.sgtcodfish.eins.Card.CardColour;
+import com.sgtcodfish.eins.Card.CardType;
+
+/**
+ * Checks that a {@link Hand} picks cards in the order they were added, as the list of cards it replaced did.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class HandTest {
+	protected static final int RED_SKIP = CardCode.encode(CardType.SKIP, CardColour.RED, 0);
+	protected static final int BLUE_REVERSE = CardCode.encode(CardType.REVERSE, CardColour.BLUE, 0);
+	protected static final int GREEN_SEVEN = CardCode.encode(CardType.NUMBER, CardColour.GREEN, 7);
+	
+	@Test
+	public void firstBlackCardIsTheOneAddedFirst() {
+		Hand hand = new Hand();
+		hand.add(GREEN_SEVEN);
+		hand.add(CardCode.CODE_CHANGECOL);
+		hand.add(CardCode.CODE_CHANGECOLFOUR);
+		assertEquals(CardCode.CODE_CHANGECOL, hand.pickFirst(CardCode.BLACK_MASK));
+		
+		hand.remove(CardCode.CODE_CHANGECOL);
+		hand.add(CardCode.CODE_CHANGECOL);
+		assertEquals(CardCode.CODE_CHANGECOLFOUR, hand.pickFirst(CardCode.BLACK_MASK));
+		assertEquals(-1, new Hand().pickFirst(CardCode.BLACK_MASK));
+	}
+	
+	@Test
+	public void highestValueTieGoesToTheCardAddedFirst() {
+		Hand hand = new Hand();
+		hand.add(GREEN_SEVEN);
+		hand.add(BLUE_REVERSE);
+		hand.add(RED_SKIP);
+		long all = -1L;
+		assertEquals(BLUE_REVERSE, hand.pickHighestValue(all));
+		
+		hand.remove(BLUE_REVERSE);
+		hand.add(BLUE_REVERSE);
+		assertEquals(RED_SKIP, hand.pickHighestValue(all));
+		assertEquals(GREEN_SEVEN, hand.pickHighestValue(1L << GREEN_SEVEN));
+	}
+	
+	@Test
+	public void removeTakesTheEarliestCardOfAKind() {
+		Hand hand = new Hand();
+		
+		for(int i = 0; i < 40; i++) { // more than the initial capacity
+			hand.add(i % 2 == 0 ? GREEN_SEVEN : RED_SKIP);
+		}
+		
+		hand.remove(GREEN_SEVEN);
+		assertEquals(RED_SKIP, hand.pickFirst(-1L));
+		assertEquals(39, hand.size());
+		assertEquals(19, hand.count(GREEN_SEVEN));
+	}
+}
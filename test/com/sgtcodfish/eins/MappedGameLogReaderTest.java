@@ -0,0 +1,73 @@
+package com.sgtcodfish.eins;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Checks that {@link MappedGameLogReader#split(FileChannel, int)} only cuts a log between records, without reading it from the start.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class MappedGameLogReaderTest {
+	public static final int GAME_COUNT = 300;
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	@Test
+	public void splitCutsBetweenRecords() throws IOException {
+		File file = new File(folder.getRoot(), "games.log");
+		GameLogWriter log = new GameLogWriter(file.getPath());
+		Simulation sim = new Simulation(Simulation.getDefaultSeats(), 1234L);
+		sim.setGameLog(log);
+		ScoreList slist = new ScoreList();
+		
+		for(int i = 0; i < GAME_COUNT; i++) {
+			sim.playGame(slist);
+		}
+		
+		log.close();
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		
+		try {
+			HashSet<Long> offsets = new HashSet<Long>();
+			MappedGameLogReader whole = new MappedGameLogReader(channel, 0L, channel.size());
+			
+			while(whole.next()) {
+				offsets.add(whole.getRecordOffset());
+			}
+			
+			assertEquals(log.getGamesWritten(), offsets.size());
+			
+			for(int parts : new int[] {1, 2, 7, 50, GAME_COUNT * 2}) {
+				long[] bounds = MappedGameLogReader.split(channel, parts);
+				int records = 0;
+				
+				assertEquals(0L, bounds[0]);
+				assertEquals(channel.size(), bounds[bounds.length - 1]);
+				
+				for(int i = 0; i + 1 < bounds.length; i++) {
+					assertTrue("Cut at " + bounds[i] + " isn't a record", offsets.contains(bounds[i]));
+					MappedGameLogReader r = new MappedGameLogReader(channel, bounds[i], bounds[i + 1]);
+					
+					while(r.next()) {
+						records++;
+					}
+				}
+				
+				assertEquals("Records read in " + parts + " parts", offsets.size(), records);
+			}
+		} finally {
+			channel.close();
+		}
+	}
+}
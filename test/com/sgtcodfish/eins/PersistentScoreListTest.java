@@ -0,0 +1,73 @@
+package com.sgtcodfish.eins;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Vector;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.sgtcodfish.eins.AIPlayer.AIDifficulty;
+import com.sgtcodfish.eins.PersistentScoreList.SyncPolicy;
+
+/**
+ * Checks that a {@link PersistentScoreList} is only carried on with the description it was created with.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class PersistentScoreListTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	protected static PersistentScoreList open(String base, String description) throws IOException {
+		return new PersistentScoreList(base, description, SyncPolicy.EVERY_GAME, 1, PersistentScoreList.SNAPSHOT_INTERVAL_DEFAULT);
+	}
+	
+	protected static Vector<CardEntity> createPlayers() {
+		Vector<CardEntity> players = new Vector<CardEntity>();
+		players.add(new AIPlayer("Computer 1", AIDifficulty.REGULAR));
+		players.add(new AIPlayer("Computer 2", AIDifficulty.BEST));
+		return players;
+	}
+	
+	@Test
+	public void descriptionIsChecked() throws IOException {
+		String base = new File(folder.getRoot(), "series").getPath();
+		
+		PersistentScoreList slist = open(base, "choice 4, 3 games");
+		slist.addScores(createPlayers());
+		slist.close();
+		
+		try {
+			open(base, "choice 5, 5 games");
+			fail("Opened a series with the wrong description");
+		} catch(IOException ioe) {
+			// expected
+		}
+		
+		slist = open(base, "choice 4, 3 games");
+		assertEquals(1, slist.getDatasetCount());
+		slist.close();
+		
+		slist = open(base, null);
+		assertEquals("choice 4, 3 games", slist.getDescription());
+		assertEquals(1, slist.getDatasetCount());
+		slist.close();
+	}
+	
+	@Test
+	public void descriptionIsStoredBeforeTheFirstGame() throws IOException {
+		String base = new File(folder.getRoot(), "empty").getPath();
+		open(base, "choice 3, 3 games").close();
+		
+		try {
+			open(base, "choice 1, 1 games");
+			fail("Opened an empty series with the wrong description");
+		} catch(IOException ioe) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package com.sgtcodfish.eins;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Vector;
+
+import org.junit.Test;
+
+import com.sgtcodfish.eins.AIPlayer.AIDifficulty;
+
+/**
+ * Checks that a {@link RolloutSearch} that is interrupted stops its workers and can still search afterwards.
+ * @author Ashley Davis (SgtCoDFish)
+ */
+public class RolloutSearchTest {
+	protected static final int SEAT_COUNT = 4;
+	
+	/**
+	 * @return A freshly dealt position with more than one legal move.
+	 */
+	protected static GameState createRoot() {
+		int[] moves = new int[GameState.MAX_MOVES];
+		
+		while(true) {
+			Vector<CardEntity> players = new Vector<CardEntity>(SEAT_COUNT);
+			
+			for(int i = 0; i < SEAT_COUNT; i++) {
+				players.add(new AIPlayer("Computer " + (i+1), AIDifficulty.REGULAR));
+			}
+			
+			Table table = new Table(new NullIOHandler(), players);
+			table.startGame();
+			GameState root = new GameState(table);
+			
+			if(root.legalMoves(moves) > 1) {
+				return root;
+			}
+		}
+	}
+	
+	@Test
+	public void interruptedSearchStopsItsWorkers() {
+		GameState root = createRoot();
+		RolloutSearch search = new RolloutSearch(4, Integer.MAX_VALUE, 0L, new FastRandom(1234L));
+		
+		Thread.currentThread().interrupt();
+		
+		try {
+			search.search(root);
+			fail("An interrupted search should throw.");
+		} catch(IllegalStateException ise) {
+			assertTrue(ise.getCause() instanceof InterruptedException);
+			assertTrue(Thread.interrupted()); // the interrupt is kept for the caller, and cleared here for the next search.
+		}
+		
+		search.setBudget(200, 0L);
+		int move = search.search(root);
+		int[] moves = new int[GameState.MAX_MOVES];
+		int moveCount = root.legalMoves(moves);
+		boolean legal = false;
+		
+		for(int m = 0; m < moveCount; m++) {
+			legal |= (moves[m] == move);
+		}
+		
+		assertTrue(legal);
+		assertTrue(search.getLastIterations() <= 200);
+	}
+}